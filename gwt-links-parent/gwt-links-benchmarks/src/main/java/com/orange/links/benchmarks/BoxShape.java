@@ -0,0 +1,85 @@
+package com.orange.links.benchmarks;
+
+import com.orange.links.client.connection.Connection;
+import com.orange.links.client.shapes.Shape;
+
+/**
+ * Shape with fixed bounds, standing for a widget outside of a browser
+ */
+public class BoxShape implements Shape {
+
+	private final int left;
+	private final int top;
+	private final int width;
+	private final int height;
+	private boolean sync = true;
+	private boolean allowSync = true;
+
+	public BoxShape(int left, int top, int width, int height) {
+		this.left = left;
+		this.top = top;
+		this.width = width;
+		this.height = height;
+	}
+
+	@Override
+	public int getLeft() {
+		return left;
+	}
+
+	@Override
+	public int getTop() {
+		return top;
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public boolean addConnection(Connection connection) {
+		return false;
+	}
+
+	@Override
+	public boolean removeConnection(Connection connection) {
+		return false;
+	}
+
+	@Override
+	public void setSynchronized(boolean sync) {
+		if (allowSync) {
+			this.sync = sync;
+		}
+	}
+
+	@Override
+	public boolean isSynchronized() {
+		return sync;
+	}
+
+	@Override
+	public void draw() {
+	}
+
+	@Override
+	public void drawHighlight() {
+	}
+
+	@Override
+	public void setAllowSynchronized(boolean allowSynchronized) {
+		this.allowSync = allowSynchronized;
+	}
+
+	@Override
+	public boolean allowSynchronized() {
+		return allowSync;
+	}
+
+}
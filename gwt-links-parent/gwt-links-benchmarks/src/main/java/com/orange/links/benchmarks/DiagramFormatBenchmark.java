@@ -0,0 +1,68 @@
+package com.orange.links.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.orange.links.client.save.DiagramBinaryReader;
+import com.orange.links.client.save.DiagramBinaryWriter;
+import com.orange.links.client.save.DiagramModel;
+import com.orange.links.client.save.DiagramXmlReader;
+import com.orange.links.client.save.DiagramXmlWriter;
+
+/**
+ * Export and import of a diagram in the XML and in the binary formats
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiagramFormatBenchmark {
+
+	@Param({ "10000" })
+	public int links;
+
+	private DiagramModel model;
+	private String xml;
+	private String binary;
+
+	@Setup
+	public void setup() {
+		model = XmlExportBenchmark.createModel(links);
+		xml = new DiagramXmlWriter(false).write(model).toString();
+		binary = new DiagramBinaryWriter().write(model).toString();
+	}
+
+	@Benchmark
+	public String exportXml() {
+		return new DiagramXmlWriter(false).write(model).toString();
+	}
+
+	@Benchmark
+	public String exportBinary() {
+		return new DiagramBinaryWriter().write(model).toString();
+	}
+
+	@Benchmark
+	public DiagramModel importXml() {
+		return new DiagramXmlReader(xml).readAll();
+	}
+
+	@Benchmark
+	public DiagramModel importBinary() {
+		return new DiagramBinaryReader(binary).read();
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.orange.links.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.orange.links.client.shapes.DirtyTrackingDrawableSet;
+import com.orange.links.client.shapes.DrawableSet;
+
+/**
+ * Search of the drawables to redraw, done on each frame
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrawableSetBenchmark {
+
+	@Param({ "10", "1000", "100000" })
+	public int shapes;
+
+	/**
+	 * Percentage of unsynchronized drawables
+	 */
+	@Param({ "0", "1", "100" })
+	public int dirtyPercent;
+
+	private DrawableSet<BoxShape> set;
+	private DirtyTrackingDrawableSet<BoxShape> dirtyTrackingSet;
+
+	@Setup
+	public void setup() {
+		BoxShape[] boxes = new SyntheticDiagram(shapes).getShapes();
+		set = new DrawableSet<BoxShape>();
+		dirtyTrackingSet = new DirtyTrackingDrawableSet<BoxShape>();
+		for (int i = 0; i < boxes.length; i++) {
+			boxes[i].setSynchronized(i * 100L >= (long) dirtyPercent * boxes.length);
+			set.add(boxes[i]);
+			dirtyTrackingSet.add(boxes[i]);
+		}
+	}
+
+	@Benchmark
+	public DrawableSet<BoxShape> getUnsynchronizedDrawables() {
+		return set.getUnsynchronizedDrawables();
+	}
+
+	@Benchmark
+	public DrawableSet<BoxShape> dirtyTrackingGetUnsynchronizedDrawables() {
+		return dirtyTrackingSet.getUnsynchronizedDrawables();
+	}
+
+}
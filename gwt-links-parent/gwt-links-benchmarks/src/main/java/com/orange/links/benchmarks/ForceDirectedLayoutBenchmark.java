@@ -0,0 +1,68 @@
+package com.orange.links.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.orange.links.client.layout.ForceDirectedLayout;
+import com.orange.links.client.layout.LayoutGraph;
+
+/**
+ * Force-directed layout of a synthetic diagram imported without coordinates, all
+ * the boxes being at the same place. Each operation runs a layout of
+ * {@link #ITERATIONS} steps, so the time of a step is the score divided by it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForceDirectedLayoutBenchmark {
+
+	private static final int ITERATIONS = 50;
+
+	@Param({ "1000", "5000" })
+	public int shapes;
+
+	private SyntheticDiagram diagram;
+	private final Map<BoxShape, Integer> ids = new HashMap<BoxShape, Integer>();
+
+	@Setup
+	public void setup() {
+		diagram = new SyntheticDiagram(shapes);
+		for (int i = 0; i < shapes; i++) {
+			ids.put(diagram.getShapes()[i], i);
+		}
+	}
+
+	@Benchmark
+	public LayoutGraph layout() {
+		LayoutGraph graph = new LayoutGraph();
+		for (BoxShape shape : diagram.getShapes()) {
+			graph.addNode(0, 0, shape.getWidth(), shape.getHeight());
+		}
+		for (int i = 0; i < diagram.getLinkCount(); i++) {
+			graph.addEdge(ids.get(diagram.getLinkStart(i)), ids.get(diagram.getLinkEnd(i)));
+		}
+		ForceDirectedLayout layout = new ForceDirectedLayout();
+		layout.setIterations(ITERATIONS);
+		layout.start(graph);
+		while (layout.step()) {
+		}
+		return graph;
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.orange.links.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.orange.links.client.layout.LayeredLayout;
+import com.orange.links.client.layout.LayoutGraph;
+
+/**
+ * Layered layout of a random directed flow imported without coordinates: each node
+ * is tied from one or two of the {@link #WINDOW} nodes before it. The run fails if
+ * a layout, warm-up included, takes more than {@link #BUDGET_MILLIS} milliseconds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayeredLayoutBenchmark {
+
+	private static final int WINDOW = 50;
+	private static final long BUDGET_MILLIS = 500;
+
+	@Param({ "5000" })
+	public int nodes;
+
+	private int[] sources;
+	private int[] targets;
+	private long slowest;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		int edgeCount = 0;
+		sources = new int[2 * nodes];
+		targets = new int[2 * nodes];
+		for (int i = 1; i < nodes; i++) {
+			int parents = 1 + random.nextInt(2);
+			for (int p = 0; p < parents; p++) {
+				sources[edgeCount] = Math.max(0, i - 1 - random.nextInt(WINDOW));
+				targets[edgeCount++] = i;
+			}
+		}
+		sources = copy(sources, edgeCount);
+		targets = copy(targets, edgeCount);
+	}
+
+	@Benchmark
+	public LayoutGraph layout() {
+		long start = System.nanoTime();
+		LayoutGraph graph = new LayoutGraph();
+		for (int i = 0; i < nodes; i++) {
+			graph.addNode(0, 0, 80, 40);
+		}
+		for (int e = 0; e < sources.length; e++) {
+			graph.addEdge(sources[e], targets[e]);
+		}
+		LayeredLayout layout = new LayeredLayout();
+		layout.start(graph);
+		while (layout.step()) {
+		}
+		slowest = Math.max(slowest, System.nanoTime() - start);
+		return graph;
+	}
+
+	@TearDown
+	public void checkBudget() {
+		long millis = TimeUnit.NANOSECONDS.toMillis(slowest);
+		if (millis > BUDGET_MILLIS) {
+			throw new IllegalStateException("Layout of " + nodes + " nodes took " + millis + " ms, over the budget of "
+					+ BUDGET_MILLIS + " ms");
+		}
+	}
+
+	private static int[] copy(int[] array, int length) {
+		int[] result = new int[length];
+		System.arraycopy(array, 0, result, 0, length);
+		return result;
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.orange.links.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.orange.links.client.utils.BoundingBox;
+import com.orange.links.client.utils.OrthogonalRouter;
+import com.orange.links.client.utils.SpatialIndex;
+
+/**
+ * Orthogonal routing of all the links of a synthetic diagram, the boxes near each
+ * link being the obstacles, as done by the orthogonal connections. Each operation
+ * routes every link once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrthogonalRoutingBenchmark {
+
+	/**
+	 * Same margin as OrthogonalConnection.obstacleSearchMargin
+	 */
+	private static final int SEARCH_MARGIN = 150;
+
+	@Param({ "1000" })
+	public int shapes;
+
+	private SyntheticDiagram diagram;
+	private SpatialIndex<BoxShape> index;
+	private BoxShape[] distantEnds;
+	private OrthogonalRouter router;
+	private final List<BoxShape> obstacles = new ArrayList<BoxShape>();
+	private final BoundingBox area = new BoundingBox();
+
+	@Setup
+	public void setup() {
+		diagram = new SyntheticDiagram(shapes);
+		index = new SpatialIndex<BoxShape>(diagram.getWidth(), diagram.getHeight(), 100);
+		for (BoxShape shape : diagram.getShapes()) {
+			index.put(shape, new BoundingBox(shape.getLeft(), shape.getTop(), shape.getWidth(), shape.getHeight()));
+		}
+		// Links going two rows down and two columns right, across other boxes
+		int columns = (int) Math.ceil(Math.sqrt(shapes));
+		distantEnds = new BoxShape[diagram.getLinkCount()];
+		for (int i = 0; i < distantEnds.length; i++) {
+			distantEnds[i] = diagram.getShapes()[Math.min(i + 2 * columns + 2, shapes - 1)];
+		}
+		router = new OrthogonalRouter();
+	}
+
+	private Object route(BoxShape start, BoxShape end) {
+		area.set(start.getLeft(), start.getTop(), start.getWidth(), start.getHeight());
+		area.add(end.getLeft(), end.getTop());
+		area.add(end.getLeft() + end.getWidth(), end.getTop() + end.getHeight());
+		area.expand(SEARCH_MARGIN);
+		index.query(area, obstacles);
+		router.clearObstacles();
+		for (BoxShape obstacle : obstacles) {
+			router.addObstacle(obstacle);
+		}
+		return router.route(start, end);
+	}
+
+	@Benchmark
+	public void neighbourLinks(Blackhole bh) {
+		for (int i = 0; i < diagram.getLinkCount(); i++) {
+			bh.consume(route(diagram.getLinkStart(i), diagram.getLinkEnd(i)));
+		}
+	}
+
+	@Benchmark
+	public void distantLinks(Blackhole bh) {
+		for (int i = 0; i < distantEnds.length; i++) {
+			bh.consume(route(diagram.getLinkStart(i), distantEnds[i]));
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.orange.links.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.orange.links.client.shapes.Point;
+import com.orange.links.client.utils.ConnectionUtils;
+import com.orange.links.client.utils.Rectangle;
+import com.orange.links.client.utils.Segment;
+import com.orange.links.client.utils.SegmentPath;
+
+/**
+ * Routing of all the connections of a synthetic diagram, and hit-test of the
+ * mouse against all of them. Each operation handles the whole diagram.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+
+	@Param({ "10", "1000", "100000" })
+	public int shapes;
+
+	private SyntheticDiagram diagram;
+	private SegmentPath[] paths;
+	private Segment[] segments;
+	private Segment[] bottomBorders;
+	private Segment[] topBorders;
+	private Point mouse;
+
+	@Setup
+	public void setup() {
+		diagram = new SyntheticDiagram(shapes);
+		int links = diagram.getLinkCount();
+		paths = new SegmentPath[links];
+		segments = new Segment[links];
+		bottomBorders = new Segment[links];
+		topBorders = new Segment[links];
+		for (int i = 0; i < links; i++) {
+			paths[i] = new SegmentPath(diagram.getLinkStart(i), diagram.getLinkEnd(i));
+			segments[i] = ConnectionUtils.computeSegment(diagram.getLinkStart(i), diagram.getLinkEnd(i));
+			// Every other path goes through an intermediate point
+			if (i % 2 == 0) {
+				Point waypoint = segments[i].middle();
+				waypoint.translate(20, 20);
+				paths[i].add(waypoint, paths[i].getFirstPoint(), paths[i].getLastPoint());
+			}
+			bottomBorders[i] = new Rectangle(diagram.getLinkStart(i)).getBorderBottom();
+			topBorders[i] = new Rectangle(diagram.getLinkEnd(i)).getBorderTop();
+		}
+		mouse = new Point(diagram.getWidth() / 2, diagram.getHeight() / 2);
+	}
+
+	@Benchmark
+	public void computeSegment(Blackhole bh) {
+		for (int i = 0; i < segments.length; i++) {
+			bh.consume(ConnectionUtils.computeSegment(diagram.getLinkStart(i), diagram.getLinkEnd(i)));
+		}
+	}
+
+	@Benchmark
+	public void computeFasterSegment(Blackhole bh) {
+		for (int i = 0; i < segments.length; i++) {
+			bh.consume(ConnectionUtils.computeFasterSegment(diagram.getLinkStart(i), diagram.getLinkEnd(i)));
+		}
+	}
+
+	@Benchmark
+	public void project(Blackhole bh) {
+		for (int i = 0; i < bottomBorders.length; i++) {
+			bh.consume(ConnectionUtils.project(bottomBorders[i], topBorders[i]));
+		}
+	}
+
+	@Benchmark
+	public void distanceToSegment(Blackhole bh) {
+		for (int i = 0; i < segments.length; i++) {
+			bh.consume(ConnectionUtils.distanceToSegment(segments[i], mouse));
+		}
+	}
+
+	@Benchmark
+	public void segmentPathUpdate(Blackhole bh) {
+		for (int i = 0; i < paths.length; i++) {
+			paths[i].update();
+			bh.consume(paths[i].getPath());
+		}
+	}
+
+	@Benchmark
+	public void segmentPathStraightPath(Blackhole bh) {
+		for (int i = 0; i < paths.length; i++) {
+			paths[i].straightPath();
+			bh.consume(paths[i].getPath());
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.orange.links.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Diagram of boxes laid out on a grid, each box being linked to its right
+ * or bottom neighbour. The diagram is always the same for a given size.
+ */
+public class SyntheticDiagram {
+
+	public static final int SPACING = 150;
+
+	private final BoxShape[] shapes;
+	private final BoxShape[] linkStarts;
+	private final BoxShape[] linkEnds;
+	private final int width;
+	private final int height;
+
+	public SyntheticDiagram(int shapeCount) {
+		Random random = new Random(42);
+		int columns = (int) Math.ceil(Math.sqrt(shapeCount));
+		int rows = (shapeCount + columns - 1) / columns;
+		width = columns * SPACING;
+		height = rows * SPACING;
+
+		shapes = new BoxShape[shapeCount];
+		for (int i = 0; i < shapeCount; i++) {
+			int w = 40 + random.nextInt(60);
+			int h = 30 + random.nextInt(30);
+			int left = (i % columns) * SPACING + random.nextInt(SPACING - w);
+			int top = (i / columns) * SPACING + random.nextInt(SPACING - h);
+			shapes[i] = new BoxShape(left, top, w, h);
+		}
+
+		int linkCount = Math.max(0, shapeCount - 1);
+		linkStarts = new BoxShape[linkCount];
+		linkEnds = new BoxShape[linkCount];
+		for (int i = 0; i < linkCount; i++) {
+			int end = i + 1;
+			boolean lastOfRow = (i % columns) == columns - 1;
+			if ((lastOfRow || random.nextBoolean()) && i + columns < shapeCount) {
+				end = i + columns;
+			}
+			linkStarts[i] = shapes[i];
+			linkEnds[i] = shapes[end];
+		}
+	}
+
+	public BoxShape[] getShapes() {
+		return shapes;
+	}
+
+	public int getLinkCount() {
+		return linkStarts.length;
+	}
+
+	public BoxShape getLinkStart(int link) {
+		return linkStarts[link];
+	}
+
+	public BoxShape getLinkEnd(int link) {
+		return linkEnds[link];
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.orange.links.benchmarks;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.orange.links.client.save.DecorationModel;
+import com.orange.links.client.save.DiagramModel;
+import com.orange.links.client.save.DiagramXmlWriter;
+import com.orange.links.client.save.FunctionModel;
+import com.orange.links.client.save.LinkModel;
+
+/**
+ * Export of a diagram to XML.
+ *
+ * The GWT DOM used before DiagramXmlWriter only runs in a browser, so the former
+ * export is reproduced with the JDK DOM : build a document, serialize it, add a line
+ * break after each tag with a regular expression and prepend the header. Run with
+ * "-prof gc" to compare the allocated memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlExportBenchmark {
+
+	private static final Pattern TAG = Pattern.compile("(<[^<]*>|<[^<]*/>|</[^<]*>)");
+
+	@Param({ "10000" })
+	public int links;
+
+	private DiagramModel model;
+
+	@Setup
+	public void setup() {
+		model = createModel(links);
+	}
+
+	static DiagramModel createModel(int links) {
+		DiagramModel model = new DiagramModel();
+		model.setDiagramProperties(4000, 3000, true);
+		int functions = Math.max(2, links / 2);
+		for (int i = 0; i < functions; i++) {
+			FunctionModel function = new FunctionModel();
+			function.id = String.valueOf(i + 1);
+			function.identifier = "function";
+			function.left = (i % 100) * 150;
+			function.top = (i / 100) * 150;
+			function.content = "Function " + i;
+			model.addFunction(function);
+		}
+		for (int i = 0; i < links; i++) {
+			LinkModel link = new LinkModel();
+			link.startId = String.valueOf(i % functions + 1);
+			link.endId = String.valueOf((i + 1) % functions + 1);
+			if (i % 10 == 0) {
+				link.decoration = new DecorationModel();
+				link.decoration.identifier = "label";
+				link.decoration.content = "Link " + i;
+			}
+			link.pointList = new int[][] { { i % 4000, i % 3000 }, { i % 4000 + 50, i % 3000 + 20 } };
+			model.addLink(link);
+		}
+		return model;
+	}
+
+	@Benchmark
+	public String writer() {
+		return new DiagramXmlWriter(true).write(model).toString();
+	}
+
+	@Benchmark
+	public String compactWriter() {
+		return new DiagramXmlWriter(false).write(model).toString();
+	}
+
+	@Benchmark
+	public String domAndRegex() throws Exception {
+		Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+		Element diagramRoot = doc.createElement("diagram");
+		diagramRoot.setAttribute("width", model.getWidth() + "");
+		diagramRoot.setAttribute("heigth", model.getHeight() + "");
+		diagramRoot.setAttribute("grid", model.isHasGrid() + "");
+		doc.appendChild(diagramRoot);
+		for (FunctionModel function : model.getFunctionRepresentationSet()) {
+			Element functionElement = doc.createElement("function");
+			functionElement.setAttribute("left", function.left + "");
+			functionElement.setAttribute("top", function.top + "");
+			functionElement.setAttribute("id", function.id);
+			functionElement.setAttribute("identifier", function.identifier);
+			if (function.content != null && !function.content.trim().equals(""))
+				functionElement.appendChild(doc.createTextNode(function.content));
+			diagramRoot.appendChild(functionElement);
+		}
+		for (LinkModel link : model.getLinkRepresentationSet()) {
+			Element linkElement = doc.createElement("link");
+			linkElement.setAttribute("startid", link.startId + "");
+			linkElement.setAttribute("endid", link.endId + "");
+			if (link.decoration != null) {
+				Element decoration = doc.createElement("decoration");
+				decoration.setAttribute("identifier", link.decoration.identifier);
+				decoration.appendChild(doc.createTextNode(link.decoration.content));
+				linkElement.appendChild(decoration);
+			}
+			for (int[] p : link.pointList) {
+				Element pointElement = doc.createElement("point");
+				pointElement.setAttribute("x", p[0] + "");
+				pointElement.setAttribute("y", p[1] + "");
+				linkElement.appendChild(pointElement);
+			}
+			diagramRoot.appendChild(linkElement);
+		}
+
+		Transformer transformer = TransformerFactory.newInstance().newTransformer();
+		transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+		StringWriter out = new StringWriter();
+		transformer.transform(new DOMSource(doc), new StreamResult(out));
+		String xml = TAG.matcher(out.toString()).replaceAll("$1\n");
+		return DiagramXmlWriter.XML_HEADER + xml;
+	}
+
+}
@@ -1,15 +1,21 @@
 package com.orange.links.client;
 
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.allen_sauer.gwt.dnd.client.DragController;
 import com.allen_sauer.gwt.dnd.client.DragEndEvent;
 import com.allen_sauer.gwt.dnd.client.DragHandlerAdapter;
 import com.allen_sauer.gwt.dnd.client.DragStartEvent;
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 import com.google.gwt.dom.client.NativeEvent;
 import com.google.gwt.dom.client.Style.Cursor;
 import com.google.gwt.dom.client.Style.Position;
@@ -23,11 +29,12 @@ import com.google.gwt.event.dom.client.MouseUpEvent;
 import com.google.gwt.event.dom.client.MouseUpHandler;
 import com.google.gwt.event.dom.client.ScrollEvent;
 import com.google.gwt.event.dom.client.ScrollHandler;
+import com.google.gwt.event.logical.shared.ResizeEvent;
+import com.google.gwt.event.logical.shared.ResizeHandler;
 import com.google.gwt.event.shared.GwtEvent;
 import com.google.gwt.event.shared.HandlerManager;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.client.Command;
-import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.Window;
 import com.google.gwt.user.client.ui.AbsolutePanel;
 import com.google.gwt.user.client.ui.MenuItem;
@@ -35,8 +42,11 @@ import com.google.gwt.user.client.ui.RootPanel;
 import com.google.gwt.user.client.ui.ScrollPanel;
 import com.google.gwt.user.client.ui.Widget;
 import com.orange.links.client.canvas.BackgroundCanvas;
+import com.orange.links.client.canvas.ConnectionLayer;
 import com.orange.links.client.canvas.DiagramCanvas;
+import com.orange.links.client.canvas.Minimap;
 import com.orange.links.client.canvas.MultiBrowserDiagramCanvas;
+import com.orange.links.client.connection.AbstractConnection;
 import com.orange.links.client.connection.Connection;
 import com.orange.links.client.connection.ConnectionFactory;
 import com.orange.links.client.event.ChangeOnDiagramEvent;
@@ -51,21 +61,42 @@ import com.orange.links.client.event.TieLinkHandler;
 import com.orange.links.client.event.UntieLinkEvent;
 import com.orange.links.client.event.UntieLinkEvent.HasUntieLinkHandlers;
 import com.orange.links.client.event.UntieLinkHandler;
+import com.orange.links.client.layout.DiagramLayout;
+import com.orange.links.client.layout.DiagramLayoutCallback;
+import com.orange.links.client.layout.IncrementalLayoutExecutor;
+import com.orange.links.client.layout.LayoutExecutor;
+import com.orange.links.client.layout.LayoutGraph;
 import com.orange.links.client.menu.ContextMenu;
 import com.orange.links.client.menu.HasContextMenu;
+import com.orange.links.client.save.DiagramChange;
+import com.orange.links.client.save.DiagramImportCallback;
+import com.orange.links.client.save.DiagramJournal;
 import com.orange.links.client.save.DiagramModel;
+import com.orange.links.client.save.DiagramPatch;
 import com.orange.links.client.save.DiagramSerializationService;
 import com.orange.links.client.save.DiagramWidgetFactory;
+import com.orange.links.client.save.DiagramXmlReader;
 import com.orange.links.client.save.FunctionModel;
+import com.orange.links.client.save.IsDiagramSerializable;
 import com.orange.links.client.save.LinkModel;
 import com.orange.links.client.shapes.DecorationShape;
+import com.orange.links.client.shapes.DirtyTrackingDrawableSet;
 import com.orange.links.client.shapes.DrawableSet;
 import com.orange.links.client.shapes.FunctionShape;
+import com.orange.links.client.shapes.GeometrySnapshot;
 import com.orange.links.client.shapes.MouseShape;
 import com.orange.links.client.shapes.Point;
 import com.orange.links.client.shapes.Shape;
+import com.orange.links.client.utils.BoundingBox;
+import com.orange.links.client.utils.DiagramGraph;
 import com.orange.links.client.utils.LinksClientBundle;
 import com.orange.links.client.utils.MovablePoint;
+import com.orange.links.client.utils.OrthogonalRouter;
+import com.orange.links.client.utils.RenderScheduler;
+import com.orange.links.client.utils.RouteDependencies;
+import com.orange.links.client.utils.Segment;
+import com.orange.links.client.utils.SpatialIndex;
+import com.orange.links.client.utils.WidgetUtils;
 
 /**
  * Controller which manage all the diagram logic
@@ -84,10 +115,71 @@ public class DiagramController implements HasNewFunctionHandlers,
 	public static int minDistanceToSegment = 10;
 
 	/**
-	 * Timer refresh duration, in milliseconds. It defers if the application is running in development mode
-	 * or in the web mode
+	 * Size in pixels of the cells of the spatial indexes used to find the shapes and
+	 * the connections under the mouse
+	 */
+	public static int spatialIndexCellSize = 100;
+
+	/**
+	 * Number of elements read, or of widgets and connections added, in each slice of
+	 * {@link #importDiagram(String, DiagramWidgetFactory, DiagramImportCallback)}
+	 */
+	public static int importSliceSize = 200;
+
+	/**
+	 * Time in milliseconds given to the layout in each slice of
+	 * {@link #layout(DiagramLayout, DiagramLayoutCallback)}
+	 */
+	public static int layoutSliceTime = 20;
+
+	/**
+	 * Margin in pixels around the visible part of a scrolled diagram. The connections
+	 * outside of the visible part and of this margin are only drawn once scrolled into view
+	 */
+	public static int viewportMargin = 200;
+
+	/**
+	 * Under this zoom, the connections are drawn as plain polylines, without arrow heads
+	 * nor decorations
+	 */
+	public static double simplifiedZoom = 0.6;
+
+	/**
+	 * Under this zoom, the widgets are also replaced by plain rectangles
+	 */
+	public static double overviewZoom = 0.3;
+
+	/**
+	 * Maximum number of widgets and connections painted on the minimap in each frame
+	 */
+	public static int minimapElementsPerFrame = 500;
+
+	/**
+	 * Delay between two frames, in milliseconds, when the browser does not support requestAnimationFrame.
+	 * It defers if the application is running in development mode or in the web mode
 	 */
 	public static int refreshRate = GWT.isScript() ? 25 : 50;
+
+	/**
+	 * How the connections are painted.
+	 * <ul>
+	 * <li>CANVAS_PER_CONNECTION : each connection has its own canvas, as big as the diagram.
+	 * Suitable for small diagrams.</li>
+	 * <li>SHARED_LAYER : all the connections are painted on one single canvas, and only the area
+	 * of the modified connections is repainted. Suitable for big diagrams.</li>
+	 * </ul>
+	 */
+	public static enum ConnectionRenderMode { CANVAS_PER_CONNECTION, SHARED_LAYER }
+
+	/**
+	 * How much of the diagram is drawn, depending on the zoom.
+	 * <ul>
+	 * <li>FULL : everything is drawn.</li>
+	 * <li>SIMPLIFIED : the connections are plain polylines, without arrow heads nor decorations.</li>
+	 * <li>OVERVIEW : the widgets are also replaced by plain rectangles.</li>
+	 * </ul>
+	 */
+	public static enum LevelOfDetail { FULL, SIMPLIFIED, OVERVIEW }
 	
 	private boolean allowingUserInteractions = true;
 	
@@ -98,13 +190,34 @@ public class DiagramController implements HasNewFunctionHandlers,
 	protected ScrollPanel scrollPanel;
 	protected HandlerManager handlerManager;
 	protected boolean showGrid;
+	protected int gridCellSize = BackgroundCanvas.DEFAULT_CELL_SIZE;
+	protected String gridColor = BackgroundCanvas.DEFAULT_COLOR;
+	protected String gridTileUrl;
+	protected ConnectionRenderMode connectionRenderMode = ConnectionRenderMode.CANVAS_PER_CONNECTION;
+	protected ConnectionLayer connectionLayer;
 
 	protected ContextMenu canvasMenu;
 
-	protected DrawableSet<Connection> connections = new DrawableSet<Connection>();
+	protected DirtyTrackingDrawableSet<Connection> connections = new DirtyTrackingDrawableSet<Connection>();
 	protected DrawableSet<FunctionShape> shapes = new DrawableSet<FunctionShape>();
+	protected GeometrySnapshot geometry = new GeometrySnapshot();
 	protected Map<Widget,FunctionShape> widgetShapeMap = new HashMap<Widget, FunctionShape>();
-	protected Map<Widget,Map<Widget,Connection>> functionsMap = new HashMap<Widget, Map<Widget, Connection>>();
+	protected DiagramGraph<Widget,Connection> graph = new DiagramGraph<Widget, Connection>();
+
+	// Spatial indexes used for the hit tests
+	protected SpatialIndex<FunctionShape> shapeIndex;
+	protected SpatialIndex<Connection> connectionIndex;
+	protected OrthogonalRouter router = new OrthogonalRouter();
+	protected RouteDependencies<FunctionShape,Connection> routeDependencies = new RouteDependencies<FunctionShape, Connection>();
+	private final Set<Connection> dependentConnections = new LinkedHashSet<Connection>();
+	private final BoundingBox dependentArea = new BoundingBox();
+	protected boolean shapeIndexOutdated = false;
+	private final Set<FunctionShape> candidateShapes = new LinkedHashSet<FunctionShape>();
+	private final Set<Connection> candidateConnections = new LinkedHashSet<Connection>();
+
+	protected LayoutExecutor layoutExecutor = new IncrementalLayoutExecutor();
+	// Import running in slices, cancelled by another import or by clearing the diagram
+	private SlicedImport pendingImport;
 
 	protected Point mousePoint = new Point(0, 0);
 	protected Point mouseOffsetPoint = new Point(0, 0);
@@ -124,10 +237,42 @@ public class DiagramController implements HasNewFunctionHandlers,
 	protected Widget startFunctionWidget;
 	protected Connection buildConnection;
 
+	// Batch of modifications, see beginUpdate()
+	protected int updateDepth = 0;
+	protected List<FunctionShape> pendingShapes = new ArrayList<FunctionShape>();
+	protected boolean changedDuringUpdate = false;
+
+	// Visible part of the diagram, with or without its margin, null if the whole diagram is visible
+	protected BoundingBox viewport;
+	protected BoundingBox visibleArea;
+	protected int frameWidth;
+	protected int frameHeight;
+	protected Set<Connection> staleConnections = new LinkedHashSet<Connection>();
+	// Areas of the stale connections, to find the ones scrolled into view
+	protected SpatialIndex<Connection> staleIndex;
+	private final Set<Connection> scrolledConnections = new LinkedHashSet<Connection>();
+	private final BoundingBox connectionArea = new BoundingBox();
+	private final BoundingBox shapeArea = new BoundingBox();
+
+	// Zoom and pan of the view
+	protected double zoom = 1;
+	protected int panX = 0;
+	protected int panY = 0;
+	protected LevelOfDetail levelOfDetail = LevelOfDetail.FULL;
+
+	protected Minimap minimap;
+
+	// Change journal, the widgets being referenced by stable ids
+	protected DiagramJournal journal = new DiagramJournal();
+	protected Map<Widget,String> widgetIds = new HashMap<Widget, String>();
+	protected Map<String,Widget> idWidgets = new HashMap<String, Widget>();
+	protected int lastWidgetId = 0;
+
 	protected long nFrame = 0;
 	protected long previousNFrame = 0;
 	protected long previousTime = 0;
 	protected long fps = 0;
+	protected long frameTime = 0;
 
 	protected int canvasWidth;
 	protected int canvasHeight;
@@ -147,7 +292,9 @@ public class DiagramController implements HasNewFunctionHandlers,
 		this.canvasWidth = canvasWidth;
 		this.canvasHeight = canvasHeight;
 		this.topCanvas = new MultiBrowserDiagramCanvas(canvasWidth, canvasHeight);
-		this.backgroundCanvas = new BackgroundCanvas(canvasWidth, canvasHeight);
+		this.shapeIndex = new SpatialIndex<FunctionShape>(canvasWidth, canvasHeight, spatialIndexCellSize);
+		this.connectionIndex = new SpatialIndex<Connection>(canvasWidth, canvasHeight, spatialIndexCellSize);
+		this.staleIndex = new SpatialIndex<Connection>(canvasWidth, canvasHeight, spatialIndexCellSize);
 
 		handlerManager = new HandlerManager(topCanvas);
 		LinksClientBundle.INSTANCE.css().ensureInjected();
@@ -156,8 +303,15 @@ public class DiagramController implements HasNewFunctionHandlers,
 		initMouseHandlers(topCanvas);
 		initMenu();
 
-		timer.scheduleRepeating(refreshRate);
-		frameTimer.scheduleRepeating(1000);
+		Window.addResizeHandler(new ResizeHandler() {
+			@Override
+			public void onResize(ResizeEvent event) {
+				// Only the shapes which have really moved are redrawn
+				invalidateShapeGeometry();
+			}
+		});
+
+		invalidate();
 
 		ContextMenu.disableBrowserContextMenu(widgetPanel.asWidget().getElement());
 		ContextMenu.disableBrowserContextMenu(topCanvas.asWidget().getElement());
@@ -165,9 +319,7 @@ public class DiagramController implements HasNewFunctionHandlers,
 	
 	public DiagramController(int canvasWidth, int canvasHeight, int frameWidth, int frameHeight){
 		this(canvasWidth, canvasHeight);
-		scrollPanel = new ScrollPanel(getView());
-		scrollPanel.setWidth(frameWidth + "px");
-		scrollPanel.setHeight(frameHeight + "px");
+		setFrameSize(frameWidth, frameHeight);
 	}
 
 	protected void initMouseHandlers(final DiagramCanvas canvas) {
@@ -215,22 +367,111 @@ public class DiagramController implements HasNewFunctionHandlers,
 		return canvasMenu;
 	}
 
+	/**
+	 * Stop drawing the diagram, even if some elements have been invalidated
+	 */
 	public void pauseRefresh() {
-		timer.cancel();
+		renderScheduler.pause();
 	}
 
+	/**
+	 * Restart drawing the diagram after a call to {@link #pauseRefresh()}
+	 */
 	public void runRefresh() {
-		timer.scheduleRepeating(refreshRate);
+		renderScheduler.resume();
+	}
+
+	/**
+	 * Ask for the diagram to be redrawn on the next frame. Several calls before
+	 * the frame is drawn are coalesced into a single frame.
+	 */
+	public void invalidate() {
+		renderScheduler.requestFrame();
+	}
+
+	/**
+	 * Queue a connection which has to be redrawn, and request a new frame
+	 */
+	public void unsynchronizedConnection(Connection c) {
+		connections.markUnsynchronized(c);
+		invalidate();
+	}
+
+	/**
+	 * Start a batch of modifications of the diagram. Until the matching call to
+	 * {@link #endUpdate()}, nothing is drawn, the shapes are not measured, the paths
+	 * of the new connections are not computed and no NewFunctionEvent is fired.
+	 * Calls can be nested.
+	 * <br/>
+	 * <code>
+	 * 		controller.beginUpdate();<br/>
+	 * 		try {<br/>
+	 * 			// add widgets and connections<br/>
+	 * 		} finally {<br/>
+	 * 			controller.endUpdate();<br/>
+	 * 		}
+	 * </code>
+	 */
+	public void beginUpdate() {
+		updateDepth++;
+	}
+
+	/**
+	 * End a batch of modifications started with {@link #beginUpdate()}. The shapes are
+	 * measured in one pass, the connections are routed and painted in a single frame,
+	 * and a single ChangeOnDiagramEvent is fired if the diagram has been modified.
+	 */
+	public void endUpdate() {
+		if (updateDepth == 0) {
+			throw new IllegalStateException("endUpdate() called without beginUpdate()");
+		}
+		updateDepth--;
+		if (updateDepth > 0) {
+			return;
+		}
+		for (FunctionShape shape : pendingShapes) {
+			shape.draw();
+		}
+		pendingShapes.clear();
+		shapeIndexOutdated = true;
+		invalidate();
+		if (changedDuringUpdate) {
+			changedDuringUpdate = false;
+			handlerManager.fireEvent(new ChangeOnDiagramEvent());
+		}
+	}
+
+	/**
+	 * 
+	 * @return true between {@link #beginUpdate()} and {@link #endUpdate()}
+	 */
+	public boolean isUpdating() {
+		return updateDepth > 0;
 	}
 
 	/**
 	 * Clear the diagram (connections and widgets)
 	 */
 	public void clearDiagram() {
+		cancelImport();
+		journal.record(new DiagramChange(DiagramChange.Type.CLEAR, null));
+		cancelLayout();
+		staleConnections.clear();
+		staleIndex.clear();
+		routeDependencies.clear();
+		if (minimap != null) {
+			minimap.clear();
+		}
+		widgetIds.clear();
+		idWidgets.clear();
 		connections.clear();
 		widgetShapeMap.clear();
-		functionsMap.clear();
+		graph.clear();
 		shapes.clear();
+		pendingShapes.clear();
+		geometry.clear();
+		shapeIndex.clear();
+		connectionIndex.clear();
 		startFunctionWidget = null;
 		buildConnection = null;
 
@@ -240,7 +481,52 @@ public class DiagramController implements HasNewFunctionHandlers,
 		widgetPanel.clear();
 		widgetPanel.add(topCanvas.asWidget());
 		topCanvas.getElement().getStyle().setPosition(Position.ABSOLUTE);
+		if (connectionLayer != null) {
+			connectionLayer.clear();
+			widgetPanel.add(connectionLayer.asWidget());
+		}
 		showGrid(showGrid);
+		invalidate();
+	}
+
+	/**
+	 * Choose how the connections are painted. The mode must be chosen before
+	 * drawing the first connection. If the browser does not support the HTML5
+	 * canvas, the connections keep one canvas each.
+	 * 
+	 * @param mode
+	 *            the connection render mode
+	 */
+	public void setConnectionRenderMode(ConnectionRenderMode mode) {
+		if (!connections.isEmpty()) {
+			throw new IllegalStateException("The connection render mode must be set before drawing connections");
+		}
+		if (mode == ConnectionRenderMode.SHARED_LAYER && !ConnectionLayer.isSupported()) {
+			GWT.log("gwt-links : the shared connection layer is not supported by this browser");
+			mode = ConnectionRenderMode.CANVAS_PER_CONNECTION;
+		}
+		connectionRenderMode = mode;
+		if (mode == ConnectionRenderMode.SHARED_LAYER) {
+			if (connectionLayer == null) {
+				connectionLayer = new ConnectionLayer(canvasWidth, canvasHeight);
+				widgetPanel.add(connectionLayer.asWidget());
+			}
+		} else if (connectionLayer != null) {
+			connectionLayer.asWidget().removeFromParent();
+			connectionLayer = null;
+		}
+	}
+
+	public ConnectionRenderMode getConnectionRenderMode() {
+		return connectionRenderMode;
+	}
+
+	/**
+	 * 
+	 * @return the layer shared by all the connections, or null if each connection has its own canvas
+	 */
+	public ConnectionLayer getConnectionLayer() {
+		return connectionLayer;
 	}
 	
 	/**
@@ -262,7 +548,25 @@ public class DiagramController implements HasNewFunctionHandlers,
 	 */
 	public Connection drawStraightArrowConnection(Widget startWidget, Widget endWidget) {
 		Connection c = drawConnection(ConnectionFactory.ARROW, startWidget, endWidget);
-		functionsMap.get(startWidget).put(endWidget, c);
+		tie(startWidget, endWidget, c);
+		recordTie(c, "straightarrow");
+		return c;
+	}
+
+	/**
+	 * Draw a connection with an arrow between two GWT widgets, following an orthogonal
+	 * path which goes around the other widgets
+	 * 
+	 * @param startWidget
+	 *            Start widget
+	 * @param endWidget
+	 *            End Widget
+	 * @return the created new connection between the two widgets
+	 */
+	public Connection drawOrthogonalConnection(Widget startWidget, Widget endWidget) {
+		Connection c = drawConnection(ConnectionFactory.ORTHOGONAL, startWidget, endWidget);
+		tie(startWidget, endWidget, c);
+		recordTie(c, "orthogonal");
 		return c;
 	}
 
@@ -281,6 +585,10 @@ public class DiagramController implements HasNewFunctionHandlers,
 
 		start.addConnection(c);
 		end.addConnection(c);
+		if (isUpdating()) {
+			changedDuringUpdate = true;
+		}
+		invalidate();
 		return c;
 	}
 
@@ -295,7 +603,8 @@ public class DiagramController implements HasNewFunctionHandlers,
 	 */
 	public Connection drawStraightConnection(Widget startWidget, Widget endWidget) {
 		Connection c = drawConnection(ConnectionFactory.STRAIGHT, startWidget, endWidget);
-		functionsMap.get(startWidget).put(endWidget, c);
+		tie(startWidget, endWidget, c);
+		recordTie(c, "straight");
 		return c;
 	}
 
@@ -312,11 +621,24 @@ public class DiagramController implements HasNewFunctionHandlers,
 	public FunctionShape addWidget(final Widget w, int left, int top) {
 		
 		w.getElement().getStyle().setZIndex(3);
+		w.addStyleName(LinksClientBundle.INSTANCE.css().function());
 		final FunctionShape shape = new FunctionShape(this, w);
+		shape.attachGeometry(geometry);
 
 		shapes.add(shape);
 		widgetShapeMap.put(w, shape);
-		functionsMap.put(w, new HashMap<Widget, Connection>());
+		graph.addNode(w);
+		setWidgetId(w, nextWidgetId());
+		if (journal.isRecording()) {
+			DiagramChange change = new DiagramChange(DiagramChange.Type.ADD_FUNCTION, widgetIds.get(w));
+			change.left = left;
+			change.top = top;
+			if (w instanceof IsDiagramSerializable) {
+				change.identifier = ((IsDiagramSerializable) w).getType();
+				change.content = ((IsDiagramSerializable) w).getContentRepresentation();
+			}
+			journal.record(change);
+		}
 
 		if (w instanceof HasContextMenu) {
 			w.addDomHandler(new MouseUpHandler() {
@@ -339,12 +661,21 @@ public class DiagramController implements HasNewFunctionHandlers,
 		w.addDomHandler(new MouseOverHandler() {
 			@Override
 			public void onMouseOver(com.google.gwt.event.dom.client.MouseOverEvent arg0) {
-				topCanvas.clear();
+				topCanvas.clearDirtyRects();
 				mousePoint.setLeft(-30);
 				mousePoint.setTop(-30);
 			}
 		}, com.google.gwt.event.dom.client.MouseOverEvent.getType());
+		if (isUpdating()) {
+			// Drawn, indexed and notified at the end of the update
+			pendingShapes.add(shape);
+			shapeIndexOutdated = true;
+			changedDuringUpdate = true;
+			return shape;
+		}
 		shape.draw();
+		indexShape(shape);
+		invalidate();
 		
 		// Send event
 		handlerManager.fireEvent(new NewFunctionEvent(w));
@@ -369,6 +700,14 @@ public class DiagramController implements HasNewFunctionHandlers,
 		widgetPanel.add(decoration);
 		decoratedConnection.setDecoration(new DecorationShape(this, decoration));
 		decoratedConnection.setSynchronized(false);
+		if (journal.isRecording() && isTied(decoratedConnection)) {
+			DiagramChange change = createLinkChange(DiagramChange.Type.SET_DECORATION, decoratedConnection);
+			if (decoration instanceof IsDiagramSerializable) {
+				change.identifier = ((IsDiagramSerializable) decoration).getType();
+				change.content = ((IsDiagramSerializable) decoration).getContentRepresentation();
+			}
+			journal.record(change);
+		}
 	}
 
 	/**
@@ -382,6 +721,9 @@ public class DiagramController implements HasNewFunctionHandlers,
 		if (decoShape != null) {
 			widgetPanel.remove(decoShape.asWidget());
 			decoratedConnection.removeDecoration();
+			if (isTied(decoratedConnection)) {
+				journal.record(createLinkChange(DiagramChange.Type.SET_DECORATION, decoratedConnection));
+			}
 		}
 	}
 
@@ -397,6 +739,46 @@ public class DiagramController implements HasNewFunctionHandlers,
 	 */
 	public void addPointOnConnection(Connection c, int left, int top) {
 		c.addMovablePoint(new Point(left, top));
+		c.setSynchronized(false);
+		movablePointsChanged(c);
+	}
+
+	/**
+	 * Move a widget of the diagram
+	 * 
+	 * @param w
+	 *            the widget to move
+	 * @param left
+	 *            left margin with the absolute panel
+	 * @param top
+	 *            top margin with the absolute panel
+	 */
+	public void moveWidget(Widget w, int left, int top) {
+		FunctionShape shape = widgetShapeMap.get(w);
+		widgetPanel.setWidgetPosition(w, left, top);
+		// The shape stays synchronized, only its bounds are read again on the next frame
+		shape.invalidateGeometry();
+		shape.getConnections().setSynchronized(false);
+		shapeIndexOutdated = true;
+		recordMove(w, left, top);
+		invalidate();
+	}
+
+	/**
+	 * Record the movable points of a connection in the change journal, once they
+	 * have been added, moved or removed
+	 */
+	public void movablePointsChanged(Connection c) {
+		if (!journal.isRecording() || !isTied(c)) {
+			return;
+		}
+		DiagramChange change = createLinkChange(DiagramChange.Type.SET_POINTS, c);
+		List<Point> points = c.getMovablePoints();
+		change.pointList = new int[points.size()][];
+		for (int i = 0; i < change.pointList.length; i++) {
+			change.pointList[i] = new int[] { points.get(i).getLeft(), points.get(i).getTop() };
+		}
+		journal.record(change);
 	}
 
 	/**
@@ -407,11 +789,44 @@ public class DiagramController implements HasNewFunctionHandlers,
 	 */
 	public void showGrid(boolean showGrid) {
 		this.showGrid = showGrid;
-		backgroundCanvas.initGrid();
+		if (gridTileUrl == null) {
+			gridTileUrl = BackgroundCanvas.createGridTile(gridCellSize, gridColor);
+		}
+		if (gridTileUrl != null) {
+			// One cell is rendered, and repeated by the browser
+			widgetPanel.getElement().getStyle().setProperty("backgroundImage",
+					showGrid ? "url(" + gridTileUrl + ")" : "");
+			return;
+		}
 		if (this.showGrid) {
+			if (backgroundCanvas == null) {
+				backgroundCanvas = new BackgroundCanvas(canvasWidth, canvasHeight, gridCellSize, gridColor);
+			}
+			backgroundCanvas.initGrid();
 			widgetPanel.add(backgroundCanvas.asWidget());
-		} else {
+		} else if (backgroundCanvas != null) {
+			widgetPanel.remove(backgroundCanvas.asWidget());
+		}
+	}
+
+	/**
+	 * Change the size and the color of the cells of the grid
+	 * 
+	 * @param cellSize
+	 *            size of the cells in pixels
+	 * @param color
+	 *            CSS color of the lines
+	 */
+	public void setGridStyle(int cellSize, String color) {
+		gridCellSize = cellSize;
+		gridColor = color;
+		gridTileUrl = null;
+		if (backgroundCanvas != null) {
 			widgetPanel.remove(backgroundCanvas.asWidget());
+			backgroundCanvas = null;
+		}
+		if (showGrid) {
+			showGrid(true);
 		}
 	}
 
@@ -424,6 +839,14 @@ public class DiagramController implements HasNewFunctionHandlers,
 		return topCanvas;
 	}
 
+	/**
+	 * 
+	 * @return the bounds of the shapes read during the current frame
+	 */
+	public GeometrySnapshot getGeometrySnapshot() {
+		return geometry;
+	}
+
 	/**
 	 * 
 	 * @return the view where the widgets are displayed
@@ -438,20 +861,25 @@ public class DiagramController implements HasNewFunctionHandlers,
 		}
 		scrollPanel.setWidth(width + "px");
 		scrollPanel.setHeight(height + "px");
+		frameWidth = width;
+		frameHeight = height;
+		updateViewport();
 	}
 	
 	public ScrollPanel getViewAsScrollPanel(){
 		scrollPanel.addScrollHandler(new ScrollHandler() {
 			@Override
 			public void onScroll(ScrollEvent event) {
-				unsynchronizedShapes();
+				onViewScrolled();
 			}
 		});
 		return scrollPanel;
 	}
 
 	/**
-	 * Register a drag controller to control the refresh rate
+	 * Register a drag controller to control the refresh rate. Use a
+	 * {@link com.orange.links.client.utils.DiagramDragController} to drag the widgets
+	 * when the view is zoomed.
 	 * 
 	 * @param dragController
 	 *            The DragController used to handle the drags on widgets
@@ -468,15 +896,23 @@ public class DiagramController implements HasNewFunctionHandlers,
 
 			@Override
 			public void onPreviewDragEnd(DragEndEvent event){
+				shape.invalidateGeometry();
+				invalidateDependents(shape);
 				shape.getConnections().draw();
+				indexShape(shape);
+				for (Connection c : shape.getConnections()) {
+					indexConnection(c);
+				}
 			}
 
 			@Override
 			public void onDragEnd(DragEndEvent event) {
 				inDragWidget = false;
+				invalidate();
 				Widget widget = event.getContext().draggable;
 				Shape s = widgetShapeMap.get(widget);
 				if(shape.equals(s)){
+					recordMove(widget, WidgetUtils.getLeft(widget), WidgetUtils.getTop(widget));
 					shape.setSynchronized(true);
 					shape.getConnections().setAllowSynchronized(true);
 					shape.getConnections().setSynchronized(true);
@@ -486,6 +922,7 @@ public class DiagramController implements HasNewFunctionHandlers,
 			@Override
 			public void onDragStart(DragStartEvent event) {
 				inDragWidget = true;
+				invalidate();
 				Widget widget = event.getContext().draggable;
 				Shape s = widgetShapeMap.get(widget);
 				if(shape.equals(s)){
@@ -497,137 +934,590 @@ public class DiagramController implements HasNewFunctionHandlers,
 		});
 	}
 	
-	public void unsynchronizedShapes(){
-		for(FunctionShape shape : shapes){
-			shape.setSynchronized(false);
-			shape.getConnections().setSynchronized(false);
-		}
+	/**
+	 * The connections scrolled into view are drawn. The positions of the widgets in
+	 * the diagram do not change, so the shapes are not read again.
+	 */
+	protected void onViewScrolled() {
+		updateViewport();
 	}
-	
-	public void synchronizedShapes(){
-		for(FunctionShape shape : shapes){
-			shape.setSynchronized(true);
-			shape.getConnections().setSynchronized(true);
+
+	/**
+	 * Compute again the visible part of the diagram, and queue the connections
+	 * which have been scrolled into view
+	 */
+	protected void updateViewport() {
+		if (scrollPanel == null) {
+			visibleArea = null;
+			viewport = null;
+		} else {
+			// From the coordinates of the frame to the ones of the diagram
+			visibleArea = new BoundingBox((int) ((scrollPanel.getHorizontalScrollPosition() - panX) / zoom),
+					(int) ((scrollPanel.getScrollPosition() - panY) / zoom),
+					(int) Math.ceil(frameWidth / zoom), (int) Math.ceil(frameHeight / zoom));
+			viewport = new BoundingBox(visibleArea);
+			viewport.expand((int) Math.ceil(viewportMargin / zoom));
 		}
+		if (minimap != null) {
+			minimap.setVisibleArea(visibleArea);
+		}
+		if (viewport == null) {
+			scrolledConnections.addAll(staleConnections);
+		} else {
+			staleIndex.query(viewport, scrolledConnections);
+		}
+		for (Connection c : scrolledConnections) {
+			staleConnections.remove(c);
+			staleIndex.remove(c);
+			connections.markUnsynchronized(c);
+		}
+		scrolledConnections.clear();
+		invalidate();
 	}
 
-	@Override
-	public void fireEvent(GwtEvent<?> event) {
-		handlerManager.fireEvent(event);
+	/**
+	 * 
+	 * @return true if the connection, at its last drawn position or at its new one, is
+	 *         in the visible part of the diagram
+	 */
+	protected boolean isInViewport(Connection c) {
+		if (viewport == null) {
+			return true;
+		}
+		connectionArea.set(c.getBounds());
+		addShapeArea(c.getStartShape());
+		addShapeArea(c.getEndShape());
+		for (Point p : c.getMovablePoints()) {
+			connectionArea.add(p.getLeft(), p.getTop());
+		}
+		return connectionArea.intersects(viewport);
 	}
 
-	@Override
-	public HandlerRegistration addUntieLinkHandler(UntieLinkHandler handler) {
-		return handlerManager.addHandler(UntieLinkEvent.getType(), handler);
+	private void addShapeArea(Shape shape) {
+		shapeArea.set(shape.getLeft(), shape.getTop(), Math.max(1, shape.getWidth()), Math.max(1, shape.getHeight()));
+		connectionArea.add(shapeArea);
 	}
 
-	@Override
-	public HandlerRegistration addTieLinkHandler(TieLinkHandler handler) {
-		return handlerManager.addHandler(TieLinkEvent.getType(), handler);
+	/**
+	 * 
+	 * @return the visible part of the diagram, with its margin, or null if the whole diagram is visible
+	 */
+	public BoundingBox getViewport() {
+		return viewport;
 	}
 
-	@Override
-	public HandlerRegistration addChangeOnDiagramHandler(ChangeOnDiagramHandler handler) {
-		return handlerManager.addHandler(ChangeOnDiagramEvent.getType(), handler);
+	/**
+	 * 
+	 * @return the visible part of the diagram, or null if the whole diagram is visible
+	 */
+	public BoundingBox getVisibleArea() {
+		return visibleArea;
 	}
-	
 
-	@Override
-	public HandlerRegistration addNewFunctionHandler(NewFunctionHandler handler) {
-		return handlerManager.addHandler(NewFunctionEvent.getType(), handler);
+	/**
+	 * Scroll the view so that a point of the diagram is at the center of the frame
+	 */
+	public void scrollTo(int left, int top) {
+		if (scrollPanel == null) {
+			return;
+		}
+		scrollPanel.setHorizontalScrollPosition((int) (left * zoom) + panX - frameWidth / 2);
+		scrollPanel.setScrollPosition((int) (top * zoom) + panY - frameHeight / 2);
+		onViewScrolled();
 	}
 
 	/**
+	 * Create an overview of the whole diagram, framing its visible part. The frame is
+	 * only displayed once the size of the frame has been set with {@link #setFrameSize(int, int)}
 	 * 
-	 * @return true if a grid is displayed in background
+	 * @param width
+	 *            width of the overview, in pixels
+	 * @param height
+	 *            height of the overview, in pixels
+	 * @return the overview, to be added next to {@link #getViewAsScrollPanel()}
 	 */
-	public boolean isShowGrid() {
-		return showGrid;
-	}
-
-	// setup timer
-	protected final Timer timer = new Timer() {
-		@Override
-		public void run() {
-			nFrame++;
-			update();
+	public Minimap createMinimap(int width, int height) {
+		minimap = new Minimap(this, width, height);
+		minimap.setVisibleArea(visibleArea);
+		for (FunctionShape shape : shapes) {
+			minimap.invalidate(shape);
 		}
-	};
-
-	protected final Timer frameTimer = new Timer() {
-		@Override
-		public void run() {
-			long now = new Date().getTime();
-			fps = (now - previousTime) != 0 ? (nFrame - previousNFrame) * 1000 / (now - previousTime) : 0;
-			previousNFrame = nFrame;
-			previousTime = now;
+		for (Connection c : connections) {
+			minimap.invalidate(c);
 		}
-	};
-
-
-
-	public void update() {
-		redrawConnections();
+		invalidate();
+		return minimap;
+	}
 
-		// If the user is dragging widgets, do nothing
-		if(inDragWidget)
-			return;
+	public Minimap getMinimap() {
+		return minimap;
+	}
 
-		topCanvas.clear();
+	/**
+	 * Zoom the view, keeping its top left corner in place
+	 * 
+	 * @param zoom
+	 *            scale of the view, 1 for the real size
+	 */
+	public void setZoom(double zoom) {
+		setZoom(zoom, 0, 0);
+	}
 
-		// Search for selectable area
-		if (!inDragBuildArrow) {
-			for (FunctionShape s : shapes) {
-				if (s.isMouseNearSelectableArea(mousePoint)) {
-					s.highlightSelectableArea(mousePoint);
-					inEditionSelectableShapeToDrawConnection = true;
-					startFunctionWidget = s.asWidget();
-					RootPanel.getBodyElement().getStyle().setCursor(Cursor.POINTER);
-					return;
-				}
-				inEditionSelectableShapeToDrawConnection = false;
-			}
-		} else {
-			// Don't go deeper if in edition mode
-			// If mouse over a widget, highlight it
-			FunctionShape s = getShapeUnderMouse();
-			if (s != null) {
-				s.drawHighlight();
-				highlightFunctionShape = s;
-			}
-			else if(highlightFunctionShape != null) {
-				highlightFunctionShape.draw();
-				highlightFunctionShape = null;
-			}
-			clearAnimationsOnCanvas();
+	/**
+	 * Zoom the view, keeping a point of the frame in place
+	 * 
+	 * @param zoom
+	 *            scale of the view, 1 for the real size
+	 * @param pivotX
+	 *            left of the fixed point, relatively to the view
+	 * @param pivotY
+	 *            top of the fixed point, relatively to the view
+	 */
+	public void setZoom(double zoom, int pivotX, int pivotY) {
+		if (zoom <= 0) {
+			throw new IllegalArgumentException("The zoom must be positive");
 		}
-
-		// Test if in Drag Movable Point
-		if (!inDragMovablePoint && !inDragBuildArrow) {
-			for (Connection c : connections) {
-				if (c.isMouseNearConnection(mousePoint)) {
-					highlightPoint = c.highlightMovablePoint(mousePoint);
-					highlightConnection = getConnectionNearMouse();
-					inEditionDragMovablePoint = true;
-					RootPanel.getBodyElement().getStyle().setCursor(Cursor.POINTER);
-					return;
-				}
-				inEditionDragMovablePoint = false;
-			}
+		double ratio = zoom / this.zoom;
+		this.zoom = zoom;
+		panX = (int) Math.round(pivotX - (pivotX - panX) * ratio);
+		panY = (int) Math.round(pivotY - (pivotY - panY) * ratio);
+		String transform = zoom == 1 ? "" : "scale(" + zoom + ")";
+		for (String property : new String[] { "transform", "MozTransform", "WebkitTransform", "msTransform",
+				"OTransform" }) {
+			widgetPanel.getElement().getStyle().setProperty(property, transform);
+			widgetPanel.getElement().getStyle().setProperty(property + "Origin", "0 0");
 		}
+		updateLevelOfDetail();
+		applyPan();
+	}
 
-		clearAnimationsOnCanvas();
+	public double getZoom() {
+		return zoom;
 	}
 
 	/**
-	 * If any connections need to be redrawn, clear the canvas and redraw all lines.
+	 * Move the view in its frame
+	 * 
+	 * @param panX
+	 *            left of the view in the frame, in pixels
+	 * @param panY
+	 *            top of the view in the frame, in pixels
 	 */
-	protected void redrawConnections() {
-		connections.getUnsynchronizedDrawables().draw();
+	public void setPan(int panX, int panY) {
+		this.panX = panX;
+		this.panY = panY;
+		applyPan();
 	}
 
-	protected void clearAnimationsOnCanvas() {
-		RootPanel.getBodyElement().getStyle().setCursor(Cursor.DEFAULT);
+	public void panBy(int dx, int dy) {
+		setPan(panX + dx, panY + dy);
+	}
+
+	public int getPanX() {
+		return panX;
+	}
+
+	public int getPanY() {
+		return panY;
+	}
+
+	/**
+	 * The view is moved with its margins rather than a transform, so that the absolute
+	 * positions of the widgets stay the same in every browser
+	 */
+	protected void applyPan() {
+		widgetPanel.getElement().getStyle().setMarginLeft(panX, Unit.PX);
+		widgetPanel.getElement().getStyle().setMarginTop(panY, Unit.PX);
+		onViewScrolled();
+	}
+
+	public LevelOfDetail getLevelOfDetail() {
+		return levelOfDetail;
+	}
+
+	protected void updateLevelOfDetail() {
+		LevelOfDetail level = LevelOfDetail.FULL;
+		if (zoom < overviewZoom) {
+			level = LevelOfDetail.OVERVIEW;
+		} else if (zoom < simplifiedZoom) {
+			level = LevelOfDetail.SIMPLIFIED;
+		}
+		if (level == levelOfDetail) {
+			return;
+		}
+		levelOfDetail = level;
+		if (level == LevelOfDetail.OVERVIEW) {
+			widgetPanel.addStyleName(LinksClientBundle.INSTANCE.css().overview());
+		} else {
+			widgetPanel.removeStyleName(LinksClientBundle.INSTANCE.css().overview());
+		}
+		// Every connection is drawn again with the new level of detail
+		for (Connection c : connections) {
+			c.setSynchronized(false);
+		}
+	}
+
+	/**
+	 * 
+	 * @return the number of connections waiting to be scrolled into view to be drawn
+	 */
+	public int getStaleConnectionCount() {
+		return staleConnections.size();
+	}
+
+	/**
+	 * The shapes read again their position on the next frame, and only the connections
+	 * depending on the shapes which have moved are redrawn
+	 */
+	public void invalidateShapeGeometry() {
+		for (FunctionShape shape : shapes) {
+			shape.invalidateContainerOffset();
+			shape.invalidateGeometry();
+		}
+		invalidate();
+	}
+
+	/**
+	 * Redraw all the shapes and all the connections. {@link #invalidateShapeGeometry()}
+	 * only redraws what has moved.
+	 */
+	public void unsynchronizedShapes(){
+		for(FunctionShape shape : shapes){
+			shape.setSynchronized(false);
+			shape.getConnections().setSynchronized(false);
+		}
+		shapeIndexOutdated = true;
+	}
+
+	/**
+	 * Register or move a shape in the spatial index, with a margin for its selectable areas
+	 */
+	protected void indexShape(FunctionShape shape) {
+		BoundingBox box = new BoundingBox(shape.getLeft(), shape.getTop(), shape.getWidth() + 1, shape.getHeight() + 1);
+		box.expand(shape.getSelectableAreaRadius());
+		shapeIndex.put(shape, box);
+	}
+
+	/**
+	 * Register or move a connection in the spatial index, using the bounding boxes of its segments
+	 */
+	protected void indexConnection(Connection c) {
+		List<BoundingBox> boxes = new ArrayList<BoundingBox>();
+		for (Segment s : c.getSegments()) {
+			BoundingBox box = new BoundingBox();
+			box.add(s.getP1().getLeft(), s.getP1().getTop());
+			box.add(s.getP2().getLeft(), s.getP2().getTop());
+			box.expand(minDistanceToSegment);
+			boxes.add(box);
+		}
+		connectionIndex.put(c, boxes);
+	}
+
+	/**
+	 * Find the shapes which may cross an area, using the spatial index
+	 * 
+	 * @param result
+	 *            collection cleared and filled with the shapes
+	 */
+	public void getShapesIn(BoundingBox area, Collection<FunctionShape> result) {
+		if (shapeIndexOutdated) {
+			reindexShapes();
+		}
+		shapeIndex.query(area, result);
+	}
+
+	/**
+	 * 
+	 * @return the router computing the paths of the orthogonal connections
+	 */
+	public OrthogonalRouter getRouter() {
+		return router;
+	}
+
+	/**
+	 * Register again all the shapes in the spatial index
+	 */
+	protected void reindexShapes() {
+		for (FunctionShape shape : shapes) {
+			indexShape(shape);
+		}
+		shapeIndexOutdated = false;
+	}
+	
+	public void synchronizedShapes(){
+		for(FunctionShape shape : shapes){
+			shape.setSynchronized(true);
+			shape.getConnections().setSynchronized(true);
+		}
+	}
+
+	@Override
+	public void fireEvent(GwtEvent<?> event) {
+		handlerManager.fireEvent(event);
+	}
+
+	@Override
+	public HandlerRegistration addUntieLinkHandler(UntieLinkHandler handler) {
+		return handlerManager.addHandler(UntieLinkEvent.getType(), handler);
+	}
+
+	@Override
+	public HandlerRegistration addTieLinkHandler(TieLinkHandler handler) {
+		return handlerManager.addHandler(TieLinkEvent.getType(), handler);
+	}
+
+	@Override
+	public HandlerRegistration addChangeOnDiagramHandler(ChangeOnDiagramHandler handler) {
+		return handlerManager.addHandler(ChangeOnDiagramEvent.getType(), handler);
+	}
+	
+
+	@Override
+	public HandlerRegistration addNewFunctionHandler(NewFunctionHandler handler) {
+		return handlerManager.addHandler(NewFunctionEvent.getType(), handler);
+	}
+
+	/**
+	 * 
+	 * @return true if a grid is displayed in background
+	 */
+	public boolean isShowGrid() {
+		return showGrid;
+	}
+
+	// setup the frame scheduler
+	protected final RenderScheduler renderScheduler = new RenderScheduler(new Command() {
+		@Override
+		public void execute() {
+			onFrame();
+		}
+	}, refreshRate);
+
+	/**
+	 * Draw one frame. Another frame is requested as long as an animation is running
+	 * (drag of a widget, of a movable point or of a new connection) or as long as some
+	 * connections are not synchronized.
+	 */
+	protected void onFrame() {
+		// Wait for the end of the update, which requests a new frame
+		if (isUpdating()) {
+			return;
+		}
+		nFrame++;
+		updateFps();
+		long start = System.currentTimeMillis();
+		try {
+			refreshGeometry();
+			update();
+			if (minimap != null && minimap.isDamaged()) {
+				minimap.repaint();
+			}
+		} finally {
+			frameTime = System.currentTimeMillis() - start;
+			if (isAnimating()) {
+				invalidate();
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * @return true if the diagram has to be redrawn on the next frame even without any new invalidation
+	 */
+	protected boolean isAnimating() {
+		return inDragWidget || inDragMovablePoint || inDragBuildArrow
+				|| connections.hasUnsynchronizedDrawables()
+				|| (connectionLayer != null && connectionLayer.isDamaged())
+				|| (minimap != null && minimap.isDamaged());
+	}
+
+	/**
+	 * Read from the DOM, in one pass and before anything is drawn, the bounds of the shapes
+	 * which have moved or been invalidated since the last frame
+	 */
+	protected void refreshGeometry() {
+		for (FunctionShape shape : shapes) {
+			if (shape.refreshGeometry()) {
+				shapeIndexOutdated = true;
+				if (minimap != null) {
+					minimap.invalidate(shape);
+				}
+				// The dragged shapes are handled at the end of the drag
+				if (shape.isSynchronized() || !inDragWidget) {
+					invalidateDependents(shape);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Route again the connections whose path depends on a shape which has moved, been
+	 * added or removed: its own connections, the connections which went around it, and
+	 * the ones which may cross its new position
+	 */
+	protected void invalidateDependents(FunctionShape shape) {
+		dependentConnections.clear();
+		dependentConnections.addAll(shape.getConnections());
+		routeDependencies.collectDependents(shape, dependentConnections);
+		dependentArea.set(shape.getLeft(), shape.getTop(), shape.getWidth(), shape.getHeight());
+		dependentArea.expand(router.getMargin());
+		connectionIndex.query(dependentArea, candidateConnections);
+		for (Connection c : candidateConnections) {
+			if (routeDependencies.contains(c)) {
+				dependentConnections.add(c);
+			}
+		}
+		for (Connection c : dependentConnections) {
+			c.invalidatePath();
+			c.setSynchronized(false);
+		}
+		routeDependencies.recordMutation(dependentConnections.size());
+	}
+
+	/**
+	 * 
+	 * @return the shapes on which the paths of the connections depend, with the
+	 *         number of connections routed again after each mutation
+	 */
+	public RouteDependencies<FunctionShape,Connection> getRouteDependencies() {
+		return routeDependencies;
+	}
+
+	/**
+	 * 
+	 * @return the number of draws of the connections of the diagram which reused
+	 *         their cached path
+	 */
+	public int getRouteCacheHitCount() {
+		int hits = 0;
+		for (Connection c : connections) {
+			if (c instanceof AbstractConnection) {
+				hits += ((AbstractConnection) c).getRouteCache().getHitCount();
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * 
+	 * @return the number of draws of the connections of the diagram which computed
+	 *         their path again
+	 */
+	public int getRouteCacheMissCount() {
+		int misses = 0;
+		for (Connection c : connections) {
+			if (c instanceof AbstractConnection) {
+				misses += ((AbstractConnection) c).getRouteCache().getMissCount();
+			}
+		}
+		return misses;
+	}
+
+	public void resetRouteCacheCounters() {
+		for (Connection c : connections) {
+			if (c instanceof AbstractConnection) {
+				((AbstractConnection) c).getRouteCache().resetCounters();
+			}
+		}
+	}
+
+	protected void updateFps() {
+		long now = System.currentTimeMillis();
+		if (now - previousTime >= 1000) {
+			fps = (nFrame - previousNFrame) * 1000 / (now - previousTime);
+			previousNFrame = nFrame;
+			previousTime = now;
+		}
+	}
+
+
+
+	public void update() {
+		redrawConnections();
+
+		// If the user is dragging widgets, do nothing
+		if(inDragWidget)
+			return;
+
+		topCanvas.clearDirtyRects();
+
+		if (shapeIndexOutdated) {
+			reindexShapes();
+		}
+
+		// Search for selectable area
+		if (!inDragBuildArrow) {
+			shapeIndex.query(mousePoint.getLeft(), mousePoint.getTop(), candidateShapes);
+			for (FunctionShape s : candidateShapes) {
+				if (s.isMouseNearSelectableArea(mousePoint)) {
+					s.highlightSelectableArea(mousePoint);
+					inEditionSelectableShapeToDrawConnection = true;
+					startFunctionWidget = s.asWidget();
+					RootPanel.getBodyElement().getStyle().setCursor(Cursor.POINTER);
+					return;
+				}
+			}
+			inEditionSelectableShapeToDrawConnection = false;
+		} else {
+			// Don't go deeper if in edition mode
+			// If mouse over a widget, highlight it
+			FunctionShape s = getShapeUnderMouse();
+			if (s != null) {
+				s.drawHighlight();
+				highlightFunctionShape = s;
+			}
+			else if(highlightFunctionShape != null) {
+				highlightFunctionShape.draw();
+				highlightFunctionShape = null;
+			}
+			clearAnimationsOnCanvas();
+		}
+
+		// Test if in Drag Movable Point
+		if (!inDragMovablePoint && !inDragBuildArrow) {
+			connectionIndex.query(mousePoint.getLeft(), mousePoint.getTop(), candidateConnections);
+			for (Connection c : candidateConnections) {
+				if (c.isMouseNearConnection(mousePoint)) {
+					highlightPoint = c.highlightMovablePoint(mousePoint);
+					highlightConnection = c;
+					inEditionDragMovablePoint = true;
+					RootPanel.getBodyElement().getStyle().setCursor(Cursor.POINTER);
+					return;
+				}
+			}
+			inEditionDragMovablePoint = false;
+		}
+
+		clearAnimationsOnCanvas();
+	}
+
+	/**
+	 * If any connections need to be redrawn, clear the canvas and redraw all lines.
+	 */
+	protected void redrawConnections() {
+		for (Connection c : connections.getUnsynchronizedDrawables()) {
+			if (minimap != null) {
+				minimap.invalidate(c);
+			}
+			if (!isInViewport(c)) {
+				// Drawn once scrolled into view
+				staleConnections.add(c);
+				staleIndex.put(c, connectionArea);
+				connections.postpone(c);
+				continue;
+			}
+			staleConnections.remove(c);
+			staleIndex.remove(c);
+			c.draw();
+			indexConnection(c);
+		}
+		if (connectionLayer != null && connectionLayer.isDamaged()) {
+			connectionLayer.repaint(connectionIndex);
+		}
+	}
+
+	protected void clearAnimationsOnCanvas() {
+		RootPanel.getBodyElement().getStyle().setCursor(Cursor.DEFAULT);
 	}
 
 	protected void showContextualMenu() {
@@ -656,9 +1546,11 @@ public class DiagramController implements HasNewFunctionHandlers,
 		if(!isAllowingUserInteractions()){
 			return;
 		}
+		invalidate();
 		
-		int mouseX = event.getRelativeX(topCanvas.getElement());
-		int mouseY = event.getRelativeY(topCanvas.getElement());
+		// The canvas is scaled with the view
+		int mouseX = (int) (event.getRelativeX(topCanvas.getElement()) / zoom);
+		int mouseY = (int) (event.getRelativeY(topCanvas.getElement()) / zoom);
 		mousePoint.setLeft(mouseX);
 		mousePoint.setTop(mouseY);
 
@@ -672,6 +1564,7 @@ public class DiagramController implements HasNewFunctionHandlers,
 		if(!isAllowingUserInteractions()){
 			return;
 		}
+		invalidate();
 		
 		// Test if Right Click
 		if (event.getNativeButton() == NativeEvent.BUTTON_RIGHT) {
@@ -686,6 +1579,7 @@ public class DiagramController implements HasNewFunctionHandlers,
 			topCanvas.setBackground();
 			inDragMovablePoint = false;
 			highlightConnection.setAllowSynchronized(true);
+			movablePointsChanged(highlightConnection);
 			return;
 		}
 
@@ -719,6 +1613,7 @@ public class DiagramController implements HasNewFunctionHandlers,
 		if(!isAllowingUserInteractions()){
 			return;
 		}
+		invalidate();
 		
 		// Test if Right Click
 		if (event.getNativeButton() == NativeEvent.BUTTON_RIGHT) {
@@ -750,32 +1645,58 @@ public class DiagramController implements HasNewFunctionHandlers,
 	 */
 
 	public void deleteConnection(Connection c) {
+		if (isTied(c)) {
+			journal.record(createLinkChange(DiagramChange.Type.UNTIE_LINK, c));
+		}
 		connections.remove(c);
-		for (Map<Widget,Connection> entry : functionsMap.values()) {
-			for(Iterator<Connection> it = entry.values().iterator(); it.hasNext(); ){
-				Connection connection = it.next();
-				if (connection.equals(c)) {
-					it.remove();
-					break;
-				}
-			}
+		staleConnections.remove(c);
+		staleIndex.remove(c);
+		connectionIndex.remove(c);
+		routeDependencies.remove(c);
+		if (minimap != null) {
+			minimap.remove(c);
+		}
+		int edge = graph.getEdgeId(c);
+		if (edge != DiagramGraph.NONE) {
+			graph.removeEdge(edge);
 		}
 		c.delete();
 		removeDecoration(c);
+		if (isUpdating()) {
+			changedDuringUpdate = true;
+		}
+		invalidate();
 	}
 	
 	public void deleteWidget(Widget widget) {
 	    FunctionShape shape = widgetShapeMap.get(widget);
+	    journal.record(new DiagramChange(DiagramChange.Type.REMOVE_FUNCTION, widgetIds.get(widget)));
+	    // The connections which went around the shape may be shorter
+	    invalidateDependents(shape);
+	    routeDependencies.removeShape(shape);
 	    shapes.remove(shape);
-		functionsMap.remove(widget);
+	    pendingShapes.remove(shape);
+	    shape.detachGeometry();
+	    shapeIndex.remove(shape);
+	    if (minimap != null) {
+	        minimap.remove(shape);
+	    }
+	    // The links are removed with the function, they are not recorded
+	    boolean recording = journal.isRecording();
+	    journal.setRecording(false);
 	    for (Connection connection : shape.getConnections()) {
 	        deleteConnection(connection);
 	    }
+	    journal.setRecording(recording);
+	    graph.removeNode(graph.getNodeId(widget));
+	    idWidgets.remove(widgetIds.remove(widget));
 	    widgetPanel.remove(widget);
+	    invalidate();
 	}
 
 	protected Connection getConnectionNearMouse() {
-		for (Connection c : connections) {
+		connectionIndex.query(mousePoint.getLeft(), mousePoint.getTop(), candidateConnections);
+		for (Connection c : candidateConnections) {
 			if (c.isMouseNearConnection(mousePoint)) {
 				return c;
 			}
@@ -798,7 +1719,11 @@ public class DiagramController implements HasNewFunctionHandlers,
 	}
 
 	protected FunctionShape getShapeUnderMouse() {
-		for (FunctionShape s : shapes) {
+		if (shapeIndexOutdated) {
+			reindexShapes();
+		}
+		shapeIndex.query(mousePoint.getLeft(), mousePoint.getTop(), candidateShapes);
+		for (FunctionShape s : candidateShapes) {
 			if (mousePoint.isInside(s)) {
 				return s;
 			}
@@ -820,15 +1745,33 @@ public class DiagramController implements HasNewFunctionHandlers,
 
 	/**
 	 * 
-	 * @return the fps which are really displayed (frame per second)
+	 * @return the fps which are really displayed (frame per second). It is 0 when the diagram is idle.
 	 */
 	public long getFps() {
+		updateFps();
 		return fps;
 	}
 
 	/**
 	 * 
-	 * @return unsynchronized connection
+	 * @return number of pixels cleared and painted on the top canvas during the last frame
+	 */
+	public long getTouchedPixels() {
+		return topCanvas.getTouchedPixels();
+	}
+
+	/**
+	 * 
+	 * @return time spent drawing the last frame, in milliseconds, for example to check
+	 *         that the zoomed out frames stay under 16 ms
+	 */
+	public long getFrameTime() {
+		return frameTime;
+	}
+
+	/**
+	 * 
+	 * @return unsynchronized connection, in a set reused by the next call
 	 */
 	public DrawableSet<Connection> getUnsynchronizedConnections(){
 		return connections.getUnsynchronizedDrawables();
@@ -844,14 +1787,16 @@ public class DiagramController implements HasNewFunctionHandlers,
 				this.canvasHeight,this.showGrid);
 
 		// Add function
-		for(Widget startWidget : functionsMap.keySet()){
-			diagramRepresentation.addFunction(startWidget);
+		for(Widget startWidget : graph.getNodes()){
+			diagramRepresentation.addFunction(startWidget, widgetIds.get(startWidget));
 		}
 
 		// Add links
-		for(Widget startWidget : functionsMap.keySet()){
-			for(Widget endWidget : functionsMap.get(startWidget).keySet()){
-				Connection c = functionsMap.get(startWidget).get(endWidget);
+		for(Widget startWidget : graph.getNodes()){
+			int startNode = graph.getNodeId(startWidget);
+			for(int edge = graph.getFirstOutEdge(startNode); edge != DiagramGraph.NONE; edge = graph.getNextOutEdge(edge)){
+				Connection c = graph.getEdge(edge);
+				Widget endWidget = graph.getNode(graph.getTarget(edge));
 				int[][] pointList = new int[c.getMovablePoints().size()][2];
 				int i = 0;
 				for(com.orange.links.client.shapes.Point p : c.getMovablePoints()){
@@ -868,44 +1813,528 @@ public class DiagramController implements HasNewFunctionHandlers,
 	public String exportDiagram(){
 		return DiagramSerializationService.exportDiagram(getDiagramModel());
 	}
+
+	/**
+	 * Export the diagram in the compact binary format, base64 encoded
+	 */
+	public String exportDiagramBinary(){
+		return DiagramSerializationService.exportDiagramBinary(getDiagramModel());
+	}
+
+	/**
+	 * Replace the diagram by one exported with {@link #exportDiagramBinary()}
+	 */
+	public void importDiagramBinary(String diagramBinaryExport, DiagramWidgetFactory saveFactory){
+		DiagramModel diagramRepresentation = DiagramSerializationService.importDiagramBinary(diagramBinaryExport);
+		importDiagramInUpdate(diagramRepresentation, saveFactory);
+	}
 	
+	/**
+	 * Replace the diagram by an exported one. The import is done in a single update,
+	 * see {@link #beginUpdate()}, so only one ChangeOnDiagramEvent is fired.
+	 */
 	public void importDiagram(String diagramXmlExport, DiagramWidgetFactory saveFactory){
 		DiagramModel diagramRepresentation = DiagramSerializationService.importDiagram(diagramXmlExport);
+		importDiagramInUpdate(diagramRepresentation, saveFactory);
+	}
+
+	/**
+	 * Import a diagram in a single update. The import is not recorded in the change
+	 * journal, which starts again from the current revision.
+	 */
+	protected void importDiagramInUpdate(DiagramModel diagramRepresentation, DiagramWidgetFactory saveFactory){
+		cancelImport();
+		boolean recording = journal.isRecording();
+		journal.setRecording(false);
+		beginUpdate();
+		try {
+			importDiagram(diagramRepresentation, saveFactory);
+		} finally {
+			endUpdate();
+			journal.setRecording(recording);
+			journal.reset(journal.getRevision());
+		}
+	}
+
+	protected void importDiagram(DiagramModel diagramRepresentation, DiagramWidgetFactory saveFactory){
 		// Display the converted graphical representation
 		clearDiagram();
 		// Add Functions
 		Map<String,Widget> idToWidgetMap = new HashMap<String,Widget>();
 		for(FunctionModel function : diagramRepresentation.getFunctionRepresentationSet()){
-			Widget w = saveFactory.getFunctionByType(function.identifier, function.content);
-			addWidget(w, function.left, function.top);
-			idToWidgetMap.put(function.id, w);
+			importFunction(function, saveFactory, idToWidgetMap);
 		}
 		// Add links
 		for(LinkModel link : diagramRepresentation.getLinkRepresentationSet()){
-			Widget w1 = idToWidgetMap.get(link.startId);
-			Widget w2 = idToWidgetMap.get(link.endId);
-			Connection c;
-			if(link.type != null && link.type.equals("straight")){
-				c = drawStraightConnection(w1, w2);
-			} else {
-				c = drawStraightArrowConnection(w1, w2);
-			}
-			if(link.decoration != null){
-				addDecoration(saveFactory.getDecorationByType(
-						link.decoration.identifier , link.decoration.content ), c);
-			} 
-			
-			// Add the movable points
-			for(int[] p : link.pointList){
-				c.addMovablePoint(new com.orange.links.client.shapes.Point(p[0],p[1]));
-			}
-			
-			// Fire TieEvent
-			handlerManager.fireEvent(new TieLinkEvent(w1, w2, c));
+			importLink(link, saveFactory, idToWidgetMap);
+		}
+	}
+
+	/**
+	 * Replace the diagram by an exported one, in several slices scheduled one after the other,
+	 * so that the browser stays responsive while big diagrams are imported. The document is read
+	 * and the widgets and connections are added {@link #importSliceSize} elements at a time.
+	 * The diagram is drawn once everything has been imported.
+	 * <br/>
+	 * Another import, or clearing the diagram, cancels the running one.
+	 */
+	public void importDiagram(String diagramXmlExport, DiagramWidgetFactory saveFactory,
+			DiagramImportCallback callback){
+		DiagramXmlReader reader = new DiagramXmlReader(diagramXmlExport);
+		cancelImport();
+		SlicedImport slicedImport = new SlicedImport(reader, saveFactory, callback);
+		slicedImport.begin();
+		clearDiagram();
+		pendingImport = slicedImport;
+		Scheduler.get().scheduleIncremental(slicedImport);
+	}
+
+	/**
+	 * Stop the running import, if any. The elements already imported stay in the diagram.
+	 */
+	public void cancelImport(){
+		SlicedImport slicedImport = pendingImport;
+		if (slicedImport != null) {
+			pendingImport = null;
+			slicedImport.end();
+			slicedImport.callback.onCancelled();
+		}
+	}
+
+	/**
+	 * Import of a diagram in several slices, in a single update
+	 */
+	private class SlicedImport implements RepeatingCommand {
+
+		private final DiagramXmlReader reader;
+		private final DiagramWidgetFactory saveFactory;
+		private final DiagramImportCallback callback;
+		private Iterator<FunctionModel> functions;
+		private Iterator<LinkModel> links;
+		private Map<String,Widget> idToWidgetMap = new HashMap<String,Widget>();
+		private int imported = 0;
+		private int total = 0;
+		private boolean updating = false;
+		// Recording of the journal before the import
+		private boolean recording;
+
+		SlicedImport(DiagramXmlReader reader, DiagramWidgetFactory saveFactory, DiagramImportCallback callback) {
+			this.reader = reader;
+			this.saveFactory = saveFactory;
+			this.callback = callback;
+		}
+
+		void begin() {
+			recording = journal.isRecording();
+			journal.setRecording(false);
+			beginUpdate();
+			updating = true;
+		}
+
+		/**
+		 * End the update of the import, only once even if the end of the update fails
+		 */
+		void end() {
+			try {
+				if (updating) {
+					updating = false;
+					endUpdate();
+				}
+			} finally {
+				journal.setRecording(recording);
+				journal.reset(journal.getRevision());
+			}
+		}
+
+		@Override
+		public boolean execute() {
+			if (pendingImport != this) {
+				return false;
+			}
+			try {
+				if (!importSlice()) {
+					return true;
+				}
+				pendingImport = null;
+				end();
+			} catch (RuntimeException e) {
+				pendingImport = null;
+				end();
+				callback.onFailure(e);
+				return false;
+			}
+			callback.onProgress(1);
+			callback.onImported();
+			return false;
+		}
+
+		/**
+		 * 
+		 * @return true once the whole diagram has been imported
+		 */
+		private boolean importSlice() {
+			if (functions == null) {
+				// Read the document
+				if (reader.read(importSliceSize)) {
+					callback.onProgress(reader.getProgress() / 2);
+					return false;
+				}
+				DiagramModel model = reader.getModel();
+				functions = model.getFunctionRepresentationSet().iterator();
+				links = model.getLinkRepresentationSet().iterator();
+				total = model.getFunctionRepresentationSet().size() + model.getLinkRepresentationSet().size();
+			}
+			// Add the widgets, then the links
+			for (int i = 0; i < importSliceSize; i++) {
+				if (functions.hasNext()) {
+					importFunction(functions.next(), saveFactory, idToWidgetMap);
+				} else if (links.hasNext()) {
+					importLink(links.next(), saveFactory, idToWidgetMap);
+				} else {
+					return true;
+				}
+				imported++;
+			}
+			callback.onProgress(0.5 + 0.5 * imported / total);
+			return false;
+		}
+	}
+
+	/**
+	 * Move the widgets of the diagram to the positions computed by a layout. The layout
+	 * is run by the {@link #setLayoutExecutor(LayoutExecutor) layout executor}, by default
+	 * in slices of {@link #layoutSliceTime} milliseconds between which the page stays
+	 * responsive. Then all the widgets are moved in a single update.
+	 * <br/>
+	 * Starting another layout, or clearing the diagram, cancels the running one.
+	 */
+	public void layout(DiagramLayout layout, final DiagramLayoutCallback callback){
+		cancelLayout();
+		final List<Widget> widgets = new ArrayList<Widget>();
+		final LayoutGraph layoutGraph = createLayoutGraph(widgets);
+		layoutExecutor.execute(layout, layoutGraph, new DiagramLayoutCallback() {
+			@Override
+			public void onProgress(double progress) {
+				callback.onProgress(progress);
+			}
+
+			@Override
+			public void onLaidOut() {
+				applyLayout(layoutGraph, widgets);
+				callback.onLaidOut();
+			}
+
+			@Override
+			public void onCancelled() {
+				callback.onCancelled();
+			}
+		});
+	}
+
+	/**
+	 * Stop the running layout, if any, without moving the widgets
+	 */
+	public void cancelLayout(){
+		layoutExecutor.cancel();
+	}
+
+	/**
+	 * Change how the layouts are run, for example all at once with a
+	 * {@link com.orange.links.client.layout.SynchronousLayoutExecutor}
+	 */
+	public void setLayoutExecutor(LayoutExecutor layoutExecutor){
+		cancelLayout();
+		this.layoutExecutor = layoutExecutor;
+	}
+
+	/**
+	 * 
+	 * @return the graph given to the layouts, the node i being the widget i of the list
+	 */
+	protected LayoutGraph createLayoutGraph(List<Widget> widgets){
+		LayoutGraph layoutGraph = new LayoutGraph();
+		Map<Widget,Integer> layoutIds = new HashMap<Widget, Integer>();
+		for(Widget w : graph.getNodes()){
+			FunctionShape shape = widgetShapeMap.get(w);
+			layoutIds.put(w, layoutGraph.addNode(shape.getLeft(), shape.getTop(), shape.getWidth(), shape.getHeight()));
+			widgets.add(w);
+		}
+		for(Widget w : widgets){
+			int node = graph.getNodeId(w);
+			for(int edge = graph.getFirstOutEdge(node); edge != DiagramGraph.NONE; edge = graph.getNextOutEdge(edge)){
+				layoutGraph.addEdge(layoutIds.get(w), layoutIds.get(graph.getNode(graph.getTarget(edge))));
+			}
+		}
+		return layoutGraph;
+	}
+
+	/**
+	 * Move the widgets still in the diagram to their positions in the graph of a layout.
+	 * The shapes stay synchronized, so their bounds are read once on the next frame
+	 */
+	protected void applyLayout(LayoutGraph layoutGraph, List<Widget> widgets){
+		beginUpdate();
+		try {
+			for(int i = 0; i < widgets.size(); i++){
+				Widget w = widgets.get(i);
+				if(widgetShapeMap.containsKey(w)){
+					moveWidget(w, layoutGraph.getLeft(i), layoutGraph.getTop(i));
+				}
+			}
+		} finally {
+			endUpdate();
+		}
+	}
+
+	protected void importFunction(FunctionModel function, DiagramWidgetFactory saveFactory,
+			Map<String,Widget> idToWidgetMap){
+		Widget w = saveFactory.getFunctionByType(function.identifier, function.content);
+		addWidget(w, function.left, function.top);
+		if (function.id != null) {
+			setWidgetId(w, function.id);
+		}
+		idToWidgetMap.put(function.id, w);
+	}
+
+	protected void importLink(LinkModel link, DiagramWidgetFactory saveFactory, Map<String,Widget> idToWidgetMap){
+		Widget w1 = idToWidgetMap.get(link.startId);
+		Widget w2 = idToWidgetMap.get(link.endId);
+		Connection c;
+		if(link.type != null && link.type.equals("straight")){
+			c = drawStraightConnection(w1, w2);
+		} else if("orthogonal".equals(link.type)){
+			c = drawOrthogonalConnection(w1, w2);
+		} else {
+			c = drawStraightArrowConnection(w1, w2);
+		}
+		if(link.decoration != null){
+			addDecoration(saveFactory.getDecorationByType(
+					link.decoration.identifier , link.decoration.content ), c);
+		} 
+		
+		// Add the movable points
+		for(int[] p : link.pointList){
+			c.addMovablePoint(new com.orange.links.client.shapes.Point(p[0],p[1]));
 		}
 	}
 	
 
+	/*
+	 * CHANGE JOURNAL
+	 */
+
+	/**
+	 * 
+	 * @return the journal recording the changes done on the diagram
+	 */
+	public DiagramJournal getJournal() {
+		return journal;
+	}
+
+	/**
+	 * 
+	 * @return the revision of the diagram, incremented by each change
+	 */
+	public int getRevision() {
+		return journal.getRevision();
+	}
+
+	/**
+	 * Export the changes done since a revision, so that an autosave only sends the
+	 * edits done since the previous one. The exported changes can be dropped with
+	 * {@link DiagramJournal#discardUntil(int)} once they have been saved.
+	 * 
+	 * @param sinceRevision
+	 *            revision of the last save
+	 * @return the patch, to be applied with {@link #applyPatch(String, DiagramWidgetFactory)}
+	 */
+	public String exportPatch(int sinceRevision) {
+		return DiagramSerializationService.exportPatch(journal.getPatch(sinceRevision));
+	}
+
+	/**
+	 * Apply a patch exported with {@link #exportPatch(int)}, for example right after
+	 * importing the diagram the patch was exported from. The changes are applied in a
+	 * single update and are not recorded again, the journal continuing from the
+	 * revision of the patch.
+	 */
+	public void applyPatch(String patch, DiagramWidgetFactory saveFactory) {
+		applyPatch(DiagramSerializationService.importPatch(patch), saveFactory);
+	}
+
+	public void applyPatch(DiagramPatch patch, DiagramWidgetFactory saveFactory) {
+		boolean recording = journal.isRecording();
+		journal.setRecording(false);
+		beginUpdate();
+		try {
+			for (DiagramChange change : patch.getChanges()) {
+				applyChange(change, saveFactory);
+			}
+		} finally {
+			endUpdate();
+			journal.setRecording(recording);
+		}
+		if (patch.getRevision() > journal.getRevision()) {
+			journal.reset(patch.getRevision());
+		}
+	}
+
+	/**
+	 * Apply a change, the changes referencing unknown widgets or links being ignored
+	 */
+	protected void applyChange(DiagramChange change, DiagramWidgetFactory saveFactory) {
+		Widget w = change.id == null ? null : idWidgets.get(change.id);
+		Widget endWidget = change.endId == null ? null : idWidgets.get(change.endId);
+		Connection c = getConnection(w, endWidget);
+		switch (change.type) {
+		case CLEAR:
+			clearDiagram();
+			break;
+		case ADD_FUNCTION:
+			Widget added = saveFactory.getFunctionByType(change.identifier, change.content);
+			addWidget(added, change.left, change.top);
+			setWidgetId(added, change.id);
+			break;
+		case REMOVE_FUNCTION:
+			if (w != null) {
+				deleteWidget(w);
+			}
+			break;
+		case MOVE_FUNCTION:
+			if (w != null) {
+				moveWidget(w, change.left, change.top);
+			}
+			break;
+		case TIE_LINK:
+			if (w != null && endWidget != null && c == null) {
+				if ("straight".equals(change.identifier)) {
+					drawStraightConnection(w, endWidget);
+				} else if ("orthogonal".equals(change.identifier)) {
+					drawOrthogonalConnection(w, endWidget);
+				} else {
+					drawStraightArrowConnection(w, endWidget);
+				}
+			}
+			break;
+		case UNTIE_LINK:
+			if (c != null) {
+				deleteConnection(c);
+				c.getStartShape().removeConnection(c);
+				c.getEndShape().removeConnection(c);
+			}
+			break;
+		case SET_POINTS:
+			if (c != null) {
+				List<Point> points = new ArrayList<Point>();
+				for (int[] p : change.pointList) {
+					points.add(new Point(p[0], p[1]));
+				}
+				c.setMovablePoints(points);
+			}
+			break;
+		case SET_DECORATION:
+			if (c != null) {
+				removeDecoration(c);
+				if (change.identifier != null) {
+					addDecoration(saveFactory.getDecorationByType(change.identifier, change.content), c);
+				}
+			}
+			break;
+		}
+	}
+
+	/**
+	 * 
+	 * @return the id of a widget of the diagram, which does not change until the widget is removed
+	 */
+	public String getWidgetId(Widget w) {
+		return widgetIds.get(w);
+	}
+
+	public Widget getWidgetById(String id) {
+		return idWidgets.get(id);
+	}
+
+	protected void setWidgetId(Widget w, String id) {
+		idWidgets.remove(widgetIds.remove(w));
+		Widget previous = idWidgets.put(id, w);
+		if (previous != null && previous != w) {
+			widgetIds.put(previous, nextWidgetId());
+			idWidgets.put(widgetIds.get(previous), previous);
+		}
+		widgetIds.put(w, id);
+	}
+
+	protected String nextWidgetId() {
+		String id;
+		do {
+			id = String.valueOf(++lastWidgetId);
+		} while (idWidgets.containsKey(id));
+		return id;
+	}
+
+	/**
+	 * 
+	 * @return the connection tied from a widget to another one, or null
+	 */
+	public Connection getConnection(Widget startWidget, Widget endWidget) {
+		int startNode = graph.getNodeId(startWidget);
+		int endNode = graph.getNodeId(endWidget);
+		if (startNode == DiagramGraph.NONE || endNode == DiagramGraph.NONE) {
+			return null;
+		}
+		int edge = graph.findEdge(startNode, endNode);
+		return edge == DiagramGraph.NONE ? null : graph.getEdge(edge);
+	}
+
+	/**
+	 * 
+	 * @return the graph of the widgets and of the connections tied between them
+	 */
+	public DiagramGraph<Widget,Connection> getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Tie a connection from a widget to another one, in place of the previous
+	 * connection between them
+	 */
+	protected void tie(Widget startWidget, Widget endWidget, Connection c) {
+		int startNode = graph.getNodeId(startWidget);
+		int endNode = graph.getNodeId(endWidget);
+		int previous = graph.findEdge(startNode, endNode);
+		if (previous != DiagramGraph.NONE) {
+			graph.removeEdge(previous);
+		}
+		graph.addEdge(startNode, endNode, c);
+	}
+
+	protected boolean isTied(Connection c) {
+		return graph.containsEdge(c);
+	}
+
+	protected DiagramChange createLinkChange(DiagramChange.Type type, Connection c) {
+		return new DiagramChange(type, widgetIds.get(((FunctionShape) c.getStartShape()).asWidget()),
+				widgetIds.get(((FunctionShape) c.getEndShape()).asWidget()));
+	}
+
+	protected void recordTie(Connection c, String type) {
+		if (journal.isRecording()) {
+			DiagramChange change = createLinkChange(DiagramChange.Type.TIE_LINK, c);
+			change.identifier = type;
+			journal.record(change);
+		}
+	}
+
+	protected void recordMove(Widget w, int left, int top) {
+		if (journal.isRecording() && widgetIds.containsKey(w)) {
+			DiagramChange change = new DiagramChange(DiagramChange.Type.MOVE_FUNCTION, widgetIds.get(w));
+			change.left = left;
+			change.top = top;
+			journal.record(change);
+		}
+	}
+
 	public boolean isAllowingUserInteractions() {
 		return allowingUserInteractions;
 	}
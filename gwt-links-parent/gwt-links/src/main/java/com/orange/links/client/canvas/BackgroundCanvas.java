@@ -1,16 +1,42 @@
 package com.orange.links.client.canvas;
 
+import com.google.gwt.canvas.client.Canvas;
+import com.google.gwt.canvas.dom.client.Context2d;
+
+/**
+ * Grid displayed behind the diagram.
+ *
+ * When the browser supports the HTML5 canvas, a single cell of the grid is rendered
+ * with {@link #createGridTile(int, String)} and repeated by the browser as the
+ * background of the diagram. Otherwise the grid is stroked once on this canvas.
+ */
 public class BackgroundCanvas extends MultiBrowserDiagramCanvas{
 
-	private final int cellSize = 10;
+	public static final int DEFAULT_CELL_SIZE = 10;
+	public static final String DEFAULT_COLOR = "#eee";
+
+	private final int cellSize;
+	private final String color;
+	private boolean gridDrawn = false;
 
 	public BackgroundCanvas(int width, int height) {
+		this(width, height, DEFAULT_CELL_SIZE, DEFAULT_COLOR);
+	}
+
+	public BackgroundCanvas(int width, int height, int cellSize, String color) {
 		super(width, height);
+		this.cellSize = cellSize;
+		this.color = color;
 		getElement().getStyle().setZIndex(0);
-		initGrid();
 	}
 
+	/**
+	 * Stroke the grid on the whole canvas, the first time only
+	 */
 	public void initGrid(){
+		if (gridDrawn) {
+			return;
+		}
 		for (double x = 1.5; x < width; x += cellSize) {
 			moveTo(x, 0);
 			lineTo(x, height);
@@ -19,9 +45,38 @@ public class BackgroundCanvas extends MultiBrowserDiagramCanvas{
 			moveTo(0, y);
 			lineTo(width, y);
 		}
-		setStrokeStyle("#eee");
+		setStrokeStyle(color);
 		stroke();
+		gridDrawn = true;
 	}
 
+	public int getCellSize() {
+		return cellSize;
+	}
+
+	public String getColor() {
+		return color;
+	}
+
+	/**
+	 * Render one cell of the grid, to be repeated as a CSS background
+	 *
+	 * @return the data URL of the image of the cell, or null if the browser does
+	 *         not support the HTML5 canvas
+	 */
+	public static String createGridTile(int cellSize, String color) {
+		Canvas tile = Canvas.createIfSupported();
+		if (tile == null) {
+			return null;
+		}
+		tile.setCoordinateSpaceWidth(cellSize);
+		tile.setCoordinateSpaceHeight(cellSize);
+		Context2d context = tile.getContext2d();
+		context.setFillStyle(color);
+		// Same pixels as the lines stroked at 1.5 by initGrid()
+		context.fillRect(1, 0, 1, cellSize);
+		context.fillRect(0, 1, cellSize, 1);
+		return tile.toDataUrl();
+	}
 
 }
@@ -0,0 +1,125 @@
+package com.orange.links.client.canvas;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.google.gwt.canvas.client.Canvas;
+import com.google.gwt.user.client.ui.Widget;
+import com.orange.links.client.connection.Connection;
+import com.orange.links.client.utils.BoundingBox;
+import com.orange.links.client.utils.LinksClientBundle;
+import com.orange.links.client.utils.SpatialIndex;
+
+/**
+ * Single canvas shared by all the connections of a diagram.
+ *
+ * Instead of clearing and redrawing a canvas per connection, the connections
+ * report the areas they need to repaint (their previous and their new bounding
+ * box). On repaint, only the union of these areas is cleared, and only the
+ * connections crossing this area, found with the spatial index of the
+ * connections, are painted again, clipped to it.
+ */
+public class ConnectionLayer {
+
+	// Distance from its segments where a connection may still paint, like its arrow
+	private static final int PAINT_MARGIN = 10;
+
+	private final Html5DiagramCanvas canvas;
+	private final BoundingBox damagedArea = new BoundingBox();
+	private final BoundingBox queryArea = new BoundingBox();
+	private final Set<Connection> candidates = new LinkedHashSet<Connection>();
+	private long repaintedPixels = 0;
+
+	public ConnectionLayer(int width, int height) {
+		canvas = new Html5DiagramCanvas(width, height);
+		canvas.getElement().getStyle().setZIndex(1);
+		canvas.asWidget().addStyleName(LinksClientBundle.INSTANCE.css().connectionCanvas());
+	}
+
+	/**
+	 *
+	 * @return true if the browser supports the HTML5 canvas needed by the shared layer
+	 */
+	public static boolean isSupported() {
+		return Canvas.isSupported();
+	}
+
+	/**
+	 *
+	 * @return the canvas where the connections are painted
+	 */
+	public DiagramCanvas getCanvas() {
+		return canvas;
+	}
+
+	public Widget asWidget() {
+		return canvas.asWidget();
+	}
+
+	/**
+	 * Register an area which has to be repainted on the next call to {@link #repaint(SpatialIndex)}
+	 */
+	public void invalidate(BoundingBox area) {
+		damagedArea.add(area);
+	}
+
+	/**
+	 *
+	 * @return true if some areas are waiting to be repainted
+	 */
+	public boolean isDamaged() {
+		return !damagedArea.isEmpty();
+	}
+
+	/**
+	 * Clear the damaged area and paint again the connections crossing it
+	 *
+	 * @param connectionIndex
+	 *            spatial index of the connections of the diagram
+	 */
+	public void repaint(SpatialIndex<Connection> connectionIndex) {
+		damagedArea.clip(0, 0, canvas.getWidth(), canvas.getHeight());
+		if (damagedArea.isEmpty()) {
+			repaintedPixels = 0;
+			return;
+		}
+		int left = damagedArea.getLeft();
+		int top = damagedArea.getTop();
+		int width = damagedArea.getWidth();
+		int height = damagedArea.getHeight();
+
+		canvas.save();
+		canvas.clip(left, top, width, height);
+		canvas.clearRect(left, top, width, height);
+		queryArea.set(damagedArea);
+		queryArea.expand(PAINT_MARGIN);
+		connectionIndex.query(queryArea, candidates);
+		for (Connection c : candidates) {
+			if (c.getBounds().intersects(damagedArea)) {
+				c.paint();
+			}
+		}
+		candidates.clear();
+		canvas.restore();
+
+		repaintedPixels = damagedArea.getArea();
+		damagedArea.setEmpty();
+	}
+
+	/**
+	 * Clear all the layer
+	 */
+	public void clear() {
+		canvas.clear();
+		damagedArea.setEmpty();
+	}
+
+	/**
+	 *
+	 * @return the number of pixels cleared and repainted by the last repaint
+	 */
+	public long getRepaintedPixels() {
+		return repaintedPixels;
+	}
+
+}
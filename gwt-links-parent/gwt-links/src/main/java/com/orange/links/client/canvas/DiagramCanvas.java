@@ -21,6 +21,33 @@ public interface DiagramCanvas {
 	 */
 	void clear();
 	
+	/**
+	 * Clear only a rectangle of the canvas
+	 * @param x left of the rectangle
+	 * @param y top of the rectangle
+	 * @param w width of the rectangle
+	 * @param h height of the rectangle
+	 */
+	void clearRect(double x, double y, double w, double h);
+	
+	/**
+	 * Register a rectangle which has been painted, so that it is cleared
+	 * by the next call to {@link #clearDirtyRects()}
+	 */
+	void addDirtyRect(double x, double y, double w, double h);
+	
+	/**
+	 * Clear only the union of the rectangles registered with {@link #addDirtyRect(double, double, double, double)}
+	 * since the last call, and start a new frame
+	 */
+	void clearDirtyRects();
+	
+	/**
+	 * 
+	 * @return the number of pixels cleared and painted during the last frame
+	 */
+	long getTouchedPixels();
+	
 	/**
 	 * Change the z-index to display the canvas in foreground
 	 */
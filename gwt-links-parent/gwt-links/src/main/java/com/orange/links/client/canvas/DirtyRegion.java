@@ -0,0 +1,65 @@
+package com.orange.links.client.canvas;
+
+import com.orange.links.client.utils.BoundingBox;
+
+/**
+ * Keep track of the area painted on a canvas since it was last cleared, so that
+ * the next clear only touches this area, and count the pixels touched per frame.
+ *
+ * A frame starts each time the dirty area is cleared.
+ */
+public class DirtyRegion {
+
+	private final BoundingBox area = new BoundingBox();
+	private long clearedPixels = 0;
+	private long paintedPixels = 0;
+	private long lastFrameTouchedPixels = 0;
+
+	/**
+	 * Register a painted rectangle
+	 */
+	public void add(double x, double y, double w, double h) {
+		int left = (int) Math.floor(x);
+		int top = (int) Math.floor(y);
+		int width = (int) Math.ceil(x + w) - left;
+		int height = (int) Math.ceil(y + h) - top;
+		area.add(new BoundingBox(left, top, width, height));
+		paintedPixels += (long) width * height;
+	}
+
+	/**
+	 *
+	 * @return union of the rectangles painted since the start of the frame
+	 */
+	public BoundingBox getArea() {
+		return area;
+	}
+
+	/**
+	 * End the current frame and start a new one, whose first operation is to clear
+	 * a given number of pixels
+	 */
+	public void startFrame(long pixelsToClear) {
+		lastFrameTouchedPixels = clearedPixels + paintedPixels;
+		clearedPixels = pixelsToClear;
+		paintedPixels = 0;
+		area.setEmpty();
+	}
+
+	/**
+	 * Register that all the canvas has been cleared during the current frame
+	 */
+	public void clearAll(long canvasPixels) {
+		clearedPixels += canvasPixels;
+		area.setEmpty();
+	}
+
+	/**
+	 *
+	 * @return number of pixels cleared and painted during the last complete frame
+	 */
+	public long getTouchedPixels() {
+		return lastFrameTouchedPixels;
+	}
+
+}
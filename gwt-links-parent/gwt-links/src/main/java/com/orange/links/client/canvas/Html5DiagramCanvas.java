@@ -9,6 +9,7 @@ import com.google.gwt.event.shared.EventHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.client.Element;
 import com.google.gwt.user.client.ui.Widget;
+import com.orange.links.client.utils.BoundingBox;
 
 public class Html5DiagramCanvas implements DiagramCanvas{
 
@@ -16,6 +17,7 @@ public class Html5DiagramCanvas implements DiagramCanvas{
 	private int height;
 	private Canvas canvas;
 	private Context2d context;
+	private final DirtyRegion dirtyRegion = new DirtyRegion();
 	final CssColor redrawColor = CssColor.make("rgba(255,255,255,1)");
 	final CssColor backgroundColor = CssColor.make("rgba(255,255,255,0)");
 	
@@ -55,6 +57,56 @@ public class Html5DiagramCanvas implements DiagramCanvas{
 	@Override
 	public void clear(){
 	    context.clearRect(0, 0, width, height);
+		dirtyRegion.clearAll((long) width * height);
+	}
+
+	@Override
+	public void addDirtyRect(double x, double y, double w, double h) {
+		dirtyRegion.add(x, y, w, h);
+	}
+
+	@Override
+	public void clearDirtyRects() {
+		BoundingBox area = dirtyRegion.getArea();
+		area.clip(0, 0, width, height);
+		long pixels = area.getArea();
+		if (pixels > 0) {
+			clearRect(area.getLeft(), area.getTop(), area.getWidth(), area.getHeight());
+		}
+		dirtyRegion.startFrame(pixels);
+	}
+
+	@Override
+	public long getTouchedPixels() {
+		return dirtyRegion.getTouchedPixels();
+	}
+
+	@Override
+	public void clearRect(double x, double y, double w, double h) {
+		context.clearRect(x, y, w, h);
+	}
+
+	/**
+	 * Save the state of the context (clip, styles)
+	 */
+	public void save() {
+		context.save();
+	}
+
+	/**
+	 * Restore the state of the context saved by {@link #save()}
+	 */
+	public void restore() {
+		context.restore();
+	}
+
+	/**
+	 * Restrict the next drawings to a rectangle, until the next call to {@link #restore()}
+	 */
+	public void clip(double x, double y, double w, double h) {
+		context.beginPath();
+		context.rect(x, y, w, h);
+		context.clip();
 	}
 
 	@Override
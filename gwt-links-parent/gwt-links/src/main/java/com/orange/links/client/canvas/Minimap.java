@@ -0,0 +1,261 @@
+package com.orange.links.client.canvas;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.MouseDownEvent;
+import com.google.gwt.event.dom.client.MouseDownHandler;
+import com.google.gwt.user.client.ui.AbsolutePanel;
+import com.google.gwt.user.client.ui.SimplePanel;
+import com.google.gwt.user.client.ui.Widget;
+import com.orange.links.client.DiagramController;
+import com.orange.links.client.connection.Connection;
+import com.orange.links.client.connection.OrthogonalConnection;
+import com.orange.links.client.shapes.Drawable;
+import com.orange.links.client.shapes.FunctionShape;
+import com.orange.links.client.shapes.Point;
+import com.orange.links.client.shapes.Shape;
+import com.orange.links.client.utils.BoundingBox;
+import com.orange.links.client.utils.SpatialIndex;
+
+/**
+ * Downscaled overview of a whole diagram, where the widgets are painted as
+ * rectangles and the connections as polylines, and where the visible part of the
+ * diagram is framed. A click on the minimap scrolls the view to the clicked point.
+ *
+ * The minimap only uses the geometry cached by the shapes, it never reads the DOM.
+ * The controller reports the shapes and the connections which have changed: their
+ * previous area is cleared, the elements crossing it are queued with them, and at
+ * most {@link DiagramController#minimapElementsPerFrame} elements are painted on
+ * each frame, whatever the size of the diagram.
+ */
+public class Minimap {
+
+	private static final String SHAPE_COLOR = "#999999";
+	private static final String CONNECTION_COLOR = "#bbbbbb";
+
+	private final DiagramController controller;
+	private final AbsolutePanel panel;
+	private final Html5DiagramCanvas canvas;
+	private final SimplePanel visibleFrame;
+	private final double scale;
+
+	// Areas painted on the minimap, in the coordinates of the diagram
+	private final Map<Drawable, BoundingBox> paintedAreas = new HashMap<Drawable, BoundingBox>();
+	private final SpatialIndex<Drawable> paintedIndex;
+	private final Set<Drawable> pending = new LinkedHashSet<Drawable>();
+	// Previous areas of the changed elements, reused from a frame to the next
+	private final List<BoundingBox> damagedAreas = new ArrayList<BoundingBox>();
+	private int damagedCount = 0;
+	private final Set<Drawable> crossing = new LinkedHashSet<Drawable>();
+	private final BoundingBox area = new BoundingBox();
+	private int paintedElements = 0;
+
+	public Minimap(final DiagramController controller, int width, int height) {
+		this.controller = controller;
+		int diagramWidth = Math.max(1, controller.getCanvasWidth());
+		int diagramHeight = Math.max(1, controller.getCanvasHeight());
+		this.scale = Math.min((double) width / diagramWidth, (double) height / diagramHeight);
+		this.paintedIndex = new SpatialIndex<Drawable>(diagramWidth, diagramHeight,
+				DiagramController.spatialIndexCellSize);
+
+		canvas = new Html5DiagramCanvas(width, height);
+		canvas.addDomHandler(new MouseDownHandler() {
+			@Override
+			public void onMouseDown(MouseDownEvent event) {
+				controller.scrollTo((int) (event.getRelativeX(canvas.getElement()) / scale),
+						(int) (event.getRelativeY(canvas.getElement()) / scale));
+			}
+		}, MouseDownEvent.getType());
+
+		visibleFrame = new SimplePanel();
+		visibleFrame.getElement().getStyle().setProperty("border", "1px solid #ff6666");
+		visibleFrame.getElement().getStyle().setProperty("pointerEvents", "none");
+		visibleFrame.setVisible(false);
+
+		panel = new AbsolutePanel();
+		panel.setPixelSize(width, height);
+		panel.add(canvas.asWidget(), 0, 0);
+		panel.add(visibleFrame, 0, 0);
+	}
+
+	public Widget asWidget() {
+		return panel;
+	}
+
+	/**
+	 * Paint again an element on the next frame, at its new position
+	 */
+	public void invalidate(Drawable element) {
+		damage(element);
+		pending.add(element);
+	}
+
+	/**
+	 * Erase an element removed from the diagram
+	 */
+	public void remove(Drawable element) {
+		damage(element);
+		paintedAreas.remove(element);
+		paintedIndex.remove(element);
+		pending.remove(element);
+	}
+
+	/**
+	 * Erase all the minimap
+	 */
+	public void clear() {
+		canvas.clear();
+		paintedAreas.clear();
+		paintedIndex.clear();
+		pending.clear();
+		damagedCount = 0;
+	}
+
+	/**
+	 *
+	 * @return true if some elements are waiting to be painted
+	 */
+	public boolean isDamaged() {
+		return !pending.isEmpty() || damagedCount > 0;
+	}
+
+	/**
+	 *
+	 * @return the number of elements painted by the last repaint
+	 */
+	public int getPaintedElements() {
+		return paintedElements;
+	}
+
+	/**
+	 * Clear the damaged areas one by one, so that distant changes do not clear all
+	 * the space between them, and paint the next queued elements
+	 */
+	public void repaint() {
+		for (int i = 0; i < damagedCount; i++) {
+			BoundingBox damagedArea = damagedAreas.get(i);
+			damagedArea.expand(1);
+			canvas.clearRect(Math.floor(damagedArea.getLeft() * scale), Math.floor(damagedArea.getTop() * scale),
+					Math.ceil(damagedArea.getWidth() * scale) + 1, Math.ceil(damagedArea.getHeight() * scale) + 1);
+			paintedIndex.query(damagedArea, crossing);
+			pending.addAll(crossing);
+			crossing.clear();
+		}
+		damagedCount = 0;
+		paintedElements = 0;
+		Iterator<Drawable> it = pending.iterator();
+		while (it.hasNext() && paintedElements < DiagramController.minimapElementsPerFrame) {
+			Drawable element = it.next();
+			it.remove();
+			if (paint(element)) {
+				BoundingBox painted = paintedAreas.get(element);
+				if (painted == null) {
+					painted = new BoundingBox();
+					paintedAreas.put(element, painted);
+				}
+				painted.set(area);
+				paintedIndex.put(element, painted);
+			}
+			paintedElements++;
+		}
+	}
+
+	/**
+	 * Frame the visible part of the diagram
+	 *
+	 * @param visibleArea
+	 *            the visible part, in the coordinates of the diagram, or null if the whole
+	 *            diagram is visible
+	 */
+	public void setVisibleArea(BoundingBox visibleArea) {
+		if (visibleArea == null) {
+			visibleFrame.setVisible(false);
+			return;
+		}
+		visibleFrame.setVisible(true);
+		panel.setWidgetPosition(visibleFrame, (int) (visibleArea.getLeft() * scale),
+				(int) (visibleArea.getTop() * scale));
+		visibleFrame.getElement().getStyle().setWidth((int) (visibleArea.getWidth() * scale), Unit.PX);
+		visibleFrame.getElement().getStyle().setHeight((int) (visibleArea.getHeight() * scale), Unit.PX);
+	}
+
+	private void damage(Drawable element) {
+		BoundingBox painted = paintedAreas.get(element);
+		if (painted == null) {
+			return;
+		}
+		if (damagedCount == damagedAreas.size()) {
+			damagedAreas.add(new BoundingBox());
+		}
+		damagedAreas.get(damagedCount++).set(painted);
+	}
+
+	/**
+	 * Paint an element and store its area in {@link #area}
+	 *
+	 * @return false if the element is not painted on the minimap
+	 */
+	private boolean paint(Drawable element) {
+		if (element instanceof FunctionShape) {
+			Shape shape = (Shape) element;
+			area.set(shape.getLeft(), shape.getTop(), Math.max(1, shape.getWidth()), Math.max(1, shape.getHeight()));
+			canvas.setFillStyle(SHAPE_COLOR);
+			canvas.fillRect(area.getLeft() * scale, area.getTop() * scale, Math.max(1, area.getWidth() * scale),
+					Math.max(1, area.getHeight() * scale));
+			return true;
+		}
+		if (element instanceof Connection) {
+			Connection c = (Connection) element;
+			// The connection being built ends on the mouse
+			if (!(c.getStartShape() instanceof FunctionShape) || !(c.getEndShape() instanceof FunctionShape)) {
+				return false;
+			}
+			if (c instanceof OrthogonalConnection && ((OrthogonalConnection) c).getRoutePoints().size() > 1) {
+				paint(((OrthogonalConnection) c).getRoutePoints());
+				return true;
+			}
+			int x = c.getStartShape().getLeft() + c.getStartShape().getWidth() / 2;
+			int y = c.getStartShape().getTop() + c.getStartShape().getHeight() / 2;
+			area.set(x, y, 1, 1);
+			canvas.beginPath();
+			canvas.moveTo(x * scale, y * scale);
+			for (Point p : c.getMovablePoints()) {
+				area.add(p.getLeft(), p.getTop());
+				canvas.lineTo(p.getLeft() * scale, p.getTop() * scale);
+			}
+			x = c.getEndShape().getLeft() + c.getEndShape().getWidth() / 2;
+			y = c.getEndShape().getTop() + c.getEndShape().getHeight() / 2;
+			area.add(x, y);
+			canvas.lineTo(x * scale, y * scale);
+			canvas.setStrokeStyle(CONNECTION_COLOR);
+			canvas.stroke();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Paint the path of a connection and store its area in {@link #area}
+	 */
+	private void paint(List<Point> points) {
+		Point first = points.get(0);
+		area.set(first.getLeft(), first.getTop(), 1, 1);
+		canvas.beginPath();
+		canvas.moveTo(first.getLeft() * scale, first.getTop() * scale);
+		for (int i = 1; i < points.size(); i++) {
+			Point p = points.get(i);
+			area.add(p.getLeft(), p.getTop());
+			canvas.lineTo(p.getLeft() * scale, p.getTop() * scale);
+		}
+		canvas.setStrokeStyle(CONNECTION_COLOR);
+		canvas.stroke();
+	}
+
+}
@@ -10,12 +10,14 @@ import com.google.gwt.user.client.Element;
 import com.google.gwt.user.client.ui.Widget;
 import com.google.gwt.widgetideas.graphics.client.Color;
 import com.google.gwt.widgetideas.graphics.client.GWTCanvas;
+import com.orange.links.client.utils.BoundingBox;
 
 public class MultiBrowserDiagramCanvas implements DiagramCanvas{
 
 	protected int width;
 	protected int height;
 	private GWTCanvas canvas;
+	private final DirtyRegion dirtyRegion = new DirtyRegion();
 	
 	public MultiBrowserDiagramCanvas(int width, int height){
 		this.width = width;
@@ -84,8 +86,49 @@ public class MultiBrowserDiagramCanvas implements DiagramCanvas{
 	@Override
 	public void clear() {
 		canvas.clear();
+		dirtyRegion.clearAll((long) width * height);
 	}
 
+	@Override
+	public void addDirtyRect(double x, double y, double w, double h) {
+		dirtyRegion.add(x, y, w, h);
+	}
+
+	@Override
+	public void clearDirtyRects() {
+		BoundingBox area = dirtyRegion.getArea();
+		area.clip(0, 0, width, height);
+		long pixels = area.getArea();
+		if (pixels > 0) {
+			clearRect(area.getLeft(), area.getTop(), area.getWidth(), area.getHeight());
+		}
+		dirtyRegion.startFrame(pixels);
+	}
+
+	@Override
+	public long getTouchedPixels() {
+		return dirtyRegion.getTouchedPixels();
+	}
+
+	/**
+	 * GWTCanvas cannot clear a part of the canvas. When the canvas is backed by an
+	 * HTML5 canvas element, its context is used directly, otherwise all the canvas is cleared.
+	 */
+	@Override
+	public void clearRect(double x, double y, double w, double h) {
+		if (!clearRect(getElement(), x, y, w, h)) {
+			canvas.clear();
+		}
+	}
+
+	private static native boolean clearRect(Element element, double x, double y, double w, double h) /*-{
+		if (!element.getContext) {
+			return false;
+		}
+		element.getContext('2d').clearRect(x, y, w, h);
+		return true;
+	}-*/;
+
 	@Override
 	public <H extends EventHandler> HandlerRegistration addDomHandler(
 			H handler, Type<H> type) {
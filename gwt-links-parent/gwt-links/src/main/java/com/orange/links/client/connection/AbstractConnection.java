@@ -11,7 +11,10 @@ import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.ui.MenuItem;
 import com.google.gwt.user.client.ui.Widget;
 import com.orange.links.client.DiagramController;
+import com.orange.links.client.DiagramController.LevelOfDetail;
 import com.orange.links.client.canvas.ConnectionCanvas;
+import com.orange.links.client.canvas.ConnectionLayer;
+import com.orange.links.client.canvas.DiagramCanvas;
 import com.orange.links.client.event.UntieLinkEvent;
 import com.orange.links.client.exception.DiagramViewNotDisplayedException;
 import com.orange.links.client.menu.ContextMenu;
@@ -19,8 +22,10 @@ import com.orange.links.client.shapes.DecorationShape;
 import com.orange.links.client.shapes.FunctionShape;
 import com.orange.links.client.shapes.Point;
 import com.orange.links.client.shapes.Shape;
+import com.orange.links.client.utils.BoundingBox;
 import com.orange.links.client.utils.ConnectionUtils;
 import com.orange.links.client.utils.MovablePoint;
+import com.orange.links.client.utils.RouteCache;
 import com.orange.links.client.utils.Segment;
 import com.orange.links.client.utils.SegmentPath;
 
@@ -30,7 +35,8 @@ public abstract class AbstractConnection implements Connection {
 	protected Shape endShape;
 	protected Set<Segment> segmentSet;
 	protected DiagramController controller;
-	protected ConnectionCanvas canvas;
+	protected DiagramCanvas canvas;
+	protected ConnectionLayer layer;
 	protected DecorationShape decoration;
 
 	public static CssColor defaultConnectionColor = CssColor.make("#000000");
@@ -40,6 +46,15 @@ public abstract class AbstractConnection implements Connection {
 	protected Point highlightPoint;
 	protected Segment highlightSegment;
 	protected SegmentPath segmentPath;
+	protected List<Point> pointList = new ArrayList<Point>();
+	protected BoundingBox bounds = new BoundingBox();
+	protected RouteCache routeCache = new RouteCache();
+
+	/**
+	 * Margin added around the points of the path to compute the bounds of the connection,
+	 * to include the arrows and the width of the line
+	 */
+	protected int boundsMargin = 10;
 
 	protected ContextMenu menu;
 	protected static String deleteMenuText = "Delete";
@@ -53,15 +68,22 @@ public abstract class AbstractConnection implements Connection {
 		this.endShape = endShape;
 		this.segmentSet = new HashSet<Segment>();
 
-		// Build Path
-		this.segmentPath = new SegmentPath(startShape, endShape);
-		highlightSegment = this.segmentPath.asStraightPath();
+		// Build Path, later if the diagram is being built
+		this.segmentPath = new SegmentPath(startShape, endShape, controller.isUpdating());
+		if (!segmentPath.isDeferred()) {
+			highlightSegment = this.segmentPath.asStraightPath();
+		}
 
 		initMenu();
 
 		setController(controller);
-		canvas = new ConnectionCanvas(controller.getCanvasWidth(), controller.getCanvasHeight());
-		this.controller.getView().add(canvas.asWidget());
+		layer = controller.getConnectionLayer();
+		if (layer != null) {
+			canvas = layer.getCanvas();
+		} else {
+			canvas = new ConnectionCanvas(controller.getCanvasWidth(), controller.getCanvasHeight());
+			this.controller.getView().add(canvas.asWidget());
+		}
 	}
 
 
@@ -86,6 +108,7 @@ public abstract class AbstractConnection implements Connection {
 		menu.addItem(new MenuItem(straightenMenuText, true, new Command() {
 			public void execute() {
 				setStraight();
+				controller.movablePointsChanged(AbstractConnection.this);
 				menu.hide();
 			}
 		}));
@@ -95,6 +118,27 @@ public abstract class AbstractConnection implements Connection {
 
 	protected abstract void draw(List<Point> pointList);
 
+	/**
+	 * When the diagram is zoomed out, draw the connection as a plain polyline,
+	 * without curved corners nor arrow head
+	 * 
+	 * @return true if the connection has been drawn
+	 */
+	protected boolean drawSimplified(List<Point> pointList) {
+		if (controller.getLevelOfDetail() == LevelOfDetail.FULL) {
+			return false;
+		}
+		canvas.beginPath();
+		canvas.moveTo(pointList.get(0).getLeft(), pointList.get(0).getTop());
+		for (int i = 1; i < pointList.size(); i++) {
+			canvas.lineTo(pointList.get(i).getLeft(), pointList.get(i).getTop());
+		}
+		canvas.setStrokeStyle(connectionColor);
+		canvas.stroke();
+		canvas.closePath();
+		return true;
+	}
+
 	public boolean isSynchronized() {
 		return sync;
 	}
@@ -103,6 +147,9 @@ public abstract class AbstractConnection implements Connection {
 		if (allowSync) {
 			this.sync = sync;
 		}
+		if (!sync && controller != null) {
+			controller.unsynchronizedConnection(this);
+		}
 	}
 	
 	public boolean allowSynchronized(){
@@ -110,16 +157,71 @@ public abstract class AbstractConnection implements Connection {
 	}
 	
 	public void delete(){
-		canvas.asWidget().removeFromParent();
+		if (layer != null) {
+			layer.invalidate(bounds);
+		} else {
+			canvas.asWidget().removeFromParent();
+		}
 	}
 
 	public void draw() {
+		// Compute the new path, unless the ends and the movable points did not move
+		List<Point> waypoints = segmentPath.getPathWithoutExtremities();
+		if (!routeCache.isValid(startShape, endShape, waypoints)) {
+			computePath();
+			routeCache.store(startShape, endShape, segmentPath.getPathWithoutExtremities());
+		}
+
+		if (layer != null) {
+			// Repaint the previous and the new area of the connection on the shared layer
+			layer.invalidate(bounds);
+			updateBounds();
+			layer.invalidate(bounds);
+		} else {
+			canvas.clear();
+			draw(pointList);
+			updateBounds();
+		}
+
+		updateDecoration();
+		setSynchronized(true);
+	}
+
+	public void paint() {
+		if (pointList.size() > 1) {
+			draw(pointList);
+		}
+	}
+
+	public BoundingBox getBounds() {
+		return bounds;
+	}
+
+	public void invalidatePath() {
+		routeCache.invalidate();
+	}
+
+	public RouteCache getRouteCache() {
+		return routeCache;
+	}
+
+	protected void updateBounds() {
+		bounds.setEmpty();
+		for (Point p : pointList) {
+			bounds.add(p.getLeft(), p.getTop());
+		}
+		bounds.expand(boundsMargin);
+	}
+
+	/**
+	 * Compute the points and the segments of the connection
+	 */
+	protected void computePath() {
 		// Reset the segments
 		segmentSet = new HashSet<Segment>();
 
-		// Draw each segment
 		segmentPath.update();
-		List<Point> pointList = new ArrayList<Point>();
+		pointList = new ArrayList<Point>();
 		Point startPoint = segmentPath.getFirstPoint();
 		pointList.add(startPoint);
 		for (Point p : segmentPath.getPathWithoutExtremities()) {
@@ -132,17 +234,19 @@ public abstract class AbstractConnection implements Connection {
 		Point lastPoint = segmentPath.getLastPoint();
 		pointList.add(lastPoint);
 		segmentSet.add(new Segment(startPoint, lastPoint));
-
-		// Draw All the register point
-		draw(pointList);
-
-		updateDecoration();
-		setSynchronized(true);
 	}
 
 	private void updateDecoration() {
 		if (decoration != null) {
-			Segment decoratedSegment = segmentPath.getMiddleSegment();
+			// The decorations are hidden when the diagram is zoomed out
+			boolean visible = controller.getLevelOfDetail() == LevelOfDetail.FULL;
+			decoration.asWidget().setVisible(visible);
+			if (!visible) {
+				return;
+			}
+			// Middle segment of the computed path, which may differ from the segment path
+			int size = pointList.size();
+			Segment decoratedSegment = new Segment(pointList.get(size / 2 - 1), pointList.get(size / 2));
 			Point decorationCenter = decoratedSegment.middle();
 			int width = decoration.getWidth();
 			int height = decoration.getHeight();
@@ -152,9 +256,13 @@ public abstract class AbstractConnection implements Connection {
 	}
 
 	public MovablePoint addMovablePoint(Point p) {
+		MovablePoint movablePoint = new MovablePoint(p);
+		if (highlightSegment == null) {
+			segmentPath.addWaypoint(movablePoint);
+			return movablePoint;
+		}
 		Point startSegmentPoint = highlightSegment.getP1();
 		Point endSegmentPoint = highlightSegment.getP2();
-		MovablePoint movablePoint = new MovablePoint(p);
 		segmentPath.add(movablePoint, startSegmentPoint, endSegmentPoint);
 		return movablePoint;
 	}
@@ -181,6 +289,14 @@ public abstract class AbstractConnection implements Connection {
 		return segmentPath.getPathWithoutExtremities();
 	}
 
+	public void setMovablePoints(List<Point> points) {
+		segmentPath.straightPath();
+		for (Point p : points) {
+			segmentPath.addWaypoint(new MovablePoint(p));
+		}
+		setSynchronized(false);
+	}
+
 	public void removeDecoration() {
 		decoration = null;
 	}
@@ -198,6 +314,10 @@ public abstract class AbstractConnection implements Connection {
 		return endShape;
 	}
 
+	public Set<Segment> getSegments() {
+		return segmentSet;
+	}
+
 	public boolean isMouseNearConnection(Point p) {
 		for (Segment s : segmentSet) {
 			if (!s.getP1().equals(s.getP2()) && ConnectionUtils.distanceToSegment(s, p) < DiagramController.minDistanceToSegment) {
@@ -1,6 +1,7 @@
 package com.orange.links.client.connection;
 
 import java.util.List;
+import java.util.Set;
 
 import com.orange.links.client.DiagramController;
 import com.orange.links.client.menu.HasContextMenu;
@@ -8,7 +9,9 @@ import com.orange.links.client.shapes.DecorationShape;
 import com.orange.links.client.shapes.Drawable;
 import com.orange.links.client.shapes.Point;
 import com.orange.links.client.shapes.Shape;
+import com.orange.links.client.utils.BoundingBox;
 import com.orange.links.client.utils.MovablePoint;
+import com.orange.links.client.utils.Segment;
 
 public interface Connection extends Drawable, HasContextMenu {
 
@@ -37,6 +40,12 @@ public interface Connection extends Drawable, HasContextMenu {
 	 */
 	List<Point> getMovablePoints();
 	
+	/**
+	 * Replace all the movable points of the connection
+	 * @param points the new movable points, from the start to the end of the connection
+	 */
+	void setMovablePoints(List<Point> points);
+	
 	/**
 	 * Remove the decoration on a connection
 	 */
@@ -66,6 +75,12 @@ public interface Connection extends Drawable, HasContextMenu {
 	 */
 	Point highlightMovablePoint(Point mousePoint);
 	
+	/**
+	 * 
+	 * @return the segments of the connection, as computed by the last call to draw()
+	 */
+	Set<Segment> getSegments();
+	
 	/**
 	 * Test is the mouse is near a connection
 	 * @param mousePoint the point where the mouse is
@@ -78,6 +93,24 @@ public interface Connection extends Drawable, HasContextMenu {
 	 */
 	public void delete();
 	
+	/**
+	 * Paint the connection as it was computed by the last call to draw(),
+	 * without computing again its path
+	 */
+	void paint();
+
+	/**
+	 * Compute the path again at the next call to draw(), even if the ends and the
+	 * movable points of the connection have not moved
+	 */
+	void invalidatePath();
+	
+	/**
+	 * 
+	 * @return the area covered by the connection when it was last drawn
+	 */
+	BoundingBox getBounds();
+	
 	void setController(DiagramController controller);
 
 }
@@ -7,8 +7,9 @@ public class ConnectionFactory<C extends Connection> {
 	
     public static ConnectionFactory<StraightConnection> STRAIGHT = new ConnectionFactory<StraightConnection>(ConnectionType.PLAIN);
     public static ConnectionFactory<StraightArrowConnection> ARROW = new ConnectionFactory<StraightArrowConnection>(ConnectionType.SINGLE_ARROW);
+    public static ConnectionFactory<OrthogonalConnection> ORTHOGONAL = new ConnectionFactory<OrthogonalConnection>(ConnectionType.ORTHOGONAL);
     
-    public static enum ConnectionType { PLAIN, SINGLE_ARROW }
+    public static enum ConnectionType { PLAIN, SINGLE_ARROW, ORTHOGONAL }
     
     private ConnectionType type;
     
@@ -23,6 +24,8 @@ public class ConnectionFactory<C extends Connection> {
                 return (C) new StraightConnection(controller, start, end);
         case SINGLE_ARROW:
                 return (C) new StraightArrowConnection(controller, start, end);
+        case ORTHOGONAL:
+                return (C) new OrthogonalConnection(controller, start, end);
         default:
                 throw new UnsupportedOperationException("undefined connection type: " + type);
         }
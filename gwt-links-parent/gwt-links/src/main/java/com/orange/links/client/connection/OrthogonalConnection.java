@@ -0,0 +1,125 @@
+package com.orange.links.client.connection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.orange.links.client.DiagramController;
+import com.orange.links.client.exception.DiagramViewNotDisplayedException;
+import com.orange.links.client.shapes.FunctionShape;
+import com.orange.links.client.shapes.Point;
+import com.orange.links.client.shapes.Shape;
+import com.orange.links.client.utils.BoundingBox;
+import com.orange.links.client.utils.MovablePoint;
+import com.orange.links.client.utils.OrthogonalRouter;
+import com.orange.links.client.utils.Segment;
+
+/**
+ * Connection with an arrow, following an orthogonal path which goes around the
+ * widgets of the diagram and through the movable points added by the user.
+ *
+ * The path of each leg, between two movable points, is computed by the
+ * {@link OrthogonalRouter} of the controller, the widgets near the leg being the
+ * obstacles. If no path is found, the connection is straight.
+ */
+public class OrthogonalConnection extends StraightArrowConnection {
+
+	/**
+	 * Distance in pixels around the ends of a leg where the widgets are taken as obstacles
+	 */
+	public static int obstacleSearchMargin = 150;
+
+	private final Set<FunctionShape> obstacles = new LinkedHashSet<FunctionShape>();
+	private final Set<FunctionShape> dependencies = new HashSet<FunctionShape>();
+	private final BoundingBox searchArea = new BoundingBox();
+
+	// Leg of each segment, the leg n ending on the movable point n
+	private final Map<Segment, Integer> segmentLegs = new HashMap<Segment, Integer>();
+
+	public OrthogonalConnection(DiagramController controller, Shape startShape, Shape endShape)
+			throws DiagramViewNotDisplayedException {
+		super(controller, startShape, endShape);
+	}
+
+	@Override
+	protected void computePath() {
+		segmentPath.update();
+		List<Point> waypoints = segmentPath.getPathWithoutExtremities();
+		List<Point> points = new ArrayList<Point>();
+		Set<Segment> segments = new HashSet<Segment>();
+		segmentLegs.clear();
+		dependencies.clear();
+
+		Shape from = startShape;
+		for (int leg = 0; leg <= waypoints.size(); leg++) {
+			Shape to = leg < waypoints.size() ? waypoints.get(leg) : endShape;
+			List<Point> legPoints = route(from, to);
+			if (legPoints == null) {
+				// Routed again when one of the obstacles moves
+				controller.getRouteDependencies().setDependencies(this, dependencies);
+				segmentLegs.clear();
+				super.computePath();
+				return;
+			}
+			for (Point p : legPoints) {
+				if (!points.isEmpty()) {
+					Point previous = points.get(points.size() - 1);
+					if (previous.equals(p)) {
+						continue;
+					}
+					Segment s = new Segment(previous, p);
+					segments.add(s);
+					segmentLegs.put(s, leg);
+				}
+				points.add(p);
+			}
+			from = to;
+		}
+		pointList = points;
+		segmentSet = segments;
+		controller.getRouteDependencies().setDependencies(this, dependencies);
+	}
+
+	/**
+	 *
+	 * @return the points of the path computed on the last draw, around the widgets,
+	 *         or an empty list if the connection has not been drawn yet
+	 */
+	public List<Point> getRoutePoints() {
+		return pointList;
+	}
+
+	private List<Point> route(Shape from, Shape to) {
+		searchArea.set(from.getLeft(), from.getTop(), Math.max(1, from.getWidth()), Math.max(1, from.getHeight()));
+		searchArea.add(to.getLeft(), to.getTop());
+		searchArea.add(to.getLeft() + to.getWidth(), to.getTop() + to.getHeight());
+		searchArea.expand(obstacleSearchMargin);
+
+		OrthogonalRouter router = controller.getRouter();
+		router.clearObstacles();
+		controller.getShapesIn(searchArea, obstacles);
+		for (FunctionShape obstacle : obstacles) {
+			router.addObstacle(obstacle);
+		}
+		dependencies.addAll(obstacles);
+		return router.route(from, to);
+	}
+
+	@Override
+	public MovablePoint addMovablePoint(Point p) {
+		Integer leg = highlightSegment == null ? null : segmentLegs.get(highlightSegment);
+		if (leg == null) {
+			return super.addMovablePoint(p);
+		}
+		// Insert the point before the end of the leg of the highlighted segment
+		MovablePoint movablePoint = new MovablePoint(p);
+		List<Point> path = segmentPath.getPath();
+		segmentPath.add(movablePoint, path.get(leg), path.get(leg + 1));
+		return movablePoint;
+	}
+
+}
@@ -34,12 +34,13 @@ public class StraightConnection extends AbstractConnection {
 
     @Override
     protected void draw(List<Point> pointList) {
+        if (drawSimplified(pointList)) {
+            return;
+        }
         Point p0 = pointList.get(0);
         Point p1 = pointList.get(1);
         Point p2;
 
-        canvas.clear();
-        
         canvas.beginPath();
         canvas.moveTo(p0.getLeft(), p0.getTop());
 
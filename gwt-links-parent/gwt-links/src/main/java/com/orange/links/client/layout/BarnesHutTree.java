@@ -0,0 +1,195 @@
+package com.orange.links.client.layout;
+
+/**
+ * Quadtree of points used to approximate the repulsion between all the nodes of a
+ * force-directed layout in O(n log n): a cell far enough from a node pushes it as a
+ * single point, with the mass of all the points it contains, placed at their
+ * center of mass.
+ *
+ * The cells are stored in arrays reused from one build to the next.
+ */
+class BarnesHutTree {
+
+	private static final int EMPTY = -1;
+	private static final int INTERNAL = -2;
+	// Leaf holding several points too close to be separated
+	private static final int CLUSTER = -3;
+
+	private static final int MAX_DEPTH = 32;
+
+	private double[] cellLeft = new double[64];
+	private double[] cellTop = new double[64];
+	private double[] cellSize = new double[64];
+	private double[] mass = new double[64];
+	private double[] massX = new double[64];
+	private double[] massY = new double[64];
+	private int[] body = new int[64];
+	private int[] children = new int[256];
+	private int cellCount = 0;
+
+	private int[] stack = new int[64];
+
+	/**
+	 * Build the tree of the n first points
+	 */
+	void build(double[] x, double[] y, int n) {
+		double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for (int i = 0; i < n; i++) {
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i]);
+			maxY = Math.max(maxY, y[i]);
+		}
+		cellCount = 0;
+		newCell(minX, minY, Math.max(maxX - minX, maxY - minY) + 1);
+		for (int i = 0; i < n; i++) {
+			insert(i, x[i], y[i]);
+		}
+		for (int c = 0; c < cellCount; c++) {
+			massX[c] /= mass[c];
+			massY[c] /= mass[c];
+		}
+	}
+
+	private void insert(int i, double x, double y) {
+		int cell = 0;
+		for (int depth = 0;; depth++) {
+			mass[cell]++;
+			massX[cell] += x;
+			massY[cell] += y;
+			int b = body[cell];
+			if (b == EMPTY) {
+				body[cell] = i;
+				return;
+			}
+			if (b == CLUSTER) {
+				return;
+			}
+			if (b >= 0) {
+				if (depth == MAX_DEPTH) {
+					body[cell] = CLUSTER;
+					return;
+				}
+				// Move the point of the leaf down to a new child
+				body[cell] = INTERNAL;
+				double bx = massX[cell] - x;
+				double by = massY[cell] - y;
+				int child = getChild(cell, bx, by);
+				body[child] = b;
+				mass[child] = 1;
+				massX[child] = bx;
+				massY[child] = by;
+			}
+			cell = getChild(cell, x, y);
+		}
+	}
+
+	/**
+	 * @return the child of a cell containing a point, created if needed
+	 */
+	private int getChild(int cell, double x, double y) {
+		double half = cellSize[cell] / 2;
+		int quadrant = 0;
+		double left = cellLeft[cell];
+		double top = cellTop[cell];
+		if (x >= left + half) {
+			quadrant++;
+			left += half;
+		}
+		if (y >= top + half) {
+			quadrant += 2;
+			top += half;
+		}
+		int child = children[cell * 4 + quadrant];
+		if (child == EMPTY) {
+			child = newCell(left, top, half);
+			children[cell * 4 + quadrant] = child;
+		}
+		return child;
+	}
+
+	private int newCell(double left, double top, double size) {
+		int cell = cellCount++;
+		if (cell == body.length) {
+			int capacity = cell * 2;
+			cellLeft = copy(cellLeft, capacity);
+			cellTop = copy(cellTop, capacity);
+			cellSize = copy(cellSize, capacity);
+			mass = copy(mass, capacity);
+			massX = copy(massX, capacity);
+			massY = copy(massY, capacity);
+			body = copy(body, capacity);
+			children = copy(children, capacity * 4);
+		}
+		cellLeft[cell] = left;
+		cellTop[cell] = top;
+		cellSize[cell] = size;
+		mass[cell] = 0;
+		massX[cell] = 0;
+		massY[cell] = 0;
+		body[cell] = EMPTY;
+		for (int q = 0; q < 4; q++) {
+			children[cell * 4 + q] = EMPTY;
+		}
+		return cell;
+	}
+
+	/**
+	 * Add to the force applied on the point i the repulsion of all the other points,
+	 * the repulsion between two points at a distance d being strength / d.
+	 *
+	 * @param theta
+	 *            a cell is taken as a single point when its size divided by its
+	 *            distance is under theta
+	 */
+	void addRepulsion(int i, double x, double y, double strength, double theta, double[] fx, double[] fy) {
+		double theta2 = theta * theta;
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int cell = stack[--top];
+			double dx = x - massX[cell];
+			double dy = y - massY[cell];
+			double d2 = dx * dx + dy * dy;
+			int b = body[cell];
+			if (b == i) {
+				continue;
+			}
+			if (b == INTERNAL && cellSize[cell] * cellSize[cell] >= theta2 * d2) {
+				if (top + 4 > stack.length) {
+					stack = copy(stack, stack.length * 2);
+				}
+				for (int q = 0; q < 4; q++) {
+					int child = children[cell * 4 + q];
+					if (child != EMPTY) {
+						stack[top++] = child;
+					}
+				}
+				continue;
+			}
+			if (d2 < 0.01) {
+				// Same place: push the points apart in an arbitrary direction
+				dx = (i & 1) == 0 ? 0.1 : -0.1;
+				dy = (i & 2) == 0 ? 0.1 : -0.1;
+				d2 = 0.02;
+			}
+			double f = mass[cell] * strength / d2;
+			fx[i] += dx * f;
+			fy[i] += dy * f;
+		}
+	}
+
+	private static double[] copy(double[] array, int capacity) {
+		double[] result = new double[capacity];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
+	}
+
+	private static int[] copy(int[] array, int capacity) {
+		int[] result = new int[capacity];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.orange.links.client.layout;
+
+/**
+ * Algorithm placing the widgets of a diagram. The work is done step by step, so
+ * that the controller can run it in time slices while the page stays responsive.
+ * <br/>
+ * <code>
+ * 		layout.start(graph);<br/>
+ * 		while (layout.step()) {<br/>
+ * 		}<br/>
+ * 		// read the positions in the graph
+ * </code>
+ */
+public interface DiagramLayout {
+
+	/**
+	 * Start laying out a graph, the current positions of the nodes being the
+	 * starting point of the layouts which improve them
+	 */
+	public void start(LayoutGraph graph);
+
+	/**
+	 * Do the next step of the layout. Once the last step is done, the new positions
+	 * are written in the graph.
+	 *
+	 * @return true if there are steps left
+	 */
+	public boolean step();
+
+	/**
+	 * @return part of the layout already done, between 0 and 1
+	 */
+	public double getProgress();
+}
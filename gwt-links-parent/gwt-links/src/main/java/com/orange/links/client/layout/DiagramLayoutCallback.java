@@ -0,0 +1,26 @@
+package com.orange.links.client.layout;
+
+/**
+ * Follow a layout of a diagram done in several slices
+ */
+public interface DiagramLayoutCallback {
+
+	/**
+	 * Called after each slice of the layout
+	 * 
+	 * @param progress
+	 *            part of the layout already done, between 0 and 1
+	 */
+	public void onProgress(double progress);
+
+	/**
+	 * Called once the widgets have been moved to their new positions
+	 */
+	public void onLaidOut();
+
+	/**
+	 * Called if the layout has been replaced by another one, or the diagram cleared,
+	 * before it was done. The widgets have not been moved.
+	 */
+	public void onCancelled();
+}
@@ -0,0 +1,239 @@
+package com.orange.links.client.layout;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Force-directed layout: the connections pull the widgets they tie like springs,
+ * all the widgets push each other away, and a weak gravity keeps the unconnected
+ * parts of the diagram together. The widgets move a bit less at each step, until
+ * the layout settles.
+ *
+ * The repulsion between all the widgets is approximated with a Barnes-Hut
+ * quadtree, so each step costs O(n log n) instead of O(n&sup2;).
+ *
+ * The widgets are moved from their current positions. Widgets on top of each other,
+ * for example imported without coordinates, are first spread on a spiral.
+ */
+public class ForceDirectedLayout implements DiagramLayout {
+
+	private int iterations = 300;
+	private int idealLength = 0;
+	private double theta = 0.7;
+	private double gravity = 1;
+	private int margin = 20;
+
+	private LayoutGraph graph;
+	private int n;
+	private double[] x;
+	private double[] y;
+	private double[] fx;
+	private double[] fy;
+	private final BarnesHutTree tree = new BarnesHutTree();
+
+	private double k;
+	private double temperature;
+	private double cooling;
+	private int iteration;
+
+	/**
+	 * Number of steps of the layout, 300 by default
+	 */
+	public void setIterations(int iterations) {
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Length in pixels of a connection at rest, between the centers of the widgets.
+	 * By default, or if 0, it depends on the average size of the widgets.
+	 */
+	public void setIdealLength(int idealLength) {
+		this.idealLength = idealLength;
+	}
+
+	/**
+	 * Accuracy of the repulsion: a group of widgets is taken as a whole if its size
+	 * divided by its distance is under theta. 0 computes the exact repulsion between
+	 * each pair of widgets, 0.7 by default.
+	 */
+	public void setTheta(double theta) {
+		this.theta = theta;
+	}
+
+	/**
+	 * Strength of the pull towards the center of the diagram, 1 by default
+	 */
+	public void setGravity(double gravity) {
+		this.gravity = gravity;
+	}
+
+	/**
+	 * Distance in pixels between the top left corner of the diagram and the widgets
+	 */
+	public void setMargin(int margin) {
+		this.margin = margin;
+	}
+
+	@Override
+	public void start(LayoutGraph graph) {
+		this.graph = graph;
+		n = graph.getNodeCount();
+		x = new double[n];
+		y = new double[n];
+		fx = new double[n];
+		fy = new double[n];
+		iteration = 0;
+
+		double size = 0;
+		for (int i = 0; i < n; i++) {
+			x[i] = graph.getLeft(i) + graph.getWidth(i) / 2.0;
+			y[i] = graph.getTop(i) + graph.getHeight(i) / 2.0;
+			size += Math.sqrt(graph.getWidth(i) * graph.getWidth(i) + graph.getHeight(i) * graph.getHeight(i));
+		}
+		k = idealLength > 0 ? idealLength : (n == 0 ? 0 : size / n) + 50;
+		spreadOverlaps();
+
+		// Cooled from the size of the diagram down to a pixel
+		temperature = k * Math.sqrt(n) / 2;
+		cooling = Math.pow(1 / Math.max(temperature, 1), 1.0 / Math.max(iterations, 1));
+	}
+
+	/**
+	 * Move the widgets with the same center as a previous one on a spiral around it,
+	 * in breadth-first order so that tied widgets start near each other
+	 */
+	private void spreadOverlaps() {
+		// Neighbours of each node, in both directions
+		int[] firstNeighbour = new int[n + 1];
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			firstNeighbour[graph.getSource(e)]++;
+			firstNeighbour[graph.getTarget(e)]++;
+		}
+		for (int i = 0; i < n; i++) {
+			firstNeighbour[i + 1] += firstNeighbour[i];
+		}
+		int[] neighbours = new int[firstNeighbour[n]];
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			neighbours[--firstNeighbour[graph.getSource(e)]] = graph.getTarget(e);
+			neighbours[--firstNeighbour[graph.getTarget(e)]] = graph.getSource(e);
+		}
+
+		int[] order = new int[n];
+		boolean[] visited = new boolean[n];
+		int count = 0;
+		for (int root = 0; root < n; root++) {
+			if (visited[root]) {
+				continue;
+			}
+			visited[root] = true;
+			order[count++] = root;
+			for (int head = count - 1; head < count; head++) {
+				int node = order[head];
+				for (int j = firstNeighbour[node]; j < firstNeighbour[node + 1]; j++) {
+					if (!visited[neighbours[j]]) {
+						visited[neighbours[j]] = true;
+						order[count++] = neighbours[j];
+					}
+				}
+			}
+		}
+
+		Set<String> centers = new HashSet<String>();
+		int moved = 0;
+		for (int i : order) {
+			if (!centers.add(x[i] + "," + y[i])) {
+				moved++;
+				double radius = k * Math.sqrt(moved) / 2;
+				// Golden angle
+				double angle = moved * 2.39996;
+				x[i] += radius * Math.cos(angle);
+				y[i] += radius * Math.sin(angle);
+			}
+		}
+	}
+
+	@Override
+	public boolean step() {
+		if (iteration >= iterations || n == 0) {
+			finish();
+			return false;
+		}
+		double centerX = 0;
+		double centerY = 0;
+		for (int i = 0; i < n; i++) {
+			fx[i] = 0;
+			fy[i] = 0;
+			centerX += x[i];
+			centerY += y[i];
+		}
+		centerX /= n;
+		centerY /= n;
+
+		// Repulsion k^2 / d
+		tree.build(x, y, n);
+		double k2 = k * k;
+		for (int i = 0; i < n; i++) {
+			tree.addRepulsion(i, x[i], y[i], k2, theta, fx, fy);
+		}
+		// Attraction d^2 / k along the connections
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			int s = graph.getSource(e);
+			int t = graph.getTarget(e);
+			double dx = x[t] - x[s];
+			double dy = y[t] - y[s];
+			double f = Math.sqrt(dx * dx + dy * dy) / k;
+			fx[s] += dx * f;
+			fy[s] += dy * f;
+			fx[t] -= dx * f;
+			fy[t] -= dy * f;
+		}
+		// Gravity, proportional to the distance to the center
+		for (int i = 0; i < n; i++) {
+			fx[i] += (centerX - x[i]) * gravity;
+			fy[i] += (centerY - y[i]) * gravity;
+		}
+
+		// Each widget moves along its force, of at most the temperature
+		for (int i = 0; i < n; i++) {
+			double f = Math.sqrt(fx[i] * fx[i] + fy[i] * fy[i]);
+			if (f > 0) {
+				double d = Math.min(f, temperature) / f;
+				x[i] += fx[i] * d;
+				y[i] += fy[i] * d;
+			}
+		}
+		temperature *= cooling;
+		iteration++;
+		if (iteration == iterations) {
+			finish();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Write the positions in the graph, the diagram starting at the margin
+	 */
+	private void finish() {
+		if (graph == null) {
+			return;
+		}
+		double minLeft = Double.MAX_VALUE;
+		double minTop = Double.MAX_VALUE;
+		for (int i = 0; i < n; i++) {
+			minLeft = Math.min(minLeft, x[i] - graph.getWidth(i) / 2.0);
+			minTop = Math.min(minTop, y[i] - graph.getHeight(i) / 2.0);
+		}
+		for (int i = 0; i < n; i++) {
+			graph.setPosition(i, (int) Math.round(x[i] - graph.getWidth(i) / 2.0 - minLeft) + margin,
+					(int) Math.round(y[i] - graph.getHeight(i) / 2.0 - minTop) + margin);
+		}
+		graph = null;
+	}
+
+	@Override
+	public double getProgress() {
+		return iterations == 0 ? 1 : Math.min(1, (double) iteration / iterations);
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.orange.links.client.layout;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.orange.links.client.DiagramController;
+
+/**
+ * Runs the layouts on the page, in slices of
+ * {@link DiagramController#layoutSliceTime} milliseconds between which the page
+ * stays responsive
+ */
+public class IncrementalLayoutExecutor implements LayoutExecutor {
+
+	// Token of the running execution, the same layout may be executed again
+	private Object running;
+	private DiagramLayoutCallback runningCallback;
+
+	@Override
+	public void execute(final DiagramLayout layout, LayoutGraph graph, final DiagramLayoutCallback callback) {
+		cancel();
+		layout.start(graph);
+		final Object execution = new Object();
+		running = execution;
+		runningCallback = callback;
+		schedule(new RepeatingCommand() {
+			@Override
+			public boolean execute() {
+				if (running != execution) {
+					return false;
+				}
+				long end = System.currentTimeMillis() + DiagramController.layoutSliceTime;
+				boolean steps = false;
+				try {
+					while (layout.step()) {
+						if (System.currentTimeMillis() >= end) {
+							steps = true;
+							break;
+						}
+					}
+				} finally {
+					if (!steps) {
+						// Done or failed, the next layout is not blocked by this one
+						running = null;
+						runningCallback = null;
+					}
+				}
+				if (steps) {
+					callback.onProgress(layout.getProgress());
+					return true;
+				}
+				callback.onProgress(1);
+				callback.onLaidOut();
+				return false;
+			}
+		});
+	}
+
+	/**
+	 * Run the slices of a layout, between the events of the page
+	 */
+	protected void schedule(RepeatingCommand command) {
+		Scheduler.get().scheduleIncremental(command);
+	}
+
+	@Override
+	public void cancel() {
+		if (running != null) {
+			DiagramLayoutCallback callback = runningCallback;
+			running = null;
+			runningCallback = null;
+			callback.onCancelled();
+		}
+	}
+
+}
@@ -0,0 +1,558 @@
+package com.orange.links.client.layout;
+
+/**
+ * Layered layout of directed flows (Sugiyama): the connections go from one layer to
+ * the next, top to bottom or left to right.
+ * <ul>
+ * <li>The cycles are broken by reversing the connections going back to a widget
+ * being explored by a depth-first search.</li>
+ * <li>Each widget is put in the layer following the longest path from a source.
+ * Connections crossing several layers go through dummy nodes, one per layer.</li>
+ * <li>The widgets of each layer are ordered by the barycenter of their neighbours
+ * in the previous layer, layer after layer, downwards then upwards. The order with
+ * the fewest crossings is kept.</li>
+ * <li>Each widget is moved towards the center of its neighbours, as close as the
+ * order of its layer and the spacing allow.</li>
+ * </ul>
+ * The first step prepares the layers, each of the next ones is a sweep of the
+ * crossing minimisation, the last one places the widgets.
+ */
+public class LayeredLayout implements DiagramLayout {
+
+	private static final int COORDINATE_PASSES = 8;
+
+	private int layerSpacing = 60;
+	private int nodeSpacing = 30;
+	private int sweeps = 12;
+	private boolean leftToRight = false;
+	private int margin = 20;
+
+	private LayoutGraph graph;
+	private int stepCount;
+
+	// Real nodes, then dummy nodes
+	private int n;
+	private int nodeCount;
+	private int[] layerOf;
+	// Size of each node along its layer, and across it
+	private int[] breadth;
+	private int[] thickness;
+	private double[] center;
+
+	// Nodes of each layer, in order, and index of each node in its layer
+	private int[][] layers;
+	private int[] indexOf;
+	private int[][] bestLayers;
+	private double bestCrossings;
+
+	// Neighbours of each node in the previous and in the next layer
+	private int[] upStart;
+	private int[] up;
+	private int[] downStart;
+	private int[] down;
+
+	// Buffers
+	private double[] key;
+	private int[] sorted;
+	private int[] buffer;
+	private int[] tree;
+
+	/**
+	 * Distance in pixels between two layers, 60 by default
+	 */
+	public void setLayerSpacing(int layerSpacing) {
+		this.layerSpacing = layerSpacing;
+	}
+
+	/**
+	 * Distance in pixels between two widgets of a layer, 30 by default
+	 */
+	public void setNodeSpacing(int nodeSpacing) {
+		this.nodeSpacing = nodeSpacing;
+	}
+
+	/**
+	 * Number of sweeps of the crossing minimisation, 12 by default
+	 */
+	public void setSweeps(int sweeps) {
+		this.sweeps = sweeps;
+	}
+
+	/**
+	 * Put the layers from left to right instead of from top to bottom
+	 */
+	public void setLeftToRight(boolean leftToRight) {
+		this.leftToRight = leftToRight;
+	}
+
+	/**
+	 * Distance in pixels between the top left corner of the diagram and the widgets
+	 */
+	public void setMargin(int margin) {
+		this.margin = margin;
+	}
+
+	@Override
+	public void start(LayoutGraph graph) {
+		this.graph = graph;
+		stepCount = 0;
+	}
+
+	@Override
+	public boolean step() {
+		if (graph == null) {
+			return false;
+		}
+		if (stepCount == 0) {
+			prepare();
+		} else if (stepCount <= sweeps) {
+			sweep(stepCount % 2 == 1);
+		} else {
+			for (int l = 0; l < layers.length; l++) {
+				layers[l] = bestLayers[l];
+				for (int i = 0; i < layers[l].length; i++) {
+					indexOf[layers[l][i]] = i;
+				}
+			}
+			assignCoordinates();
+			graph = null;
+			return false;
+		}
+		stepCount++;
+		return true;
+	}
+
+	@Override
+	public double getProgress() {
+		return graph == null ? 1 : (double) stepCount / (sweeps + 2);
+	}
+
+	/**
+	 * Break the cycles, put the nodes in layers and add the dummy nodes
+	 */
+	private void prepare() {
+		n = graph.getNodeCount();
+		int edgeCount = graph.getEdgeCount();
+
+		// Outgoing edges of each node
+		int[] outStart = new int[n + 1];
+		for (int e = 0; e < edgeCount; e++) {
+			outStart[graph.getSource(e)]++;
+		}
+		for (int i = 0; i < n; i++) {
+			outStart[i + 1] += outStart[i];
+		}
+		int[] out = new int[edgeCount];
+		int[] inDegree = new int[n];
+		for (int e = edgeCount - 1; e >= 0; e--) {
+			out[--outStart[graph.getSource(e)]] = e;
+			inDegree[graph.getTarget(e)]++;
+		}
+
+		boolean[] reversed = breakCycles(outStart, out, inDegree);
+
+		// Longest path from the sources, in topological order
+		int[] from = new int[edgeCount];
+		int[] to = new int[edgeCount];
+		int[] predecessors = new int[n];
+		int[] successorStart = new int[n + 1];
+		for (int e = 0; e < edgeCount; e++) {
+			from[e] = reversed[e] ? graph.getTarget(e) : graph.getSource(e);
+			to[e] = reversed[e] ? graph.getSource(e) : graph.getTarget(e);
+			if (from[e] != to[e]) {
+				predecessors[to[e]]++;
+				successorStart[from[e]]++;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			successorStart[i + 1] += successorStart[i];
+		}
+		int[] successors = new int[successorStart[n]];
+		for (int e = 0; e < edgeCount; e++) {
+			if (from[e] != to[e]) {
+				successors[--successorStart[from[e]]] = to[e];
+			}
+		}
+		layerOf = new int[n];
+		int[] queue = new int[n];
+		int tail = 0;
+		for (int i = 0; i < n; i++) {
+			if (predecessors[i] == 0) {
+				queue[tail++] = i;
+			}
+		}
+		int layerCount = n == 0 ? 0 : 1;
+		for (int head = 0; head < tail; head++) {
+			int node = queue[head];
+			for (int j = successorStart[node]; j < successorStart[node + 1]; j++) {
+				int next = successors[j];
+				layerOf[next] = Math.max(layerOf[next], layerOf[node] + 1);
+				layerCount = Math.max(layerCount, layerOf[next] + 1);
+				if (--predecessors[next] == 0) {
+					queue[tail++] = next;
+				}
+			}
+		}
+
+		// Dummy nodes, and the segments between consecutive layers
+		nodeCount = n;
+		int segmentCount = 0;
+		for (int e = 0; e < edgeCount; e++) {
+			if (from[e] != to[e]) {
+				int span = layerOf[to[e]] - layerOf[from[e]];
+				nodeCount += span - 1;
+				segmentCount += span;
+			}
+		}
+		layerOf = copy(layerOf, nodeCount);
+		breadth = new int[nodeCount];
+		thickness = new int[nodeCount];
+		center = new double[nodeCount];
+		for (int i = 0; i < n; i++) {
+			breadth[i] = leftToRight ? graph.getHeight(i) : graph.getWidth(i);
+			thickness[i] = leftToRight ? graph.getWidth(i) : graph.getHeight(i);
+			center[i] = leftToRight ? graph.getTop(i) + graph.getHeight(i) / 2.0 : graph.getLeft(i)
+					+ graph.getWidth(i) / 2.0;
+		}
+		int[] upper = new int[segmentCount];
+		int[] lower = new int[segmentCount];
+		int dummy = n;
+		int segment = 0;
+		for (int e = 0; e < edgeCount; e++) {
+			if (from[e] == to[e]) {
+				continue;
+			}
+			int previous = from[e];
+			int span = layerOf[to[e]] - layerOf[from[e]];
+			for (int s = 1; s < span; s++) {
+				layerOf[dummy] = layerOf[from[e]] + s;
+				center[dummy] = center[from[e]] + (center[to[e]] - center[from[e]]) * s / span;
+				upper[segment] = previous;
+				lower[segment++] = dummy;
+				previous = dummy++;
+			}
+			upper[segment] = previous;
+			lower[segment++] = to[e];
+		}
+		upStart = new int[nodeCount + 1];
+		downStart = new int[nodeCount + 1];
+		for (int s = 0; s < segmentCount; s++) {
+			upStart[lower[s]]++;
+			downStart[upper[s]]++;
+		}
+		for (int i = 0; i < nodeCount; i++) {
+			upStart[i + 1] += upStart[i];
+			downStart[i + 1] += downStart[i];
+		}
+		up = new int[segmentCount];
+		down = new int[segmentCount];
+		for (int s = 0; s < segmentCount; s++) {
+			up[--upStart[lower[s]]] = upper[s];
+			down[--downStart[upper[s]]] = lower[s];
+		}
+
+		// First order of the layers, from the current positions
+		int[] layerSizes = new int[layerCount];
+		for (int i = 0; i < nodeCount; i++) {
+			layerSizes[layerOf[i]]++;
+		}
+		layers = new int[layerCount][];
+		bestLayers = new int[layerCount][];
+		for (int l = 0; l < layerCount; l++) {
+			layers[l] = new int[layerSizes[l]];
+			bestLayers[l] = new int[layerSizes[l]];
+			layerSizes[l] = 0;
+		}
+		for (int i = 0; i < nodeCount; i++) {
+			layers[layerOf[i]][layerSizes[layerOf[i]]++] = i;
+		}
+		key = new double[nodeCount];
+		sorted = new int[nodeCount];
+		buffer = new int[nodeCount];
+		indexOf = new int[nodeCount];
+		int maxLayerSize = 0;
+		for (int l = 0; l < layerCount; l++) {
+			int[] layer = layers[l];
+			for (int i = 0; i < layer.length; i++) {
+				key[layer[i]] = center[layer[i]];
+			}
+			sort(layer, layer.length);
+			for (int i = 0; i < layer.length; i++) {
+				indexOf[layer[i]] = i;
+			}
+			maxLayerSize = Math.max(maxLayerSize, layer.length);
+		}
+		tree = new int[maxLayerSize + 1];
+		bestCrossings = Double.MAX_VALUE;
+		keepIfBest();
+	}
+
+	/**
+	 * Depth-first search from the sources, then from the remaining nodes
+	 *
+	 * @return for each edge, true if it goes back to a node being explored
+	 */
+	private boolean[] breakCycles(int[] outStart, int[] out, int[] inDegree) {
+		boolean[] reversed = new boolean[out.length];
+		// 0: not visited, 1: being explored, 2: explored
+		int[] state = new int[n];
+		int[] stack = new int[n];
+		int[] cursor = new int[n];
+		for (int pass = 0; pass < 2; pass++) {
+			for (int root = 0; root < n; root++) {
+				if (state[root] != 0 || (pass == 0 && inDegree[root] > 0)) {
+					continue;
+				}
+				int top = 0;
+				stack[top++] = root;
+				state[root] = 1;
+				cursor[root] = outStart[root];
+				while (top > 0) {
+					int node = stack[top - 1];
+					if (cursor[node] == outStart[node + 1]) {
+						state[node] = 2;
+						top--;
+						continue;
+					}
+					int e = out[cursor[node]++];
+					int next = graph.getTarget(e);
+					if (state[next] == 1) {
+						reversed[e] = true;
+					} else if (state[next] == 0) {
+						state[next] = 1;
+						cursor[next] = outStart[next];
+						stack[top++] = next;
+					}
+				}
+			}
+		}
+		return reversed;
+	}
+
+	/**
+	 * Order each layer by the barycenter of the neighbours of its nodes in the
+	 * previous layer of the sweep. The nodes without such neighbours keep their place.
+	 */
+	private void sweep(boolean downwards) {
+		if (layers.length < 2) {
+			return;
+		}
+		int first = downwards ? 1 : layers.length - 2;
+		int last = downwards ? layers.length : -1;
+		int direction = downwards ? 1 : -1;
+		for (int l = first; l != last; l += direction) {
+			int[] layer = layers[l];
+			int[] neighbourStart = downwards ? upStart : downStart;
+			int[] neighbours = downwards ? up : down;
+			int movable = 0;
+			for (int i = 0; i < layer.length; i++) {
+				int node = layer[i];
+				int degree = neighbourStart[node + 1] - neighbourStart[node];
+				if (degree > 0) {
+					double sum = 0;
+					for (int j = neighbourStart[node]; j < neighbourStart[node + 1]; j++) {
+						sum += indexOf[neighbours[j]];
+					}
+					key[node] = sum / degree;
+					buffer[movable++] = node;
+				}
+			}
+			sort(buffer, movable);
+			int next = 0;
+			for (int i = 0; i < layer.length; i++) {
+				int node = layer[i];
+				if (neighbourStart[node + 1] > neighbourStart[node]) {
+					layer[i] = buffer[next++];
+				}
+				indexOf[layer[i]] = i;
+			}
+		}
+		keepIfBest();
+	}
+
+	private void keepIfBest() {
+		double crossings = 0;
+		for (int l = 0; l + 1 < layers.length; l++) {
+			crossings += countCrossings(layers[l], layers[l + 1].length);
+		}
+		if (crossings < bestCrossings) {
+			bestCrossings = crossings;
+			for (int l = 0; l < layers.length; l++) {
+				System.arraycopy(layers[l], 0, bestLayers[l], 0, layers[l].length);
+			}
+		}
+	}
+
+	/**
+	 * Count the crossings between a layer and the next one, by counting the inversions
+	 * of the segments with a binary indexed tree
+	 */
+	private double countCrossings(int[] layer, int nextSize) {
+		for (int i = 0; i <= nextSize; i++) {
+			tree[i] = 0;
+		}
+		double crossings = 0;
+		int inserted = 0;
+		for (int i = 0; i < layer.length; i++) {
+			int node = layer[i];
+			// Neighbours of the node, sorted by their index
+			int degree = 0;
+			for (int j = downStart[node]; j < downStart[node + 1]; j++) {
+				int index = indexOf[down[j]];
+				int k = degree++;
+				while (k > 0 && buffer[k - 1] > index) {
+					buffer[k] = buffer[k - 1];
+					k--;
+				}
+				buffer[k] = index;
+			}
+			for (int j = 0; j < degree; j++) {
+				int index = buffer[j] + 1;
+				int notAfter = 0;
+				for (int k = index; k > 0; k -= k & -k) {
+					notAfter += tree[k];
+				}
+				crossings += inserted - notAfter;
+				for (int k = index; k <= nextSize; k += k & -k) {
+					tree[k]++;
+				}
+				inserted++;
+			}
+		}
+		return crossings;
+	}
+
+	/**
+	 * Place the nodes of each layer as close as possible to the center of their
+	 * neighbours, keeping the order and the spacing of the layer, then write the
+	 * positions of the real nodes in the graph
+	 */
+	private void assignCoordinates() {
+		for (int[] layer : layers) {
+			double position = 0;
+			for (int i = 0; i < layer.length; i++) {
+				center[layer[i]] = position + breadth[layer[i]] / 2.0;
+				position += breadth[layer[i]] + nodeSpacing;
+			}
+		}
+		for (int pass = 0; pass < COORDINATE_PASSES; pass++) {
+			boolean downwards = pass % 2 == 0;
+			for (int l = 0; l < layers.length; l++) {
+				int[] layer = layers[downwards ? l : layers.length - 1 - l];
+				for (int i = 0; i < layer.length; i++) {
+					int node = layer[i];
+					double sum = 0;
+					int degree = 0;
+					for (int j = upStart[node]; j < upStart[node + 1]; j++) {
+						sum += center[up[j]];
+						degree++;
+					}
+					for (int j = downStart[node]; j < downStart[node + 1]; j++) {
+						sum += center[down[j]];
+						degree++;
+					}
+					key[node] = degree == 0 ? center[node] : sum / degree;
+				}
+				place(layer);
+			}
+		}
+
+		double minCenter = Double.MAX_VALUE;
+		for (int i = 0; i < n; i++) {
+			minCenter = Math.min(minCenter, center[i] - breadth[i] / 2.0);
+		}
+		int[] layerPosition = new int[layers.length];
+		int position = margin;
+		for (int l = 0; l < layers.length; l++) {
+			int layerThickness = 0;
+			for (int node : layers[l]) {
+				layerThickness = Math.max(layerThickness, thickness[node]);
+			}
+			layerPosition[l] = position + layerThickness / 2;
+			position += layerThickness + layerSpacing;
+		}
+		for (int i = 0; i < n; i++) {
+			int along = (int) Math.round(center[i] - breadth[i] / 2.0 - minCenter) + margin;
+			int across = layerPosition[layerOf[i]] - thickness[i] / 2;
+			if (leftToRight) {
+				graph.setPosition(i, across, along);
+			} else {
+				graph.setPosition(i, along, across);
+			}
+		}
+	}
+
+	/**
+	 * Move the centers of the nodes of a layer as close as possible to their keys,
+	 * in the least squares sense, keeping their order and the spacing. Removing the
+	 * spacing leaves an isotonic regression, solved by pooling the adjacent violators.
+	 */
+	private void place(int[] layer) {
+		int blocks = 0;
+		// Start, size and mean of each block of nodes moved together
+		int[] blockStart = buffer;
+		int[] blockSize = sorted;
+		double offset = 0;
+		for (int i = 0; i < layer.length; i++) {
+			if (i > 0) {
+				offset += (breadth[layer[i - 1]] + breadth[layer[i]]) / 2.0 + nodeSpacing;
+			}
+			// key - offset, stored in center until the end
+			center[layer[i]] = key[layer[i]] - offset;
+			blockStart[blocks] = i;
+			blockSize[blocks] = 1;
+			double mean = center[layer[i]];
+			blocks++;
+			while (blocks > 1) {
+				double previous = center[layer[blockStart[blocks - 2]]];
+				if (previous <= mean) {
+					break;
+				}
+				int size = blockSize[blocks - 2] + blockSize[blocks - 1];
+				mean = (previous * blockSize[blocks - 2] + mean * blockSize[blocks - 1]) / size;
+				blocks--;
+				blockSize[blocks - 1] = size;
+			}
+			center[layer[blockStart[blocks - 1]]] = mean;
+		}
+		offset = 0;
+		for (int b = 0; b < blocks; b++) {
+			double mean = center[layer[blockStart[b]]];
+			for (int i = blockStart[b]; i < blockStart[b] + blockSize[b]; i++) {
+				if (i > 0) {
+					offset += (breadth[layer[i - 1]] + breadth[layer[i]]) / 2.0 + nodeSpacing;
+				}
+				center[layer[i]] = mean + offset;
+			}
+		}
+	}
+
+	/**
+	 * Stable sort of the first nodes of an array by their key
+	 */
+	private void sort(int[] nodes, int length) {
+		for (int width = 1; width < length; width *= 2) {
+			for (int start = 0; start < length; start += 2 * width) {
+				int middle = Math.min(start + width, length);
+				int end = Math.min(start + 2 * width, length);
+				int i = start;
+				int j = middle;
+				for (int k = start; k < end; k++) {
+					if (j >= end || (i < middle && key[nodes[i]] <= key[nodes[j]])) {
+						sorted[k] = nodes[i++];
+					} else {
+						sorted[k] = nodes[j++];
+					}
+				}
+			}
+			System.arraycopy(sorted, 0, nodes, 0, length);
+		}
+	}
+
+	private static int[] copy(int[] array, int capacity) {
+		int[] result = new int[capacity];
+		System.arraycopy(array, 0, result, 0, Math.min(array.length, capacity));
+		return result;
+	}
+
+}
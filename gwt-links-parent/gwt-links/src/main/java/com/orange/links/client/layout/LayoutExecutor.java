@@ -0,0 +1,22 @@
+package com.orange.links.client.layout;
+
+/**
+ * Runs the layouts started by the controller. The executor decides when the steps
+ * of a layout are done: in slices between the events of the page, or at once.
+ * <br/>
+ * Only one layout runs at a time: starting a layout cancels the previous one.
+ */
+public interface LayoutExecutor {
+
+	/**
+	 * Run a layout on a graph. The new positions are written in the graph before
+	 * {@link DiagramLayoutCallback#onLaidOut()} is called.
+	 */
+	public void execute(DiagramLayout layout, LayoutGraph graph, DiagramLayoutCallback callback);
+
+	/**
+	 * Stop the running layout, if any, and call its
+	 * {@link DiagramLayoutCallback#onCancelled()}
+	 */
+	public void cancel();
+}
@@ -0,0 +1,108 @@
+package com.orange.links.client.layout;
+
+/**
+ * Graph handed to a {@link DiagramLayout}: the boxes of the widgets and the
+ * connections between them, with compact integer ids from 0 to the number of
+ * nodes or of edges. The layout writes the new positions of the boxes in it.
+ */
+public class LayoutGraph {
+
+	private int[] left = new int[16];
+	private int[] top = new int[16];
+	private int[] width = new int[16];
+	private int[] height = new int[16];
+	private int nodeCount = 0;
+
+	private int[] source = new int[16];
+	private int[] target = new int[16];
+	private int edgeCount = 0;
+
+	/**
+	 * Add a box
+	 *
+	 * @return the id of the node
+	 */
+	public int addNode(int left, int top, int width, int height) {
+		if (nodeCount == this.left.length) {
+			int capacity = nodeCount * 2;
+			this.left = copy(this.left, capacity);
+			this.top = copy(this.top, capacity);
+			this.width = copy(this.width, capacity);
+			this.height = copy(this.height, capacity);
+		}
+		this.left[nodeCount] = left;
+		this.top[nodeCount] = top;
+		this.width[nodeCount] = width;
+		this.height[nodeCount] = height;
+		return nodeCount++;
+	}
+
+	/**
+	 * Add an edge from a node to another one
+	 *
+	 * @return the id of the edge
+	 */
+	public int addEdge(int sourceNode, int targetNode) {
+		checkNode(sourceNode);
+		checkNode(targetNode);
+		if (edgeCount == source.length) {
+			int capacity = edgeCount * 2;
+			source = copy(source, capacity);
+			target = copy(target, capacity);
+		}
+		source[edgeCount] = sourceNode;
+		target[edgeCount] = targetNode;
+		return edgeCount++;
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	public int getLeft(int node) {
+		return left[node];
+	}
+
+	public int getTop(int node) {
+		return top[node];
+	}
+
+	public int getWidth(int node) {
+		return width[node];
+	}
+
+	public int getHeight(int node) {
+		return height[node];
+	}
+
+	public void setPosition(int node, int left, int top) {
+		checkNode(node);
+		this.left[node] = left;
+		this.top[node] = top;
+	}
+
+	public int getSource(int edge) {
+		return source[edge];
+	}
+
+	public int getTarget(int edge) {
+		return target[edge];
+	}
+
+	private void checkNode(int node) {
+		if (node < 0 || node >= nodeCount) {
+			throw new IllegalArgumentException("No node " + node);
+		}
+	}
+
+	private static int[] copy(int[] array, int capacity) {
+		int[] result = new int[capacity];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
+	}
+
+}
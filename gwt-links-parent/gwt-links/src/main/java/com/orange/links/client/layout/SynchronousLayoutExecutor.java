@@ -0,0 +1,22 @@
+package com.orange.links.client.layout;
+
+/**
+ * Runs each layout at once, for the diagrams small enough or outside of a page, in
+ * the tests and the benchmarks for example
+ */
+public class SynchronousLayoutExecutor implements LayoutExecutor {
+
+	@Override
+	public void execute(DiagramLayout layout, LayoutGraph graph, DiagramLayoutCallback callback) {
+		layout.start(graph);
+		while (layout.step()) {
+		}
+		callback.onProgress(1);
+		callback.onLaidOut();
+	}
+
+	@Override
+	public void cancel() {
+	}
+
+}
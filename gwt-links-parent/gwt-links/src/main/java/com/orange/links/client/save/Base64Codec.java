@@ -0,0 +1,77 @@
+package com.orange.links.client.save;
+
+/**
+ * Base64 encoding of byte arrays (RFC 4648 alphabet, with padding), available on the
+ * client side where java.util.Base64 is not emulated.
+ */
+public class Base64Codec {
+
+	private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+			.toCharArray();
+	private static final int[] VALUES = new int[128];
+
+	static {
+		for (int i = 0; i < VALUES.length; i++) {
+			VALUES[i] = -1;
+		}
+		for (int i = 0; i < ALPHABET.length; i++) {
+			VALUES[ALPHABET[i]] = i;
+		}
+	}
+
+	private Base64Codec() {
+	}
+
+	public static String encode(byte[] bytes, int length) {
+		StringBuilder sb = new StringBuilder((length + 2) / 3 * 4);
+		int i = 0;
+		for (; i + 2 < length; i += 3) {
+			int b = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff);
+			sb.append(ALPHABET[b >>> 18]).append(ALPHABET[(b >>> 12) & 63]).append(ALPHABET[(b >>> 6) & 63])
+					.append(ALPHABET[b & 63]);
+		}
+		int remaining = length - i;
+		if (remaining == 1) {
+			int b = (bytes[i] & 0xff) << 16;
+			sb.append(ALPHABET[b >>> 18]).append(ALPHABET[(b >>> 12) & 63]).append("==");
+		} else if (remaining == 2) {
+			int b = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8;
+			sb.append(ALPHABET[b >>> 18]).append(ALPHABET[(b >>> 12) & 63]).append(ALPHABET[(b >>> 6) & 63])
+					.append('=');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if the text is not valid base64
+	 */
+	public static byte[] decode(String text) {
+		int length = text.length();
+		while (length > 0 && text.charAt(length - 1) == '=') {
+			length--;
+		}
+		if (length % 4 == 1) {
+			throw new IllegalArgumentException("Invalid base64 length");
+		}
+		byte[] bytes = new byte[length * 3 / 4];
+		int buffer = 0;
+		int bits = 0;
+		int j = 0;
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			int value = c < VALUES.length ? VALUES[c] : -1;
+			if (value < 0) {
+				throw new IllegalArgumentException("Invalid base64 character at position " + i);
+			}
+			buffer = (buffer << 6) | value;
+			bits += 6;
+			if (bits >= 8) {
+				bits -= 8;
+				bytes[j++] = (byte) (buffer >>> bits);
+			}
+		}
+		return bytes;
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.orange.links.client.save;
+
+/**
+ * Read the values written by {@link BinaryOutput}
+ */
+class BinaryInput {
+
+	private final byte[] bytes;
+	private int position = 0;
+
+	BinaryInput(byte[] bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Check the magic bytes at the beginning of the input, and skip them
+	 */
+	boolean readMagic(byte[] magic) {
+		if (bytes.length < magic.length) {
+			return false;
+		}
+		for (int i = 0; i < magic.length; i++) {
+			if (bytes[i] != magic[i]) {
+				return false;
+			}
+		}
+		position = magic.length;
+		return true;
+	}
+
+	int readVarint() {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			if (position >= bytes.length) {
+				throw malformed();
+			}
+			byte b = bytes[position++];
+			value |= (b & 0x7f) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw malformed();
+	}
+
+	int readSignedVarint() {
+		int value = readVarint();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Read the number of the elements which follow, each of them taking at least one byte
+	 */
+	int readCount() {
+		int count = readVarint();
+		if (count < 0 || count > bytes.length - position) {
+			throw malformed();
+		}
+		return count;
+	}
+
+	/**
+	 * Read a string written as its length plus one, 0 standing for null, followed by
+	 * its characters
+	 */
+	String readString() {
+		int length = readVarint();
+		if (length == 0) {
+			return null;
+		}
+		if (length < 0 || length - 1 > bytes.length - position) {
+			throw malformed();
+		}
+		StringBuilder sb = new StringBuilder(length - 1);
+		for (int i = 1; i < length; i++) {
+			sb.append((char) readVarint());
+		}
+		return sb.toString();
+	}
+
+	IllegalArgumentException malformed() {
+		return new IllegalArgumentException("Malformed binary export at position " + position);
+	}
+
+}
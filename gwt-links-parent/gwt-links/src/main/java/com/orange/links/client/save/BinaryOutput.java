@@ -0,0 +1,76 @@
+package com.orange.links.client.save;
+
+/**
+ * Growable byte buffer used by the binary formats. Integers are written as
+ * varints, signed ones zigzag encoded.
+ */
+class BinaryOutput {
+
+	private byte[] buffer;
+	private int length;
+
+	BinaryOutput(int initialCapacity) {
+		buffer = new byte[Math.max(16, initialCapacity)];
+	}
+
+	void writeByte(byte b) {
+		ensureCapacity(1);
+		buffer[length++] = b;
+	}
+
+	void writeVarint(int value) {
+		ensureCapacity(5);
+		while ((value & ~0x7f) != 0) {
+			buffer[length++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		buffer[length++] = (byte) value;
+	}
+
+	void writeSignedVarint(int value) {
+		writeVarint((value << 1) ^ (value >> 31));
+	}
+
+	/**
+	 * Write a string which may be null, its length first then its characters
+	 */
+	void writeString(String s) {
+		if (s == null) {
+			writeVarint(0);
+			return;
+		}
+		writeVarint(s.length() + 1);
+		for (int i = 0; i < s.length(); i++) {
+			writeVarint(s.charAt(i));
+		}
+	}
+
+	void write(BinaryOutput other) {
+		ensureCapacity(other.length);
+		System.arraycopy(other.buffer, 0, buffer, length, other.length);
+		length += other.length;
+	}
+
+	int length() {
+		return length;
+	}
+
+	byte[] toByteArray() {
+		byte[] bytes = new byte[length];
+		System.arraycopy(buffer, 0, bytes, 0, length);
+		return bytes;
+	}
+
+	String toBase64() {
+		return Base64Codec.encode(buffer, length);
+	}
+
+	private void ensureCapacity(int extra) {
+		if (length + extra > buffer.length) {
+			byte[] grown = new byte[Math.max(buffer.length * 2, length + extra)];
+			System.arraycopy(buffer, 0, grown, 0, length);
+			buffer = grown;
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.orange.links.client.save;
+
+/**
+ * Read the binary exports written by {@link DiagramBinaryWriter}.
+ */
+public class DiagramBinaryReader {
+
+	private final BinaryInput in;
+	private String[] strings;
+
+	public DiagramBinaryReader(String base64) {
+		this(Base64Codec.decode(base64));
+	}
+
+	public DiagramBinaryReader(byte[] bytes) {
+		this.in = new BinaryInput(bytes);
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if the export is malformed or written by an unknown version
+	 */
+	public DiagramModel read() {
+		if (!in.readMagic(DiagramBinaryWriter.MAGIC)) {
+			throw new IllegalArgumentException("Not a binary diagram export");
+		}
+		int version = in.readVarint();
+		if (version != DiagramBinaryWriter.VERSION) {
+			throw new IllegalArgumentException("Unsupported binary diagram export version " + version);
+		}
+
+		// String table
+		strings = new String[in.readCount() + 1];
+		for (int i = 1; i < strings.length; i++) {
+			strings[i] = in.readString();
+		}
+
+		DiagramModel model = new DiagramModel();
+		model.setDiagramProperties(in.readVarint(), in.readVarint(), in.readVarint() != 0);
+
+		int functions = in.readCount();
+		for (int i = 0; i < functions; i++) {
+			FunctionModel function = new FunctionModel();
+			function.id = readString();
+			function.identifier = readString();
+			function.content = readString();
+			function.left = in.readSignedVarint();
+			function.top = in.readSignedVarint();
+			model.addFunction(function);
+		}
+
+		int links = in.readCount();
+		for (int i = 0; i < links; i++) {
+			LinkModel link = new LinkModel();
+			link.startId = readString();
+			link.endId = readString();
+			link.type = readString();
+			if (in.readVarint() != 0) {
+				link.decoration = new DecorationModel();
+				link.decoration.identifier = readString();
+				link.decoration.content = readString();
+			}
+			link.pointList = readPoints(in);
+			model.addLink(link);
+		}
+		return model;
+	}
+
+	/**
+	 * Read the points written by {@link DiagramBinaryWriter#writePoints(BinaryOutput, int[][])}
+	 */
+	static int[][] readPoints(BinaryInput in) {
+		int[][] points = new int[in.readCount()][];
+		int x = 0;
+		int y = 0;
+		for (int j = 0; j < points.length; j++) {
+			x += in.readSignedVarint();
+			y += in.readSignedVarint();
+			points[j] = new int[] { x, y };
+		}
+		return points;
+	}
+
+	private String readString() {
+		int index = in.readVarint();
+		if (index < 0 || index >= strings.length) {
+			throw in.malformed();
+		}
+		return index == DiagramBinaryWriter.NULL_STRING ? null : strings[index];
+	}
+
+}
@@ -0,0 +1,134 @@
+package com.orange.links.client.save;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write the compact binary export of a diagram.
+ *
+ * The export starts with {@link #MAGIC} and {@link #VERSION}, then the table of all
+ * the strings of the diagram (ids, identifiers, contents...), each of them being
+ * written once and referenced by its index afterwards. Integers are written as
+ * varints, signed ones zigzag encoded, and the movable points of a link are written
+ * as deltas from the previous point.
+ *
+ * The export can be read back with {@link DiagramBinaryReader}.
+ */
+public class DiagramBinaryWriter {
+
+	public static final byte[] MAGIC = { 'G', 'L' };
+	public static final int VERSION = 1;
+
+	static final int NULL_STRING = 0;
+
+	private final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+	private final List<String> strings = new ArrayList<String>();
+
+	private BinaryOutput out;
+
+	public DiagramBinaryWriter() {
+		this(1024);
+	}
+
+	/**
+	 * @param initialCapacity
+	 *            initial size of the buffer, in bytes
+	 */
+	public DiagramBinaryWriter(int initialCapacity) {
+		out = new BinaryOutput(initialCapacity);
+	}
+
+	/**
+	 * Write a whole diagram
+	 */
+	public DiagramBinaryWriter write(DiagramModel diagram) {
+		// The body is written first to build the string table
+		BinaryOutput body = out;
+		body.writeVarint(diagram.getWidth());
+		body.writeVarint(diagram.getHeight());
+		body.writeVarint(diagram.isHasGrid() ? 1 : 0);
+
+		body.writeVarint(diagram.getFunctionRepresentationSet().size());
+		for (FunctionModel function : diagram.getFunctionRepresentationSet()) {
+			writeString(function.id);
+			writeString(function.identifier);
+			writeString(function.content);
+			body.writeSignedVarint(function.left);
+			body.writeSignedVarint(function.top);
+		}
+
+		body.writeVarint(diagram.getLinkRepresentationSet().size());
+		for (LinkModel link : diagram.getLinkRepresentationSet()) {
+			writeString(link.startId);
+			writeString(link.endId);
+			writeString(link.type);
+			if (link.decoration == null) {
+				body.writeVarint(0);
+			} else {
+				body.writeVarint(1);
+				writeString(link.decoration.identifier);
+				writeString(link.decoration.content);
+			}
+			writePoints(body, link.pointList);
+		}
+
+		// Header and string table, followed by the body
+		out = new BinaryOutput(body.length() + 64);
+		out.writeByte(MAGIC[0]);
+		out.writeByte(MAGIC[1]);
+		out.writeVarint(VERSION);
+		out.writeVarint(strings.size());
+		for (String s : strings) {
+			out.writeString(s);
+		}
+		out.write(body);
+		return this;
+	}
+
+	/**
+	 * @return a copy of the written bytes
+	 */
+	public byte[] toByteArray() {
+		return out.toByteArray();
+	}
+
+	/**
+	 * @return the written bytes, base64 encoded
+	 */
+	public String toString() {
+		return out.toBase64();
+	}
+
+	/**
+	 * Write the number of points, then each point as a delta from the previous one
+	 */
+	static void writePoints(BinaryOutput out, int[][] pointList) {
+		int[][] points = pointList == null ? new int[0][] : pointList;
+		out.writeVarint(points.length);
+		int x = 0;
+		int y = 0;
+		for (int[] p : points) {
+			out.writeSignedVarint(p[0] - x);
+			out.writeSignedVarint(p[1] - y);
+			x = p[0];
+			y = p[1];
+		}
+	}
+
+	private void writeString(String s) {
+		if (s == null) {
+			out.writeVarint(NULL_STRING);
+			return;
+		}
+		Integer index = stringIndexes.get(s);
+		if (index == null) {
+			strings.add(s);
+			index = strings.size();
+			stringIndexes.put(s, index);
+		}
+		out.writeVarint(index);
+	}
+
+}
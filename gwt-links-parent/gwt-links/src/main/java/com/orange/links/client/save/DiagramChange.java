@@ -0,0 +1,70 @@
+package com.orange.links.client.save;
+
+/**
+ * A modification of a diagram, recorded by a {@link DiagramJournal}.
+ *
+ * The functions are referenced by their ids, the links by the ids of their start
+ * and end functions. The fields used depend on the type of the change.
+ */
+public class DiagramChange {
+
+	public static enum Type {
+		/** All the functions and links have been removed */
+		CLEAR,
+		/** Function id added at left, top, with identifier and content */
+		ADD_FUNCTION,
+		/** Function id removed, with its links */
+		REMOVE_FUNCTION,
+		/** Function id moved to left, top */
+		MOVE_FUNCTION,
+		/** Link from id to endId tied, identifier being its type */
+		TIE_LINK,
+		/** Link from id to endId untied */
+		UNTIE_LINK,
+		/** Movable points of the link from id to endId replaced by pointList */
+		SET_POINTS,
+		/** Decoration of the link from id to endId replaced, removed if identifier is null */
+		SET_DECORATION
+	}
+
+	public Type type;
+	public int revision;
+	public String id;
+	public String endId;
+	public String identifier;
+	public String content;
+	public int left;
+	public int top;
+	public int[][] pointList;
+
+	public DiagramChange() {
+	}
+
+	public DiagramChange(Type type, String id) {
+		this.type = type;
+		this.id = id;
+	}
+
+	public DiagramChange(Type type, String startId, String endId) {
+		this.type = type;
+		this.id = startId;
+		this.endId = endId;
+	}
+
+	/**
+	 *
+	 * @return true if this change and the other one modify the same property of the
+	 *         same element, so that only the last one has to be kept
+	 */
+	boolean replaces(DiagramChange other) {
+		if (type != other.type || !equal(id, other.id) || !equal(endId, other.endId)) {
+			return false;
+		}
+		return type == Type.MOVE_FUNCTION || type == Type.SET_POINTS || type == Type.SET_DECORATION;
+	}
+
+	private static boolean equal(String s1, String s2) {
+		return s1 == null ? s2 == null : s1.equals(s2);
+	}
+
+}
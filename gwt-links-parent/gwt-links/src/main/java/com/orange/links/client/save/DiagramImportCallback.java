@@ -0,0 +1,31 @@
+package com.orange.links.client.save;
+
+/**
+ * Follow an import of a diagram done in several slices
+ */
+public interface DiagramImportCallback {
+
+	/**
+	 * Called after each slice of the import
+	 * 
+	 * @param progress
+	 *            part of the import already done, between 0 and 1
+	 */
+	public void onProgress(double progress);
+
+	/**
+	 * Called once the whole diagram has been imported
+	 */
+	public void onImported();
+
+	/**
+	 * Called if the import has been aborted, for example by a malformed document
+	 */
+	public void onFailure(Throwable caught);
+
+	/**
+	 * Called if the import has been replaced by another one, or the diagram cleared,
+	 * before it was done
+	 */
+	public void onCancelled();
+}
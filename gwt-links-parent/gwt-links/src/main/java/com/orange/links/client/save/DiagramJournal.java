@@ -0,0 +1,114 @@
+package com.orange.links.client.save;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Journal of the changes done on a diagram.
+ *
+ * Each recorded change increments the revision of the diagram. The changes done
+ * since a revision are exported as a {@link DiagramPatch}, so that saving a diagram
+ * costs as much as the edits done since the last save, whatever its size. The
+ * changes already saved are dropped with {@link #discardUntil(int)}.
+ */
+public class DiagramJournal {
+
+	private final List<DiagramChange> changes = new ArrayList<DiagramChange>();
+	private int revision = 0;
+	private int baseRevision = 0;
+	private boolean recording = true;
+
+	/**
+	 * Record a change, unless the recording is paused. A change replacing the
+	 * previous one, such as two moves of the same function, takes its place.
+	 */
+	public void record(DiagramChange change) {
+		if (!recording) {
+			return;
+		}
+		change.revision = ++revision;
+		int last = changes.size() - 1;
+		if (last >= 0 && change.replaces(changes.get(last))) {
+			changes.set(last, change);
+		} else {
+			changes.add(change);
+		}
+	}
+
+	public int getRevision() {
+		return revision;
+	}
+
+	/**
+	 *
+	 * @return the oldest revision changes can be exported from
+	 */
+	public int getBaseRevision() {
+		return baseRevision;
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if the changes done since this revision have been discarded
+	 */
+	public DiagramPatch getPatch(int sinceRevision) {
+		if (sinceRevision < baseRevision || sinceRevision > revision) {
+			throw new IllegalArgumentException("No change recorded since revision " + sinceRevision
+					+ ", the journal starts at revision " + baseRevision);
+		}
+		List<DiagramChange> patchChanges = new ArrayList<DiagramChange>();
+		for (int i = firstChangeAfter(sinceRevision); i < changes.size(); i++) {
+			patchChanges.add(changes.get(i));
+		}
+		return new DiagramPatch(sinceRevision, revision, patchChanges);
+	}
+
+	/**
+	 * Drop the changes up to a revision, once they have been saved
+	 */
+	public void discardUntil(int revision) {
+		int newBase = Math.min(revision, this.revision);
+		if (newBase <= baseRevision) {
+			return;
+		}
+		changes.subList(0, firstChangeAfter(newBase)).clear();
+		baseRevision = newBase;
+	}
+
+	/**
+	 * Drop all the changes and start again at the given revision, for example once
+	 * a diagram has been imported
+	 */
+	public void reset(int revision) {
+		changes.clear();
+		this.revision = revision;
+		this.baseRevision = revision;
+	}
+
+	/**
+	 * Pause or resume the recording, for example while a patch is applied
+	 */
+	public void setRecording(boolean recording) {
+		this.recording = recording;
+	}
+
+	public boolean isRecording() {
+		return recording;
+	}
+
+	private int firstChangeAfter(int revision) {
+		// The revisions are increasing, search the first one greater than the given one
+		int low = 0;
+		int high = changes.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (changes.get(middle).revision <= revision) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+}
@@ -1,13 +1,19 @@
 package com.orange.links.client.save;
 
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import com.google.gwt.user.client.rpc.IsSerializable;
 import com.google.gwt.user.client.ui.Widget;
 import com.orange.links.client.connection.Connection;
+import com.orange.links.client.connection.OrthogonalConnection;
 import com.orange.links.client.connection.StraightConnection;
 import com.orange.links.client.utils.WidgetUtils;
 
@@ -26,6 +32,11 @@ public class DiagramModel implements IsSerializable{
 	// Links
 	private Set<LinkModel> linkRepresentationSet;
 
+	// Indexes, dropped when the sets are modified through their getters
+	private transient Map<String,FunctionModel> functionsById;
+	private transient Map<String,Widget> widgetsById;
+	private transient Map<String,List<LinkModel>> startingLinks;
+	private transient Map<String,List<LinkModel>> incomingLinks;
 
 	public DiagramModel(){
 		functionRepresentationSet = new HashSet<FunctionModel>();
@@ -40,8 +51,15 @@ public class DiagramModel implements IsSerializable{
 	}
 
 	public void addFunction(Widget functionWidget){
+		addFunction(functionWidget, ++id + "");
+	}
+	
+	/**
+	 * Add a function with a given id, for example the one kept by the controller
+	 */
+	public void addFunction(Widget functionWidget, String functionId){
 		FunctionModel function = new FunctionModel();
-		function.id = ++id + "";
+		function.id = functionId;
 		function.top = WidgetUtils.getTop(functionWidget);
 		function.left = WidgetUtils.getLeft(functionWidget);
 		try{
@@ -51,40 +69,56 @@ public class DiagramModel implements IsSerializable{
 		catch(ClassCastException e){
 			throw new IllegalArgumentException("Widgets must implement the interface Savable to be saved");
 		}
-		functionRepresentationSet.add(function);
+		addFunction(function);
 		functionWidgetMap.put(functionWidget,function.id);
+		widgetsById.put(function.id, functionWidget);
 	}
 	
 	public Widget getFunctionById(String id){
-		for(Widget w : functionWidgetMap.keySet()){
-			if(functionWidgetMap.get(w).equals(id))
-				return w;
-		}
-		return null;
+		checkIndexes();
+		return widgetsById.get(id);
+	}
+	
+	/**
+	 * 
+	 * @return the function with the given id, or null
+	 */
+	public FunctionModel getFunction(String id){
+		checkIndexes();
+		return functionsById.get(id);
 	}
 	
 	public int getNumberOfStartingLinks(Widget widget){
-		String id = functionWidgetMap.get(widget);
-		int numberOfStartingLinks = 0;
-		for(LinkModel link : linkRepresentationSet){
-			if(link.startId.equals(id))
-				numberOfStartingLinks++;
-		}
-		return numberOfStartingLinks;
+		return getStartingLinks(functionWidgetMap.get(widget)).size();
 	}
 	
 	public int getNumberOfIncomingLinks(Widget widget){
-		String id = functionWidgetMap.get(widget);
-		int numberOfIncomingLinks = 0;
-		for(LinkModel link : linkRepresentationSet){
-			if(link.endId.equals(id))
-				numberOfIncomingLinks++;
-		}
-		return numberOfIncomingLinks;
+		return getIncomingLinks(functionWidgetMap.get(widget)).size();
+	}
+	
+	/**
+	 * 
+	 * @return the links starting from the function with the given id
+	 */
+	public List<LinkModel> getStartingLinks(String functionId){
+		checkIndexes();
+		return linksOf(startingLinks, functionId);
+	}
+	
+	/**
+	 * 
+	 * @return the links ending on the function with the given id
+	 */
+	public List<LinkModel> getIncomingLinks(String functionId){
+		checkIndexes();
+		return linksOf(incomingLinks, functionId);
 	}
 	
 	public void addFunction(FunctionModel functionRepresentation){
-		functionRepresentationSet.add(functionRepresentation);
+		checkIndexes();
+		if(functionRepresentationSet.add(functionRepresentation)){
+			indexFunction(functionRepresentation);
+		}
 	}
 	
 	public void addLink(Widget startWidget,Widget endWidget,
@@ -106,16 +140,67 @@ public class DiagramModel implements IsSerializable{
 			}
 			link.decoration = decoration;
 		}
-		if(c instanceof StraightConnection){
+		if(c instanceof OrthogonalConnection){
+			link.type = "orthogonal";
+		} else if(c instanceof StraightConnection){
 			link.type = "straight";
 		} else {
 			link.type = "straightarrow";
 		}
-		linkRepresentationSet.add(link);
+		addLink(link);
 	}
 	
 	public void addLink(LinkModel linkRepresentation){
-		linkRepresentationSet.add(linkRepresentation);
+		checkIndexes();
+		if(linkRepresentationSet.add(linkRepresentation)){
+			indexLink(linkRepresentation);
+		}
+	}
+	
+	/**
+	 * Rebuild the indexes if the sets of functions and links have been modified
+	 * through their getters, or after a deserialization
+	 */
+	private void checkIndexes(){
+		if(functionsById != null){
+			return;
+		}
+		functionsById = new HashMap<String, FunctionModel>();
+		widgetsById = new HashMap<String, Widget>();
+		startingLinks = new HashMap<String, List<LinkModel>>();
+		incomingLinks = new HashMap<String, List<LinkModel>>();
+		for(FunctionModel function : functionRepresentationSet){
+			indexFunction(function);
+		}
+		for(Map.Entry<Widget,String> entry : functionWidgetMap.entrySet()){
+			widgetsById.put(entry.getValue(), entry.getKey());
+		}
+		for(LinkModel link : linkRepresentationSet){
+			indexLink(link);
+		}
+	}
+	
+	private void indexFunction(FunctionModel function){
+		functionsById.put(function.id, function);
+	}
+	
+	private void indexLink(LinkModel link){
+		addToIndex(startingLinks, link.startId, link);
+		addToIndex(incomingLinks, link.endId, link);
+	}
+	
+	private static void addToIndex(Map<String,List<LinkModel>> index, String id, LinkModel link){
+		List<LinkModel> links = index.get(id);
+		if(links == null){
+			links = new ArrayList<LinkModel>(2);
+			index.put(id, links);
+		}
+		links.add(link);
+	}
+	
+	private static List<LinkModel> linksOf(Map<String,List<LinkModel>> index, String id){
+		List<LinkModel> links = id == null ? null : index.get(id);
+		return links == null ? Collections.<LinkModel>emptyList() : Collections.unmodifiableList(links);
 	}
 
 	public int getWidth() {
@@ -142,12 +227,88 @@ public class DiagramModel implements IsSerializable{
 		this.hasGrid = hasGrid;
 	}
 
+	/**
+	 * 
+	 * @return a view of the functions, modifying it drops the indexes
+	 */
 	public Set<FunctionModel> getFunctionRepresentationSet() {
-		return functionRepresentationSet;
+		return new IndexedSet<FunctionModel>(functionRepresentationSet);
 	}
 
+	/**
+	 * 
+	 * @return a view of the links, modifying it drops the indexes
+	 */
 	public Set<LinkModel> getLinkRepresentationSet() {
-		return linkRepresentationSet;
+		return new IndexedSet<LinkModel>(linkRepresentationSet);
+	}
+	
+	private void invalidateIndexes(){
+		functionsById = null;
+	}
+	
+	/**
+	 * Set delegating to one of the sets of the model, and dropping the indexes
+	 * each time an element is added or removed
+	 */
+	private class IndexedSet<T> extends AbstractSet<T>{
+		
+		private final Set<T> set;
+		
+		IndexedSet(Set<T> set){
+			this.set = set;
+		}
+		
+		@Override
+		public Iterator<T> iterator(){
+			final Iterator<T> iterator = set.iterator();
+			return new Iterator<T>(){
+				public boolean hasNext(){
+					return iterator.hasNext();
+				}
+				public T next(){
+					return iterator.next();
+				}
+				public void remove(){
+					iterator.remove();
+					invalidateIndexes();
+				}
+			};
+		}
+		
+		@Override
+		public int size(){
+			return set.size();
+		}
+		
+		@Override
+		public boolean contains(Object o){
+			return set.contains(o);
+		}
+		
+		@Override
+		public boolean add(T e){
+			if(!set.add(e)){
+				return false;
+			}
+			invalidateIndexes();
+			return true;
+		}
+		
+		@Override
+		public boolean remove(Object o){
+			if(!set.remove(o)){
+				return false;
+			}
+			invalidateIndexes();
+			return true;
+		}
+		
+		@Override
+		public void clear(){
+			set.clear();
+			invalidateIndexes();
+		}
 	}
 
 }
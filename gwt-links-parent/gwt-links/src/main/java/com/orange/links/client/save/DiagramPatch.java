@@ -0,0 +1,49 @@
+package com.orange.links.client.save;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The changes which bring a diagram from a base revision to a newer one
+ */
+public class DiagramPatch {
+
+	private final int baseRevision;
+	private final int revision;
+	private final List<DiagramChange> changes;
+
+	public DiagramPatch(int baseRevision, int revision) {
+		this(baseRevision, revision, new ArrayList<DiagramChange>());
+	}
+
+	public DiagramPatch(int baseRevision, int revision, List<DiagramChange> changes) {
+		this.baseRevision = baseRevision;
+		this.revision = revision;
+		this.changes = changes;
+	}
+
+	/**
+	 *
+	 * @return revision of the diagram the patch applies to
+	 */
+	public int getBaseRevision() {
+		return baseRevision;
+	}
+
+	/**
+	 *
+	 * @return revision of the diagram once the patch is applied
+	 */
+	public int getRevision() {
+		return revision;
+	}
+
+	public List<DiagramChange> getChanges() {
+		return changes;
+	}
+
+	public boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+}
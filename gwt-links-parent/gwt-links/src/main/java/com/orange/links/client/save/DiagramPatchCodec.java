@@ -0,0 +1,146 @@
+package com.orange.links.client.save;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.orange.links.client.save.DiagramChange.Type;
+
+/**
+ * Binary encoding of the patches, base64 wrapped like the binary exports of the
+ * diagrams: {@link #MAGIC}, {@link #VERSION}, the base revision, the revision, then
+ * the changes with only the fields used by their type.
+ */
+class DiagramPatchCodec {
+
+	static final byte[] MAGIC = { 'G', 'P' };
+	static final int VERSION = 1;
+
+	private static final Type[] TYPES = Type.values();
+
+	private DiagramPatchCodec() {
+	}
+
+	static String write(DiagramPatch patch) {
+		BinaryOutput out = new BinaryOutput(64 + 16 * patch.getChanges().size());
+		out.writeByte(MAGIC[0]);
+		out.writeByte(MAGIC[1]);
+		out.writeVarint(VERSION);
+		out.writeVarint(patch.getBaseRevision());
+		out.writeVarint(patch.getRevision());
+		out.writeVarint(patch.getChanges().size());
+		for (DiagramChange change : patch.getChanges()) {
+			out.writeVarint(change.type.ordinal());
+			out.writeVarint(change.revision);
+			switch (change.type) {
+			case CLEAR:
+				break;
+			case ADD_FUNCTION:
+				out.writeString(change.id);
+				out.writeString(change.identifier);
+				out.writeString(change.content);
+				out.writeSignedVarint(change.left);
+				out.writeSignedVarint(change.top);
+				break;
+			case REMOVE_FUNCTION:
+				out.writeString(change.id);
+				break;
+			case MOVE_FUNCTION:
+				out.writeString(change.id);
+				out.writeSignedVarint(change.left);
+				out.writeSignedVarint(change.top);
+				break;
+			case TIE_LINK:
+				out.writeString(change.id);
+				out.writeString(change.endId);
+				out.writeString(change.identifier);
+				break;
+			case UNTIE_LINK:
+				out.writeString(change.id);
+				out.writeString(change.endId);
+				break;
+			case SET_POINTS:
+				out.writeString(change.id);
+				out.writeString(change.endId);
+				DiagramBinaryWriter.writePoints(out, change.pointList);
+				break;
+			case SET_DECORATION:
+				out.writeString(change.id);
+				out.writeString(change.endId);
+				out.writeString(change.identifier);
+				out.writeString(change.content);
+				break;
+			}
+		}
+		return out.toBase64();
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if the patch is malformed or written by an unknown version
+	 */
+	static DiagramPatch read(String base64) {
+		BinaryInput in = new BinaryInput(Base64Codec.decode(base64));
+		if (!in.readMagic(MAGIC)) {
+			throw new IllegalArgumentException("Not a diagram patch");
+		}
+		int version = in.readVarint();
+		if (version != VERSION) {
+			throw new IllegalArgumentException("Unsupported diagram patch version " + version);
+		}
+		int baseRevision = in.readVarint();
+		int revision = in.readVarint();
+		int count = in.readCount();
+		List<DiagramChange> changes = new ArrayList<DiagramChange>(count);
+		for (int i = 0; i < count; i++) {
+			int type = in.readVarint();
+			if (type < 0 || type >= TYPES.length) {
+				throw in.malformed();
+			}
+			DiagramChange change = new DiagramChange();
+			change.type = TYPES[type];
+			change.revision = in.readVarint();
+			switch (change.type) {
+			case CLEAR:
+				break;
+			case ADD_FUNCTION:
+				change.id = in.readString();
+				change.identifier = in.readString();
+				change.content = in.readString();
+				change.left = in.readSignedVarint();
+				change.top = in.readSignedVarint();
+				break;
+			case REMOVE_FUNCTION:
+				change.id = in.readString();
+				break;
+			case MOVE_FUNCTION:
+				change.id = in.readString();
+				change.left = in.readSignedVarint();
+				change.top = in.readSignedVarint();
+				break;
+			case TIE_LINK:
+				change.id = in.readString();
+				change.endId = in.readString();
+				change.identifier = in.readString();
+				break;
+			case UNTIE_LINK:
+				change.id = in.readString();
+				change.endId = in.readString();
+				break;
+			case SET_POINTS:
+				change.id = in.readString();
+				change.endId = in.readString();
+				change.pointList = DiagramBinaryReader.readPoints(in);
+				break;
+			case SET_DECORATION:
+				change.id = in.readString();
+				change.endId = in.readString();
+				change.identifier = in.readString();
+				change.content = in.readString();
+				break;
+			}
+			changes.add(change);
+		}
+		return new DiagramPatch(baseRevision, revision, changes);
+	}
+
+}
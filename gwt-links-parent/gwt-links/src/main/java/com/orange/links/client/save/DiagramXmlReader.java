@@ -0,0 +1,294 @@
+package com.orange.links.client.save;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single pass reader of the XML exports of a diagram.
+ *
+ * The document is scanned once, without building any DOM, and the functions and
+ * links are added to the model as soon as their elements are closed. The reading
+ * can be split in several slices with {@link #read(int)}, so that big documents
+ * do not freeze the browser.
+ *
+ * The models are the same as the ones built from a DOM : the content of a function
+ * is the raw text of its element, the content of a decoration is trimmed, and the
+ * coordinates of the points are decoded with Integer.decode().
+ */
+public class DiagramXmlReader {
+
+	private final String xml;
+	private final DiagramModel model;
+	private int position = 0;
+
+	private final Map<String, String> attributes = new HashMap<String, String>();
+
+	// Element being read
+	private FunctionModel currentFunction;
+	private int functionContentStart;
+	private LinkModel currentLink;
+	private List<int[]> currentPoints = new ArrayList<int[]>();
+	private DecorationModel currentDecoration;
+	private int decorationContentStart;
+
+	public DiagramXmlReader(String xml) {
+		this(xml, new DiagramModel());
+	}
+
+	public DiagramXmlReader(String xml, DiagramModel model) {
+		this.xml = xml;
+		this.model = model;
+	}
+
+	/**
+	 * Read the whole document
+	 *
+	 * @return the model of the diagram
+	 */
+	public DiagramModel readAll() {
+		while (read(Integer.MAX_VALUE)) {
+		}
+		return model;
+	}
+
+	/**
+	 * Read the next elements of the document
+	 *
+	 * @param maxElements
+	 *            maximum number of elements to read
+	 * @return true if the end of the document has not been reached yet
+	 */
+	public boolean read(int maxElements) {
+		int elements = 0;
+		while (elements < maxElements) {
+			int tagStart = xml.indexOf('<', position);
+			if (tagStart < 0) {
+				position = xml.length();
+				return false;
+			}
+			if (xml.startsWith("<!--", tagStart)) {
+				position = skipAfter("-->", tagStart);
+			} else if (xml.startsWith("<![CDATA[", tagStart)) {
+				position = skipAfter("]]>", tagStart);
+			} else if (xml.startsWith("<?", tagStart) || xml.startsWith("<!", tagStart)) {
+				position = skipAfter(">", tagStart);
+			} else if (xml.startsWith("</", tagStart)) {
+				int tagEnd = skipAfter(">", tagStart);
+				endElement(xml.substring(tagStart + 2, tagEnd - 1).trim(), tagStart);
+				position = tagEnd;
+				elements++;
+			} else {
+				position = startElement(tagStart);
+				elements++;
+			}
+		}
+		return position < xml.length();
+	}
+
+	/**
+	 *
+	 * @return part of the document already read, between 0 and 1
+	 */
+	public double getProgress() {
+		return xml.length() == 0 ? 1 : (double) position / xml.length();
+	}
+
+	public DiagramModel getModel() {
+		return model;
+	}
+
+	private int startElement(int tagStart) {
+		int i = tagStart + 1;
+		int nameEnd = i;
+		while (nameEnd < xml.length() && !isNameEnd(xml.charAt(nameEnd))) {
+			nameEnd++;
+		}
+		String name = xml.substring(i, nameEnd);
+
+		// Attributes
+		attributes.clear();
+		i = nameEnd;
+		boolean empty = false;
+		while (true) {
+			i = skipSpaces(i);
+			if (i >= xml.length()) {
+				throw malformed(tagStart);
+			}
+			char c = xml.charAt(i);
+			if (c == '>') {
+				i++;
+				break;
+			}
+			if (c == '/') {
+				if (!xml.startsWith("/>", i)) {
+					throw malformed(tagStart);
+				}
+				empty = true;
+				i += 2;
+				break;
+			}
+			int attributeNameEnd = i;
+			while (attributeNameEnd < xml.length() && !isNameEnd(xml.charAt(attributeNameEnd))
+					&& xml.charAt(attributeNameEnd) != '=') {
+				attributeNameEnd++;
+			}
+			String attributeName = xml.substring(i, attributeNameEnd);
+			i = skipSpaces(attributeNameEnd);
+			if (i >= xml.length() || xml.charAt(i) != '=') {
+				throw malformed(tagStart);
+			}
+			i = skipSpaces(i + 1);
+			if (i >= xml.length()) {
+				throw malformed(tagStart);
+			}
+			char quote = xml.charAt(i);
+			if (quote != '"' && quote != '\'') {
+				throw malformed(tagStart);
+			}
+			int valueEnd = xml.indexOf(quote, i + 1);
+			if (valueEnd < 0) {
+				throw malformed(tagStart);
+			}
+			attributes.put(attributeName, unescape(xml.substring(i + 1, valueEnd)));
+			i = valueEnd + 1;
+		}
+
+		if (name.equals("diagram")) {
+			model.setDiagramProperties(parseInt(attributes.get("width")), parseInt(attributes.get("heigth")),
+					Boolean.valueOf(attributes.get("grid")));
+		} else if (name.equals("function")) {
+			currentFunction = new FunctionModel();
+			currentFunction.id = attributes.get("id");
+			currentFunction.identifier = attributes.get("identifier");
+			currentFunction.left = Integer.parseInt(attributes.get("left"));
+			currentFunction.top = Integer.parseInt(attributes.get("top"));
+			functionContentStart = i;
+			if (empty) {
+				model.addFunction(currentFunction);
+				currentFunction = null;
+			}
+		} else if (name.equals("link")) {
+			currentLink = new LinkModel();
+			currentLink.startId = attributes.get("startid");
+			currentLink.endId = attributes.get("endid");
+			currentLink.type = attributes.get("type");
+			currentPoints.clear();
+			if (empty) {
+				endLink();
+			}
+		} else if (name.equals("decoration") && currentLink != null && currentLink.decoration == null) {
+			currentDecoration = new DecorationModel();
+			currentDecoration.identifier = attributes.get("identifier");
+			decorationContentStart = i;
+			if (empty) {
+				currentDecoration.content = "";
+				currentLink.decoration = currentDecoration;
+				currentDecoration = null;
+			}
+		} else if (name.equals("point") && currentLink != null) {
+			int[] point = { Integer.decode(attributes.get("x")), Integer.decode(attributes.get("y")) };
+			currentPoints.add(point);
+		}
+		return i;
+	}
+
+	private void endElement(String name, int tagStart) {
+		if (name.equals("function") && currentFunction != null) {
+			String content = xml.substring(functionContentStart, tagStart);
+			currentFunction.content = content.length() > 0 ? content : null;
+			model.addFunction(currentFunction);
+			currentFunction = null;
+		} else if (name.equals("decoration") && currentDecoration != null) {
+			currentDecoration.content = xml.substring(decorationContentStart, tagStart).trim();
+			currentLink.decoration = currentDecoration;
+			currentDecoration = null;
+		} else if (name.equals("link") && currentLink != null) {
+			endLink();
+		}
+	}
+
+	private void endLink() {
+		int[][] pointList = new int[currentPoints.size()][];
+		for (int i = 0; i < pointList.length; i++) {
+			pointList[i] = currentPoints.get(i);
+		}
+		currentLink.pointList = pointList;
+		model.addLink(currentLink);
+		currentLink = null;
+	}
+
+	private int skipAfter(String end, int from) {
+		int index = xml.indexOf(end, from);
+		if (index < 0) {
+			throw malformed(from);
+		}
+		return index + end.length();
+	}
+
+	private int skipSpaces(int i) {
+		while (i < xml.length() && isSpace(xml.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private static boolean isSpace(char c) {
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+	}
+
+	private static boolean isNameEnd(char c) {
+		return isSpace(c) || c == '>' || c == '/';
+	}
+
+	private static int parseInt(String value) {
+		return value == null ? 0 : Integer.parseInt(value);
+	}
+
+	private IllegalArgumentException malformed(int index) {
+		return new IllegalArgumentException("Malformed diagram export at position " + index);
+	}
+
+	/**
+	 * Replace the predefined and the numeric entities of an attribute value
+	 */
+	static String unescape(String value) {
+		int amp = value.indexOf('&');
+		if (amp < 0) {
+			return value;
+		}
+		StringBuilder sb = new StringBuilder(value.length());
+		int start = 0;
+		while (amp >= 0) {
+			int semicolon = value.indexOf(';', amp);
+			if (semicolon < 0) {
+				break;
+			}
+			sb.append(value, start, amp);
+			String entity = value.substring(amp + 1, semicolon);
+			if (entity.equals("lt")) {
+				sb.append('<');
+			} else if (entity.equals("gt")) {
+				sb.append('>');
+			} else if (entity.equals("amp")) {
+				sb.append('&');
+			} else if (entity.equals("quot")) {
+				sb.append('"');
+			} else if (entity.equals("apos")) {
+				sb.append('\'');
+			} else if (entity.startsWith("#x") || entity.startsWith("#X")) {
+				sb.append((char) Integer.parseInt(entity.substring(2), 16));
+			} else if (entity.startsWith("#")) {
+				sb.append((char) Integer.parseInt(entity.substring(1)));
+			} else {
+				sb.append(value, amp, semicolon + 1);
+			}
+			start = semicolon + 1;
+			amp = value.indexOf('&', start);
+		}
+		sb.append(value, start, value.length());
+		return sb.toString();
+	}
+
+}
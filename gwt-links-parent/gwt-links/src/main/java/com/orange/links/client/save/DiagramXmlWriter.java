@@ -0,0 +1,172 @@
+package com.orange.links.client.save;
+
+/**
+ * Write the XML export of a diagram directly in a single buffer.
+ *
+ * The pretty printed output is the one historically produced by serializing a DOM
+ * and adding a line break after each tag : attributes in the same order, elements
+ * without children closed with "/>", text and attribute values escaped the same way.
+ */
+public class DiagramXmlWriter {
+
+	public static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n\n";
+
+	private final StringBuilder sb;
+	private final boolean pretty;
+
+	/**
+	 * @param pretty
+	 *            if true, a line break is added after each tag
+	 */
+	public DiagramXmlWriter(boolean pretty) {
+		this(pretty, 1024);
+	}
+
+	/**
+	 * @param pretty
+	 *            if true, a line break is added after each tag
+	 * @param initialCapacity
+	 *            initial size of the buffer, in characters
+	 */
+	public DiagramXmlWriter(boolean pretty, int initialCapacity) {
+		this.pretty = pretty;
+		this.sb = new StringBuilder(initialCapacity);
+	}
+
+	/**
+	 * Write a whole diagram, with the XML header
+	 */
+	public DiagramXmlWriter write(DiagramModel diagram) {
+		sb.append(XML_HEADER);
+
+		// Diagram Properties
+		sb.append("<diagram");
+		attribute("width", String.valueOf(diagram.getWidth()));
+		attribute("heigth", String.valueOf(diagram.getHeight()));
+		attribute("grid", String.valueOf(diagram.isHasGrid()));
+		if (diagram.getFunctionRepresentationSet().isEmpty() && diagram.getLinkRepresentationSet().isEmpty()) {
+			closeEmptyTag();
+			return this;
+		}
+		closeTag();
+
+		for (FunctionModel function : diagram.getFunctionRepresentationSet()) {
+			write(function);
+		}
+		for (LinkModel link : diagram.getLinkRepresentationSet()) {
+			write(link);
+		}
+
+		endTag("diagram");
+		return this;
+	}
+
+	public DiagramXmlWriter write(FunctionModel function) {
+		sb.append("<function");
+		attribute("left", String.valueOf(function.left));
+		attribute("top", String.valueOf(function.top));
+		attribute("id", String.valueOf(function.id));
+		attribute("identifier", String.valueOf(function.identifier));
+		if (function.content != null && !function.content.trim().equals("")) {
+			closeTag();
+			text(function.content);
+			endTag("function");
+		} else {
+			closeEmptyTag();
+		}
+		return this;
+	}
+
+	public DiagramXmlWriter write(LinkModel link) {
+		sb.append("<link");
+		attribute("startid", String.valueOf(link.startId));
+		attribute("endid", String.valueOf(link.endId));
+		if (link.decoration == null && link.pointList.length == 0) {
+			closeEmptyTag();
+			return this;
+		}
+		closeTag();
+
+		if (link.decoration != null) {
+			sb.append("<decoration");
+			attribute("identifier", String.valueOf(link.decoration.identifier));
+			closeTag();
+			text(String.valueOf(link.decoration.content));
+			endTag("decoration");
+		}
+		// Add the movable points
+		for (int[] p : link.pointList) {
+			sb.append("<point");
+			attribute("x", String.valueOf(p[0]));
+			attribute("y", String.valueOf(p[1]));
+			closeEmptyTag();
+		}
+
+		endTag("link");
+		return this;
+	}
+
+	public String toString() {
+		return sb.toString();
+	}
+
+	private void attribute(String name, String value) {
+		sb.append(' ').append(name).append("=\"");
+		escape(value, true);
+		sb.append('"');
+	}
+
+	private void closeTag() {
+		sb.append('>');
+		newLine();
+	}
+
+	private void closeEmptyTag() {
+		sb.append("/>");
+		newLine();
+	}
+
+	private void endTag(String name) {
+		sb.append("</").append(name).append('>');
+		newLine();
+	}
+
+	private void text(String text) {
+		escape(text, false);
+	}
+
+	private void newLine() {
+		if (pretty) {
+			sb.append('\n');
+		}
+	}
+
+	private void escape(String value, boolean attribute) {
+		int start = 0;
+		for (int i = 0; i < value.length(); i++) {
+			String entity;
+			switch (value.charAt(i)) {
+			case '&':
+				entity = "&amp;";
+				break;
+			case '<':
+				entity = "&lt;";
+				break;
+			case '>':
+				entity = "&gt;";
+				break;
+			case '"':
+				entity = attribute ? "&quot;" : null;
+				break;
+			default:
+				entity = null;
+			}
+			if (entity != null) {
+				sb.append(value, start, i).append(entity);
+				start = i + 1;
+			}
+		}
+		sb.append(value, start, value.length());
+	}
+
+}
@@ -21,6 +21,9 @@ public abstract class AbstractShape implements Shape {
     private boolean sync;
     protected boolean allowSync = true;
 
+    protected GeometrySnapshot geometry;
+    protected int geometrySlot = -1;
+
     protected DrawableSet<Connection> connections = new DrawableSet<Connection>();
     
     protected IContainerFinder containerFinder = new ClassnameContainerFinder();
@@ -38,6 +41,87 @@ public abstract class AbstractShape implements Shape {
         if (allowSync) {
             this.sync = sync;
         }
+        if (!sync && geometrySlot >= 0) {
+            geometry.invalidate(geometrySlot);
+        }
+        if (!sync && controller != null) {
+            controller.invalidate();
+        }
+    }
+
+    /**
+     * Keep the bounds of the shape in a slot of the snapshot, instead of reading them
+     * from the DOM on each access
+     */
+    public void attachGeometry(GeometrySnapshot geometry) {
+        detachGeometry();
+        this.geometry = geometry;
+        this.geometrySlot = geometry.allocate();
+    }
+
+    public void detachGeometry() {
+        if (geometrySlot >= 0) {
+            geometry.release(geometrySlot);
+        }
+        geometry = null;
+        geometrySlot = -1;
+    }
+
+    /**
+     * The bounds will be read again from the DOM on the next access
+     */
+    public void invalidateGeometry() {
+        if (geometrySlot >= 0) {
+            geometry.invalidate(geometrySlot);
+        }
+    }
+
+    /**
+     * The position of the container will be read again with the bounds, for
+     * example after a scroll
+     */
+    public void invalidateContainerOffset() {
+        containerOffsetLeft = -1;
+        containerOffsetTop = -1;
+        invalidateGeometry();
+    }
+
+    /**
+     * Read the bounds of the widget from the DOM and store them in the snapshot
+     * 
+     * @return true if the bounds have changed since the last read
+     */
+    public boolean readGeometry() {
+        int left = readLeft();
+        int top = readTop();
+        int width = readWidth();
+        int height = readHeight();
+        if (geometrySlot < 0) {
+            return true;
+        }
+        return geometry.set(geometrySlot, left, top, width, height);
+    }
+
+    /**
+     * Read the bounds from the DOM only if they may have changed: while the shape
+     * is not synchronized, for example during a drag, or once they have been
+     * invalidated
+     * 
+     * @return true if the bounds have been read and have changed
+     */
+    public boolean refreshGeometry() {
+        if (sync && !isGeometryOutdated()) {
+            return false;
+        }
+        return readGeometry();
+    }
+
+    /**
+     * 
+     * @return true if the bounds have to be read again from the DOM
+     */
+    public boolean isGeometryOutdated() {
+        return geometrySlot < 0 || !geometry.isValid(geometrySlot);
     }
     
     public boolean allowSynchronized(){
@@ -45,9 +129,39 @@ public abstract class AbstractShape implements Shape {
     }
 
     public int getLeft() {
+        if (geometrySlot < 0) {
+            return readLeft();
+        }
+        if (!geometry.isValid(geometrySlot)) {
+            readGeometry();
+        }
+        return geometry.getLeft(geometrySlot);
+    }
+
+    protected int readLeft() {
+        if (isReadFromLayout()) {
+            return widget.getElement().getOffsetLeft();
+        }
         return widget.getAbsoluteLeft() - getContainerOffsetLeft();
     }
 
+    protected int readTop() {
+        if (isReadFromLayout()) {
+            return widget.getElement().getOffsetTop();
+        }
+        return widget.getAbsoluteTop() - getContainerOffsetTop();
+    }
+
+    /**
+     * When the view is zoomed, the absolute positions may include its transform,
+     * depending on the browser, so the position of the widgets placed directly in
+     * the view is read from the layout instead
+     */
+    private boolean isReadFromLayout() {
+        return controller != null && controller.getZoom() != 1
+                && widget.getElement().getOffsetParent() == controller.getView().getElement();
+    }
+
     protected int getContainerOffsetLeft() {
         if (containerOffsetLeft < 0 || !sync) {
         	int scrollLeft = 0;
@@ -68,7 +182,13 @@ public abstract class AbstractShape implements Shape {
 
    
     public int getTop() {
-        return widget.getAbsoluteTop() - getContainerOffsetTop();
+        if (geometrySlot < 0) {
+            return readTop();
+        }
+        if (!geometry.isValid(geometrySlot)) {
+            readGeometry();
+        }
+        return geometry.getTop(geometrySlot);
     }
 
     protected int getContainerOffsetTop() {
@@ -99,13 +219,33 @@ public abstract class AbstractShape implements Shape {
 
 
     public int getWidth() {
+        if (geometrySlot < 0) {
+            return readWidth();
+        }
+        if (!geometry.isValid(geometrySlot)) {
+            readGeometry();
+        }
+        return geometry.getWidth(geometrySlot);
+    }
+
+    public int getHeight() {
+        if (geometrySlot < 0) {
+            return readHeight();
+        }
+        if (!geometry.isValid(geometrySlot)) {
+            readGeometry();
+        }
+        return geometry.getHeight(geometrySlot);
+    }
+
+    protected int readWidth() {
         if (offsetWidth < 0 || !sync) {
             offsetWidth = widget.getOffsetWidth();
         }
         return offsetWidth;
     }
 
-    public int getHeight() {
+    protected int readHeight() {
         if (offsetHeight < 0 || !sync) {
             offsetHeight = widget.getOffsetHeight();
         }
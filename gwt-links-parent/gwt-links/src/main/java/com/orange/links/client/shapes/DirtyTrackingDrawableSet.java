@@ -0,0 +1,99 @@
+package com.orange.links.client.shapes;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Drawable composite keeping a queue of its unsynchronized drawables.
+ *
+ * The drawables have to be reported with {@link #markUnsynchronized(Drawable)} when they
+ * become unsynchronized, so that finding the drawables to redraw costs O(unsynchronized)
+ * instead of O(all), and nothing is allocated when everything is synchronized.
+ */
+@SuppressWarnings("serial")
+public class DirtyTrackingDrawableSet<D extends Drawable> extends DrawableSet<D> {
+
+    private final Set<D> dirtyQueue = new LinkedHashSet<D>();
+    private final DrawableSet<D> unsynchronized = new DrawableSet<D>();
+
+    @Override
+    public boolean add(D drawable) {
+        boolean added = super.add(drawable);
+        if (added && !drawable.isSynchronized()) {
+            dirtyQueue.add(drawable);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        dirtyQueue.remove(o);
+        return super.remove(o);
+    }
+
+    @Override
+    public void clear() {
+        dirtyQueue.clear();
+        super.clear();
+    }
+
+    /**
+     * Queue a drawable of the set which has become unsynchronized
+     */
+    public void markUnsynchronized(D drawable) {
+        if (contains(drawable)) {
+            dirtyQueue.add(drawable);
+        }
+    }
+
+    /**
+     * Remove an unsynchronized drawable from the queue, until it is marked again
+     * with {@link #markUnsynchronized(Drawable)}
+     */
+    public void postpone(D drawable) {
+        dirtyQueue.remove(drawable);
+    }
+
+    /**
+     * The returned set is reused by the next call, it must not be kept.
+     */
+    @Override
+    public DrawableSet<D> getUnsynchronizedDrawables() {
+        unsynchronized.clear();
+        if (dirtyQueue.isEmpty()) {
+            return unsynchronized;
+        }
+        Iterator<D> it = dirtyQueue.iterator();
+        while (it.hasNext()) {
+            D drawable = it.next();
+            if (drawable.isSynchronized() || !contains(drawable)) {
+                it.remove();
+            } else {
+                unsynchronized.add(drawable);
+            }
+        }
+        return unsynchronized;
+    }
+
+    /**
+     *
+     * @return true if at least one drawable is not synchronized
+     */
+    public boolean hasUnsynchronizedDrawables() {
+        if (dirtyQueue.isEmpty()) {
+            return false;
+        }
+        Iterator<D> it = dirtyQueue.iterator();
+        while (it.hasNext()) {
+            D drawable = it.next();
+            if (drawable.isSynchronized() || !contains(drawable)) {
+                it.remove();
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -33,6 +33,21 @@ public class FunctionShape extends AbstractShape {
         super.setSynchronized(sync);
     }
 
+    @Override
+    public void invalidateGeometry() {
+        // The selectable areas are computed again from the new bounds
+        centerW = null;
+        super.invalidateGeometry();
+    }
+
+    /**
+     * 
+     * @return distance in pixels under which the mouse is over a selectable area
+     */
+    public int getSelectableAreaRadius() {
+        return selectableAreaRadius;
+    }
+
     public boolean isMouseNearSelectableArea(Point mousePoint) {
         return getSelectableArea(mousePoint) != null;
     }
@@ -52,6 +67,9 @@ public class FunctionShape extends AbstractShape {
             canvas.setFillStyle(highlightSelectableAreaColor);
             canvas.fill();
             canvas.closePath();
+            canvas.addDirtyRect(closestSelectablePoint.getLeft() - selectableAreaRadius - 1,
+                    closestSelectablePoint.getTop() - selectableAreaRadius - 1, 2 * selectableAreaRadius + 2,
+                    2 * selectableAreaRadius + 2);
         }
     }
 
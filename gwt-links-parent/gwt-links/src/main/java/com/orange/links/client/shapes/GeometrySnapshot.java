@@ -0,0 +1,128 @@
+package com.orange.links.client.shapes;
+
+/**
+ * Bounds of all the shapes of a diagram, read from the DOM once per frame.
+ *
+ * Each shape owns a slot, and its left, top, width and height are packed in a
+ * single int array. A slot stays valid until the shape is invalidated (drag,
+ * scroll, resize), so that the geometry computations of a frame never force the
+ * browser to compute the layout again.
+ */
+public class GeometrySnapshot {
+
+	private static final int FIELDS = 4;
+
+	private int[] bounds = new int[16 * FIELDS];
+	private boolean[] valid = new boolean[16];
+	private int[] freeSlots = new int[16];
+	private int freeSlotCount = 0;
+	private int slotCount = 0;
+
+	/**
+	 * Reserve a slot for a new shape
+	 *
+	 * @return the index of the slot, initially invalid
+	 */
+	public int allocate() {
+		int slot;
+		if (freeSlotCount > 0) {
+			slot = freeSlots[--freeSlotCount];
+		} else {
+			slot = slotCount++;
+			if (slot == valid.length) {
+				grow();
+			}
+		}
+		valid[slot] = false;
+		return slot;
+	}
+
+	/**
+	 * Give back the slot of a removed shape
+	 */
+	public void release(int slot) {
+		valid[slot] = false;
+		if (freeSlotCount == freeSlots.length) {
+			int[] larger = new int[freeSlots.length * 2];
+			System.arraycopy(freeSlots, 0, larger, 0, freeSlotCount);
+			freeSlots = larger;
+		}
+		freeSlots[freeSlotCount++] = slot;
+	}
+
+	/**
+	 * Store the bounds of a shape
+	 *
+	 * @return true if the bounds are different from the previous ones
+	 */
+	public boolean set(int slot, int left, int top, int width, int height) {
+		int i = slot * FIELDS;
+		boolean changed = !valid[slot] || bounds[i] != left || bounds[i + 1] != top || bounds[i + 2] != width
+				|| bounds[i + 3] != height;
+		bounds[i] = left;
+		bounds[i + 1] = top;
+		bounds[i + 2] = width;
+		bounds[i + 3] = height;
+		valid[slot] = true;
+		return changed;
+	}
+
+	public boolean isValid(int slot) {
+		return valid[slot];
+	}
+
+	/**
+	 * The bounds of the shape will be read again from the DOM on the next access
+	 */
+	public void invalidate(int slot) {
+		valid[slot] = false;
+	}
+
+	/**
+	 * Release all the slots
+	 */
+	public void clear() {
+		slotCount = 0;
+		freeSlotCount = 0;
+	}
+
+	public void invalidateAll() {
+		for (int i = 0; i < slotCount; i++) {
+			valid[i] = false;
+		}
+	}
+
+	public int getLeft(int slot) {
+		return bounds[slot * FIELDS];
+	}
+
+	public int getTop(int slot) {
+		return bounds[slot * FIELDS + 1];
+	}
+
+	public int getWidth(int slot) {
+		return bounds[slot * FIELDS + 2];
+	}
+
+	public int getHeight(int slot) {
+		return bounds[slot * FIELDS + 3];
+	}
+
+	/**
+	 *
+	 * @return number of slots in use
+	 */
+	public int size() {
+		return slotCount - freeSlotCount;
+	}
+
+	private void grow() {
+		int[] largerBounds = new int[bounds.length * 2];
+		System.arraycopy(bounds, 0, largerBounds, 0, bounds.length);
+		bounds = largerBounds;
+		boolean[] largerValid = new boolean[valid.length * 2];
+		System.arraycopy(valid, 0, largerValid, 0, valid.length);
+		valid = largerValid;
+	}
+
+}
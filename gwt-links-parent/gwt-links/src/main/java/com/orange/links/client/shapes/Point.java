@@ -16,8 +16,8 @@ public class Point implements Shape {
     }
 
     public Point(double left, double top) {
-        this.left = new Double(left).intValue();
-        this.top = new Double(top).intValue();
+        this.left = (int) left;
+        this.top = (int) top;
     }
 
     public void setLeft(int left) {
@@ -0,0 +1,168 @@
+package com.orange.links.client.utils;
+
+/**
+ * Mutable axis aligned box with integer coordinates. The right and bottom
+ * coordinates are exclusive. An empty box contains no point and is ignored
+ * by the union operations.
+ */
+public class BoundingBox {
+
+	private int left;
+	private int top;
+	private int right;
+	private int bottom;
+	private boolean empty = true;
+
+	public BoundingBox() {
+	}
+
+	public BoundingBox(int left, int top, int width, int height) {
+		set(left, top, width, height);
+	}
+
+	public BoundingBox(BoundingBox other) {
+		set(other);
+	}
+
+	public void set(int left, int top, int width, int height) {
+		this.left = left;
+		this.top = top;
+		this.right = left + width;
+		this.bottom = top + height;
+		this.empty = width <= 0 || height <= 0;
+	}
+
+	public void set(BoundingBox other) {
+		this.left = other.left;
+		this.top = other.top;
+		this.right = other.right;
+		this.bottom = other.bottom;
+		this.empty = other.empty;
+	}
+
+	public void setEmpty() {
+		empty = true;
+	}
+
+	public boolean isEmpty() {
+		return empty;
+	}
+
+	/**
+	 * Grow the box so that it contains the pixel at (x,y)
+	 */
+	public void add(int x, int y) {
+		if (empty) {
+			left = x;
+			top = y;
+			right = x + 1;
+			bottom = y + 1;
+			empty = false;
+			return;
+		}
+		if (x < left)
+			left = x;
+		if (y < top)
+			top = y;
+		if (x + 1 > right)
+			right = x + 1;
+		if (y + 1 > bottom)
+			bottom = y + 1;
+	}
+
+	/**
+	 * Grow the box so that it contains the other one
+	 */
+	public void add(BoundingBox other) {
+		if (other.empty) {
+			return;
+		}
+		if (empty) {
+			set(other);
+			return;
+		}
+		left = Math.min(left, other.left);
+		top = Math.min(top, other.top);
+		right = Math.max(right, other.right);
+		bottom = Math.max(bottom, other.bottom);
+	}
+
+	/**
+	 * Grow the box of margin pixels on each side
+	 */
+	public void expand(int margin) {
+		if (empty) {
+			return;
+		}
+		left -= margin;
+		top -= margin;
+		right += margin;
+		bottom += margin;
+	}
+
+	/**
+	 * Reduce the box to its intersection with the rectangle
+	 */
+	public void clip(int clipLeft, int clipTop, int clipWidth, int clipHeight) {
+		if (empty) {
+			return;
+		}
+		left = Math.max(left, clipLeft);
+		top = Math.max(top, clipTop);
+		right = Math.min(right, clipLeft + clipWidth);
+		bottom = Math.min(bottom, clipTop + clipHeight);
+		empty = right <= left || bottom <= top;
+	}
+
+	public boolean intersects(BoundingBox other) {
+		return !empty && !other.empty && left < other.right && other.left < right && top < other.bottom
+				&& other.top < bottom;
+	}
+
+	public boolean intersects(int otherLeft, int otherTop, int otherWidth, int otherHeight) {
+		return !empty && otherWidth > 0 && otherHeight > 0 && left < otherLeft + otherWidth && otherLeft < right
+				&& top < otherTop + otherHeight && otherTop < bottom;
+	}
+
+	public boolean contains(int x, int y) {
+		return !empty && x >= left && x < right && y >= top && y < bottom;
+	}
+
+	public int getLeft() {
+		return left;
+	}
+
+	public int getTop() {
+		return top;
+	}
+
+	public int getRight() {
+		return right;
+	}
+
+	public int getBottom() {
+		return bottom;
+	}
+
+	public int getWidth() {
+		return empty ? 0 : right - left;
+	}
+
+	public int getHeight() {
+		return empty ? 0 : bottom - top;
+	}
+
+	/**
+	 *
+	 * @return the number of pixels covered by the box
+	 */
+	public long getArea() {
+		return (long) getWidth() * getHeight();
+	}
+
+	@Override
+	public String toString() {
+		return empty ? "[ empty ]" : "[ left : " + left + " | top : " + top + " | right : " + right + " | bottom : "
+				+ bottom + " ]";
+	}
+}
@@ -0,0 +1,59 @@
+package com.orange.links.client.utils;
+
+import com.allen_sauer.gwt.dnd.client.PickupDragController;
+import com.allen_sauer.gwt.dnd.client.util.DOMUtil;
+import com.google.gwt.user.client.Element;
+import com.google.gwt.user.client.ui.AbsolutePanel;
+import com.orange.links.client.DiagramController;
+
+/**
+ * Drag controller for the widgets of a diagram, dropping them on its view.
+ * <br/>
+ * gwt-dnd places the dragged widget from the mouse position on the page, which is
+ * scaled when the view is zoomed. This controller computes the position of the
+ * widget in the view from the distance covered by the mouse divided by the zoom,
+ * so the widget follows the mouse and is dropped where it is seen.
+ */
+public class DiagramDragController extends PickupDragController {
+
+	private final DiagramController controller;
+	private final AbsolutePanel view;
+
+	// Position of the widget in the view and of the mouse on the page when the drag started
+	private int startLeft;
+	private int startTop;
+	private int startMouseX;
+	private int startMouseY;
+
+	public DiagramDragController(DiagramController controller) {
+		super(controller.getView(), true);
+		this.controller = controller;
+		this.view = controller.getView();
+	}
+
+	@Override
+	public void dragStart() {
+		// Read from the layout, which is not affected by the zoom
+		startLeft = context.draggable.getElement().getOffsetLeft();
+		startTop = context.draggable.getElement().getOffsetTop();
+		startMouseX = context.mouseX;
+		startMouseY = context.mouseY;
+		super.dragStart();
+	}
+
+	@Override
+	public void dragMove() {
+		double zoom = controller.getZoom();
+		if (zoom != 1) {
+			// The top left corner of the view stays in place when it is zoomed, so the
+			// position in the view only has to be offset by the position of the view
+			Element element = view.getElement();
+			int left = startLeft + (int) Math.round((context.mouseX - startMouseX) / zoom);
+			int top = startTop + (int) Math.round((context.mouseY - startMouseY) / zoom);
+			context.desiredDraggableX = view.getAbsoluteLeft() + DOMUtil.getBorderLeft(element) + left;
+			context.desiredDraggableY = view.getAbsoluteTop() + DOMUtil.getBorderTop(element) + top;
+		}
+		super.dragMove();
+	}
+
+}
@@ -0,0 +1,337 @@
+package com.orange.links.client.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Directed graph of the diagram, the nodes being the widgets and the edges the
+ * connections between them.
+ *
+ * Nodes and edges get integer ids, reused once removed. Each node keeps the list
+ * of its outgoing and of its incoming edges, linked through the edges themselves:
+ * adding or removing an edge is O(1), and the neighbours of a node are browsed in
+ * O(degree).
+ * <br/>
+ * <code>
+ * 		for (int e = graph.getFirstOutEdge(node); e != DiagramGraph.NONE; e = graph.getNextOutEdge(e)) {<br/>
+ * 			E edge = graph.getEdge(e);<br/>
+ * 		}
+ * </code>
+ *
+ * @param <N>
+ *            type of the nodes
+ * @param <E>
+ *            type of the edges
+ */
+public class DiagramGraph<N, E> {
+
+	public static final int NONE = -1;
+
+	private final Map<N, Integer> nodeIds = new HashMap<N, Integer>();
+	private final Map<E, Integer> edgeIds = new HashMap<E, Integer>();
+
+	// Nodes
+	private Object[] nodes = new Object[16];
+	private int[] firstOut = new int[16];
+	private int[] firstIn = new int[16];
+	private int[] outDegree = new int[16];
+	private int[] inDegree = new int[16];
+	private int nodeCount = 0;
+	private int freeNode = NONE;
+
+	// Edges
+	private Object[] edges = new Object[16];
+	private int[] source = new int[16];
+	private int[] target = new int[16];
+	private int[] nextOut = new int[16];
+	private int[] prevOut = new int[16];
+	private int[] nextIn = new int[16];
+	private int[] prevIn = new int[16];
+	private int edgeCount = 0;
+	private int freeEdge = NONE;
+
+	/**
+	 * Add a node, if it is not already in the graph
+	 *
+	 * @return the id of the node
+	 */
+	public int addNode(N node) {
+		Integer existing = nodeIds.get(node);
+		if (existing != null) {
+			return existing;
+		}
+		int id;
+		if (freeNode != NONE) {
+			id = freeNode;
+			freeNode = firstOut[id];
+		} else {
+			id = nodeCount++;
+			if (id == nodes.length) {
+				int capacity = nodes.length * 2;
+				nodes = copy(nodes, capacity);
+				firstOut = copy(firstOut, capacity);
+				firstIn = copy(firstIn, capacity);
+				outDegree = copy(outDegree, capacity);
+				inDegree = copy(inDegree, capacity);
+			}
+		}
+		nodes[id] = node;
+		firstOut[id] = NONE;
+		firstIn[id] = NONE;
+		outDegree[id] = 0;
+		inDegree[id] = 0;
+		nodeIds.put(node, id);
+		return id;
+	}
+
+	/**
+	 * Remove a node and all its edges
+	 */
+	public void removeNode(int id) {
+		checkNode(id);
+		while (firstOut[id] != NONE) {
+			removeEdge(firstOut[id]);
+		}
+		while (firstIn[id] != NONE) {
+			removeEdge(firstIn[id]);
+		}
+		nodeIds.remove(nodes[id]);
+		nodes[id] = null;
+		// The free nodes are chained through firstOut
+		firstOut[id] = freeNode;
+		freeNode = id;
+	}
+
+	/**
+	 *
+	 * @return the id of the node, or {@link #NONE} if it is not in the graph
+	 */
+	public int getNodeId(N node) {
+		Integer id = nodeIds.get(node);
+		return id == null ? NONE : id;
+	}
+
+	@SuppressWarnings("unchecked")
+	public N getNode(int id) {
+		checkNode(id);
+		return (N) nodes[id];
+	}
+
+	public boolean containsNode(N node) {
+		return nodeIds.containsKey(node);
+	}
+
+	public Set<N> getNodes() {
+		return nodeIds.keySet();
+	}
+
+	/**
+	 * Add an edge between two nodes of the graph
+	 *
+	 * @return the id of the edge
+	 */
+	public int addEdge(int sourceNode, int targetNode, E edge) {
+		checkNode(sourceNode);
+		checkNode(targetNode);
+		if (edgeIds.containsKey(edge)) {
+			throw new IllegalArgumentException("The edge is already in the graph");
+		}
+		int id;
+		if (freeEdge != NONE) {
+			id = freeEdge;
+			freeEdge = nextOut[id];
+		} else {
+			id = edgeCount++;
+			if (id == edges.length) {
+				int capacity = edges.length * 2;
+				edges = copy(edges, capacity);
+				source = copy(source, capacity);
+				target = copy(target, capacity);
+				nextOut = copy(nextOut, capacity);
+				prevOut = copy(prevOut, capacity);
+				nextIn = copy(nextIn, capacity);
+				prevIn = copy(prevIn, capacity);
+			}
+		}
+		edges[id] = edge;
+		source[id] = sourceNode;
+		target[id] = targetNode;
+
+		// Insert at the head of the lists of both nodes
+		prevOut[id] = NONE;
+		nextOut[id] = firstOut[sourceNode];
+		if (firstOut[sourceNode] != NONE) {
+			prevOut[firstOut[sourceNode]] = id;
+		}
+		firstOut[sourceNode] = id;
+		outDegree[sourceNode]++;
+
+		prevIn[id] = NONE;
+		nextIn[id] = firstIn[targetNode];
+		if (firstIn[targetNode] != NONE) {
+			prevIn[firstIn[targetNode]] = id;
+		}
+		firstIn[targetNode] = id;
+		inDegree[targetNode]++;
+
+		edgeIds.put(edge, id);
+		return id;
+	}
+
+	public void removeEdge(int id) {
+		checkEdge(id);
+		int s = source[id];
+		if (prevOut[id] != NONE) {
+			nextOut[prevOut[id]] = nextOut[id];
+		} else {
+			firstOut[s] = nextOut[id];
+		}
+		if (nextOut[id] != NONE) {
+			prevOut[nextOut[id]] = prevOut[id];
+		}
+		outDegree[s]--;
+
+		int t = target[id];
+		if (prevIn[id] != NONE) {
+			nextIn[prevIn[id]] = nextIn[id];
+		} else {
+			firstIn[t] = nextIn[id];
+		}
+		if (nextIn[id] != NONE) {
+			prevIn[nextIn[id]] = prevIn[id];
+		}
+		inDegree[t]--;
+
+		edgeIds.remove(edges[id]);
+		edges[id] = null;
+		source[id] = NONE;
+		// The free edges are chained through nextOut
+		nextOut[id] = freeEdge;
+		freeEdge = id;
+	}
+
+	/**
+	 *
+	 * @return the id of the edge, or {@link #NONE} if it is not in the graph
+	 */
+	public int getEdgeId(E edge) {
+		Integer id = edgeIds.get(edge);
+		return id == null ? NONE : id;
+	}
+
+	@SuppressWarnings("unchecked")
+	public E getEdge(int id) {
+		checkEdge(id);
+		return (E) edges[id];
+	}
+
+	public boolean containsEdge(E edge) {
+		return edgeIds.containsKey(edge);
+	}
+
+	public Set<E> getEdges() {
+		return edgeIds.keySet();
+	}
+
+	public int getSource(int edge) {
+		checkEdge(edge);
+		return source[edge];
+	}
+
+	public int getTarget(int edge) {
+		checkEdge(edge);
+		return target[edge];
+	}
+
+	/**
+	 * Search an edge from a node to another one, in O(out degree of the source)
+	 *
+	 * @return the id of the edge, or {@link #NONE}
+	 */
+	public int findEdge(int sourceNode, int targetNode) {
+		checkNode(sourceNode);
+		for (int e = firstOut[sourceNode]; e != NONE; e = nextOut[e]) {
+			if (target[e] == targetNode) {
+				return e;
+			}
+		}
+		return NONE;
+	}
+
+	public int getFirstOutEdge(int node) {
+		checkNode(node);
+		return firstOut[node];
+	}
+
+	public int getNextOutEdge(int edge) {
+		return nextOut[edge];
+	}
+
+	public int getFirstInEdge(int node) {
+		checkNode(node);
+		return firstIn[node];
+	}
+
+	public int getNextInEdge(int edge) {
+		return nextIn[edge];
+	}
+
+	public int getOutDegree(int node) {
+		checkNode(node);
+		return outDegree[node];
+	}
+
+	public int getInDegree(int node) {
+		checkNode(node);
+		return inDegree[node];
+	}
+
+	public int getNodeCount() {
+		return nodeIds.size();
+	}
+
+	public int getEdgeCount() {
+		return edgeIds.size();
+	}
+
+	public void clear() {
+		for (int i = 0; i < nodeCount; i++) {
+			nodes[i] = null;
+		}
+		for (int i = 0; i < edgeCount; i++) {
+			edges[i] = null;
+		}
+		nodeIds.clear();
+		edgeIds.clear();
+		nodeCount = 0;
+		edgeCount = 0;
+		freeNode = NONE;
+		freeEdge = NONE;
+	}
+
+	private void checkNode(int id) {
+		if (id < 0 || id >= nodeCount || nodes[id] == null) {
+			throw new IllegalArgumentException("No node " + id + " in the graph");
+		}
+	}
+
+	private void checkEdge(int id) {
+		if (id < 0 || id >= edgeCount || edges[id] == null) {
+			throw new IllegalArgumentException("No edge " + id + " in the graph");
+		}
+	}
+
+	private static Object[] copy(Object[] array, int capacity) {
+		Object[] copy = new Object[capacity];
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	private static int[] copy(int[] array, int capacity) {
+		int[] copy = new int[capacity];
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+}
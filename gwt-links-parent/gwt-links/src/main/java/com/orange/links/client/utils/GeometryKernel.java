@@ -0,0 +1,227 @@
+package com.orange.links.client.utils;
+
+/**
+ * Geometry computations on primitive coordinates, used on every frame to route the connections.
+ *
+ * The methods do not allocate anything : the results are written in arrays given by the caller
+ * (x1, y1, x2, y2 for a segment, x, y for a point). {@link ConnectionUtils} and {@link Segment}
+ * keep their Point based methods as thin wrappers around these ones.
+ */
+public class GeometryKernel {
+
+	/**
+	 * Compute the segment linking two rectangles
+	 *
+	 * @param out
+	 *            array of at least 4 ints receiving x1, y1, x2, y2
+	 * @return false if the rectangles overlap and no segment can be computed
+	 */
+	public static boolean computeSegment(int left1, int top1, int width1, int height1, int left2, int top2,
+			int width2, int height2, int[] out) {
+		final int right1 = left1 + width1;
+		final int bottom1 = top1 + height1;
+		final int right2 = left2 + width2;
+		final int bottom2 = top2 + height2;
+
+		if (isLinkDiagonal(left1, top1, right1, bottom1, left2, top2, right2, bottom2)) {
+			if (left1 >= right2 && top1 >= bottom2) {
+				return set(out, left1, top1, right2, bottom2);
+			} else if (right1 <= left2 && top1 >= bottom2) {
+				return set(out, right1, top1, left2, bottom2);
+			} else if (right1 <= left2 && bottom1 <= top2) {
+				return set(out, right1, bottom1, left2, top2);
+			} else {
+				return set(out, left1, bottom1, right2, top2);
+			}
+		}
+
+		if (bottom1 < top2) {
+			// DOWN
+			if (length(left1, bottom1, right1, bottom1) < length(left2, top2, right2, top2)) {
+				// R1 is smaller than R2
+				if (!project(left1, bottom1, right1, bottom1, left2, top2, right2, top2, out)) {
+					return false;
+				}
+				int x = (out[0] + out[2]) / 2;
+				return set(out, x, bottom1 - 1, x, top2);
+			} else {
+				if (!project(left2, top2, right2, top2, left1, bottom1, right1, bottom1, out)) {
+					return false;
+				}
+				int x = (out[0] + out[2]) / 2;
+				return set(out, x, bottom1, x, top2 - 1);
+			}
+		} else if (top1 > bottom2) {
+			// UP
+			if (length(left1, top1, right1, top1) < length(left2, bottom2, right2, bottom2)) {
+				if (!project(left1, top1, right1, top1, left2, bottom2, right2, bottom2, out)) {
+					return false;
+				}
+			} else {
+				if (!project(left2, bottom2, right2, bottom2, left1, top1, right1, top1, out)) {
+					return false;
+				}
+			}
+			int x = (out[0] + out[2]) / 2;
+			return set(out, x, top1, x, bottom2);
+		} else if (right1 > left2) {
+			// LEFT
+			if (length(right1, top1, right1, bottom1) < length(left2, top2, left2, bottom2)) {
+				if (!project(left1, top1, left1, bottom1, right2, top2, right2, bottom2, out)) {
+					return false;
+				}
+			} else {
+				if (!project(right2, top2, right2, bottom2, left1, top1, left1, bottom1, out)) {
+					return false;
+				}
+			}
+			int y = (out[1] + out[3]) / 2;
+			return set(out, left1, y, right2, y);
+		} else if (left1 < right2) {
+			// RIGHT
+			if (length(right1, top1, right1, bottom1) < length(left2, top2, left2, bottom2)) {
+				if (!project(right1, top1, right1, bottom1, left2, top2, left2, bottom2, out)) {
+					return false;
+				}
+			} else {
+				if (!project(right2, top2, right2, bottom2, left1, top1, left1, bottom1, out)) {
+					return false;
+				}
+			}
+			int y = (out[1] + out[3]) / 2;
+			return set(out, right1, y, left2, y);
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if the rectangles do not overlap, neither horizontally nor vertically
+	 */
+	public static boolean isLinkDiagonal(int left1, int top1, int right1, int bottom1, int left2, int top2,
+			int right2, int bottom2) {
+		return (left1 > right2 && top1 > bottom2) || (right1 < left2 && top1 > bottom2)
+				|| (right1 < left2 && bottom1 < top2) || (left1 > right2 && bottom1 < top2);
+	}
+
+	/**
+	 * Compute the projection of s1 on s2. S1 and s2 must be vertical or horizontal
+	 *
+	 * @param out
+	 *            array of at least 4 ints receiving the projected segment on s2
+	 * @return false if the segments do not face each other
+	 */
+	public static boolean project(int s1x1, int s1y1, int s1x2, int s1y2, int s2x1, int s2y1, int s2x2, int s2y2,
+			int[] out) {
+		if (s1x1 == s1x2 && s2x1 == s2x2) {
+			// Lines vertical
+			if (s1y2 >= s2y2) {
+				// S1 on the bottom of S2
+				if (s1y1 > s2y2) {
+					return false;
+				}
+				return set(out, s2x1, s1y1, s2x1, s2y2);
+			} else if (s1y1 <= s2y1) {
+				// S1 on the top of S2
+				if (s1y2 < s2y1) {
+					return false;
+				}
+				return set(out, s2x1, s2y1, s2x1, s1y2);
+			} else {
+				// S1 inside S2
+				return set(out, s2x1, s1y1, s2x1, s1y2);
+			}
+		} else if (s1y1 == s1y2 && s2y1 == s2y2) {
+			// Lines horizontal
+			if (s1x1 <= s2x1) {
+				// S1 on the left of S2
+				if (s1x2 < s2x1) {
+					return false;
+				}
+				return set(out, s2x1, s2y1, s1x2, s2y1);
+			} else if (s1x2 >= s2x2) {
+				// S1 on the right of S2
+				if (s1x1 > s2x2) {
+					return false;
+				}
+				return set(out, s1x1, s2y1, s2x2, s2y1);
+			} else {
+				// S1 inside S2
+				return set(out, s1x1, s2y1, s1x2, s2y1);
+			}
+		}
+		throw new IllegalArgumentException("The segment must be parallel and horizontal or vertical");
+	}
+
+	/**
+	 * Length of a segment, as historically computed by {@link Segment#length()}. It is only used
+	 * to compare the borders of two rectangles, so it is kept as is to preserve the routing.
+	 */
+	public static double length(int x1, int y1, int x2, int y2) {
+		return Math.sqrt((x2 - x1) ^ 2 + (y2 - y1) ^ 2);
+	}
+
+	public static double distance(int x1, int y1, int x2, int y2) {
+		return Math.sqrt((x1 - x2) * (x1 - x2) + (y1 - y2) * (y1 - y2));
+	}
+
+	/**
+	 * @return distance between the point (x, y) and the segment
+	 */
+	public static double distanceToSegment(int x1, int y1, int x2, int y2, int x, int y) {
+		final double xDelta = x2 - x1;
+		final double yDelta = y2 - y1;
+
+		if ((xDelta == 0) && (yDelta == 0)) {
+			throw new IllegalArgumentException("p1 and p2 cannot be the same point");
+		}
+
+		final double u = ((x - x1) * xDelta + (y - y1) * yDelta) / (xDelta * xDelta + yDelta * yDelta);
+
+		if (u < 0) {
+			return distance(x1, y1, x, y);
+		} else if (u > 1) {
+			return distance(x2, y2, x, y);
+		}
+		return distance((int) (x1 + u * xDelta), (int) (y1 + u * yDelta), x, y);
+	}
+
+	/**
+	 * Compute the point of the segment closest to the point (x, y)
+	 *
+	 * @param out
+	 *            array of at least 2 ints receiving the coordinates of the projection
+	 * @return position of the projection on the line of the segment, lower than 0 before the
+	 *         first point and greater than 1 after the second one
+	 */
+	public static double projectionOnSegment(int x1, int y1, int x2, int y2, int x, int y, int[] out) {
+		final double xDelta = x2 - x1;
+		final double yDelta = y2 - y1;
+
+		if ((xDelta == 0) && (yDelta == 0)) {
+			throw new IllegalArgumentException("p1 and p2 cannot be the same point");
+		}
+
+		final double u = ((x - x1) * xDelta + (y - y1) * yDelta) / (xDelta * xDelta + yDelta * yDelta);
+
+		if (u < 0) {
+			out[0] = x1;
+			out[1] = y1;
+		} else if (u > 1) {
+			out[0] = x2;
+			out[1] = y2;
+		} else {
+			out[0] = (int) (x1 + u * xDelta);
+			out[1] = (int) (y1 + u * yDelta);
+		}
+		return u;
+	}
+
+	private static boolean set(int[] out, int x1, int y1, int x2, int y2) {
+		out[0] = x1;
+		out[1] = y1;
+		out[2] = x2;
+		out[3] = y2;
+		return true;
+	}
+
+}
@@ -22,6 +22,12 @@ public interface LinksClientBundle extends ClientBundle{
 		
 		@ClassName("links-connection-canvas")
 		public String connectionCanvas();
+		
+		@ClassName("links-function")
+		public String function();
+		
+		@ClassName("links-overview")
+		public String overview();
 	}
 	
 	static final LinksClientBundle INSTANCE = GWT.create(LinksClientBundle.class);
@@ -0,0 +1,504 @@
+package com.orange.links.client.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.orange.links.client.shapes.Point;
+import com.orange.links.client.shapes.Shape;
+
+/**
+ * Router of orthogonal paths avoiding a set of rectangular obstacles.
+ *
+ * The candidate lines are the borders of the obstacles, moved away by a margin,
+ * and the lines crossing the centers of the two linked shapes. Their
+ * intersections which are outside of every obstacle form a sparse orthogonal
+ * visibility graph, searched with A*. A state is a node and the direction it was
+ * reached from, so that each bend costs {@link #getBendPenalty()} in addition to
+ * the length of the path.
+ *
+ * The buffers are reused from one route to the next, a router must not be shared
+ * between threads.
+ */
+public class OrthogonalRouter {
+
+	private static final int EAST = 0;
+	private static final int WEST = 1;
+	private static final int SOUTH = 2;
+	private static final int NORTH = 3;
+
+	private int margin = 10;
+	private int bendPenalty = 30;
+	private int maxNodes = 40000;
+
+	// Obstacles, packed as left, top, right, bottom
+	private int[] obstacles = new int[64];
+	private int obstacleCount = 0;
+
+	// Visibility graph
+	private int[] xs = new int[64];
+	private int[] ys = new int[64];
+	private int columns;
+	private int rows;
+	private boolean[] blockedNode = new boolean[0];
+	private boolean[] blockedEast = new boolean[0];
+	private boolean[] blockedSouth = new boolean[0];
+
+	// Search
+	private int[] cost = new int[0];
+	private int[] parent = new int[0];
+	private int[] reached = new int[0];
+	private int[] closed = new int[0];
+	private int generation = 0;
+	private int[] heap = new int[64];
+	private int[] heapPriority = new int[64];
+	private int[] heapDistance = new int[64];
+	private int heapSize;
+	private int expandedStates = 0;
+
+	/**
+	 *
+	 * @return the distance kept between the paths and the obstacles, in pixels
+	 */
+	public int getMargin() {
+		return margin;
+	}
+
+	public void setMargin(int margin) {
+		this.margin = margin;
+	}
+
+	/**
+	 *
+	 * @return the cost of a bend, in pixels of path length
+	 */
+	public int getBendPenalty() {
+		return bendPenalty;
+	}
+
+	public void setBendPenalty(int bendPenalty) {
+		this.bendPenalty = bendPenalty;
+	}
+
+	/**
+	 *
+	 * @return the maximum number of nodes of the visibility graph, above which no
+	 *         path is searched
+	 */
+	public int getMaxNodes() {
+		return maxNodes;
+	}
+
+	public void setMaxNodes(int maxNodes) {
+		this.maxNodes = maxNodes;
+	}
+
+	public void clearObstacles() {
+		obstacleCount = 0;
+	}
+
+	public void addObstacle(int left, int top, int width, int height) {
+		if ((obstacleCount + 1) * 4 > obstacles.length) {
+			obstacles = copy(obstacles, obstacles.length * 2);
+		}
+		int i = obstacleCount * 4;
+		obstacles[i] = left;
+		obstacles[i + 1] = top;
+		obstacles[i + 2] = left + width;
+		obstacles[i + 3] = top + height;
+		obstacleCount++;
+	}
+
+	public void addObstacle(Shape shape) {
+		addObstacle(shape.getLeft(), shape.getTop(), shape.getWidth(), shape.getHeight());
+	}
+
+	public int getObstacleCount() {
+		return obstacleCount;
+	}
+
+	/**
+	 *
+	 * @return the number of states expanded by the last search
+	 */
+	public int getExpandedStates() {
+		return expandedStates;
+	}
+
+	/**
+	 * Compute an orthogonal path between two shapes. The path leaves the start shape
+	 * and reaches the end shape through the middle of one of their sides. The two
+	 * shapes do not need to be registered as obstacles, they are ignored if they are.
+	 *
+	 * @return the points of the path, from the border of the start shape to the
+	 *         border of the end shape, or null if there is no path or if the
+	 *         visibility graph has more than {@link #getMaxNodes()} nodes
+	 */
+	public List<Point> route(Shape start, Shape end) {
+		return route(start.getLeft(), start.getTop(), start.getWidth(), start.getHeight(), end.getLeft(),
+				end.getTop(), end.getWidth(), end.getHeight());
+	}
+
+	/**
+	 * Compute an orthogonal path between two rectangles
+	 * 
+	 * @see #route(Shape, Shape)
+	 */
+	public List<Point> route(int startLeft, int startTop, int startWidth, int startHeight, int endLeft,
+			int endTop, int endWidth, int endHeight) {
+		int sl = startLeft;
+		int st = startTop;
+		int sr = sl + startWidth;
+		int sb = st + startHeight;
+		int el = endLeft;
+		int et = endTop;
+		int er = el + endWidth;
+		int eb = et + endHeight;
+		int scx = (sl + sr) / 2;
+		int scy = (st + sb) / 2;
+		int ecx = (el + er) / 2;
+		int ecy = (et + eb) / 2;
+		if (scx == ecx && scy == ecy) {
+			return null;
+		}
+
+		if (!buildGrid(sl, st, sr, sb, el, et, er, eb, scx, scy, ecx, ecy)) {
+			return null;
+		}
+		int source = Arrays.binarySearch(ys, 0, rows, scy) * columns + Arrays.binarySearch(xs, 0, columns, scx);
+		int target = Arrays.binarySearch(ys, 0, rows, ecy) * columns + Arrays.binarySearch(xs, 0, columns, ecx);
+		blockedNode[source] = false;
+		blockedNode[target] = false;
+		int last = search(source, target, ecx, ecy);
+		if (last < 0) {
+			return null;
+		}
+
+		// Keep only the bends
+		List<Point> path = new ArrayList<Point>();
+		int previousDirection = -1;
+		for (int state = last; state >= 0; state = parent[state]) {
+			int direction = state & 3;
+			if (direction != previousDirection || parent[state] < 0) {
+				int node = state >> 2;
+				path.add(0, new Point(xs[node % columns], ys[node / columns]));
+			}
+			previousDirection = direction;
+		}
+		Point first = new Point(scx, scy);
+		if (!path.get(0).equals(first)) {
+			path.add(0, first);
+		}
+		clipStart(path, sl, st, sr, sb);
+		Collections.reverse(path);
+		clipStart(path, el, et, er, eb);
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 *
+	 * @return false if the graph would have more than {@link #maxNodes} nodes
+	 */
+	private boolean buildGrid(int sl, int st, int sr, int sb, int el, int et, int er, int eb, int scx, int scy,
+			int ecx, int ecy) {
+		int lines = obstacleCount * 2 + 6;
+		if (xs.length < lines) {
+			xs = new int[lines * 2];
+			ys = new int[lines * 2];
+		}
+		int n = 0;
+		xs[n] = scx;
+		ys[n++] = scy;
+		xs[n] = ecx;
+		ys[n++] = ecy;
+		xs[n] = sl - margin;
+		ys[n++] = st - margin;
+		xs[n] = sr + margin;
+		ys[n++] = sb + margin;
+		xs[n] = el - margin;
+		ys[n++] = et - margin;
+		xs[n] = er + margin;
+		ys[n++] = eb + margin;
+		for (int i = 0; i < obstacleCount * 4; i += 4) {
+			if (isEndpoint(i, sl, st, sr, sb) || isEndpoint(i, el, et, er, eb)) {
+				continue;
+			}
+			xs[n] = obstacles[i] - margin;
+			ys[n++] = obstacles[i + 1] - margin;
+			xs[n] = obstacles[i + 2] + margin;
+			ys[n++] = obstacles[i + 3] + margin;
+		}
+		columns = sortUnique(xs, n);
+		rows = sortUnique(ys, n);
+
+		int nodes = columns * rows;
+		if (nodes > maxNodes) {
+			return false;
+		}
+		if (blockedNode.length < nodes) {
+			blockedNode = new boolean[nodes * 2];
+			blockedEast = new boolean[nodes * 2];
+			blockedSouth = new boolean[nodes * 2];
+			cost = new int[nodes * 8];
+			parent = new int[nodes * 8];
+			reached = new int[nodes * 8];
+			closed = new int[nodes * 8];
+			generation = 0;
+		}
+		Arrays.fill(blockedNode, 0, nodes, false);
+		Arrays.fill(blockedEast, 0, nodes, false);
+		Arrays.fill(blockedSouth, 0, nodes, false);
+
+		for (int i = 0; i < obstacleCount * 4; i += 4) {
+			if (isEndpoint(i, sl, st, sr, sb) || isEndpoint(i, el, et, er, eb)) {
+				continue;
+			}
+			block(obstacles[i] - margin, obstacles[i + 1] - margin, obstacles[i + 2] + margin,
+					obstacles[i + 3] + margin, Integer.MIN_VALUE, Integer.MIN_VALUE);
+		}
+		// The linked shapes can only be crossed from their center to their sides
+		block(sl, st, sr, sb, scx, scy);
+		block(el, et, er, eb, ecx, ecy);
+		return true;
+	}
+
+	private boolean isEndpoint(int i, int l, int t, int r, int b) {
+		return obstacles[i] == l && obstacles[i + 1] == t && obstacles[i + 2] == r && obstacles[i + 3] == b;
+	}
+
+	/**
+	 * Block the nodes and the edges strictly inside a rectangle, except the ones on
+	 * the lines crossing (openX, openY)
+	 */
+	private void block(int l, int t, int r, int b, int openX, int openY) {
+		int i0 = firstAbove(xs, columns, l);
+		int j0 = firstAbove(ys, rows, t);
+		for (int j = Math.max(0, j0 - 1); j < rows && ys[j] < b; j++) {
+			boolean rowInside = ys[j] > t;
+			for (int i = Math.max(0, i0 - 1); i < columns && xs[i] < r; i++) {
+				int node = j * columns + i;
+				boolean columnInside = xs[i] > l;
+				if (rowInside && columnInside && xs[i] != openX && ys[j] != openY) {
+					blockedNode[node] = true;
+				}
+				// Edge to the east, crossing the inside of the rectangle
+				if (rowInside && ys[j] != openY && i + 1 < columns && xs[i + 1] > l) {
+					blockedEast[node] = true;
+				}
+				// Edge to the south
+				if (columnInside && xs[i] != openX && j + 1 < rows && ys[j + 1] > t) {
+					blockedSouth[node] = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return the last state of the cheapest path, or -1
+	 */
+	private int search(int source, int target, int targetX, int targetY) {
+		// The costs of the previous searches are ignored instead of being cleared
+		generation++;
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(reached, 0);
+			Arrays.fill(closed, 0);
+			generation = 1;
+		}
+		heapSize = 0;
+		expandedStates = 0;
+		for (int direction = 0; direction < 4; direction++) {
+			int state = source * 4 + direction;
+			reached[state] = generation;
+			cost[state] = 0;
+			parent[state] = -1;
+			int h = heuristic(source, -1, targetX, targetY);
+			push(state, h, h);
+		}
+		while (heapSize > 0) {
+			int state = pop();
+			if (closed[state] == generation) {
+				continue;
+			}
+			closed[state] = generation;
+			expandedStates++;
+			int node = state >> 2;
+			if (node == target) {
+				return state;
+			}
+			int i = node % columns;
+			int j = node / columns;
+			int direction = state & 3;
+			if (i + 1 < columns && !blockedEast[node] && direction != WEST) {
+				relax(state, node + 1, EAST, xs[i + 1] - xs[i], targetX, targetY);
+			}
+			if (i > 0 && !blockedEast[node - 1] && direction != EAST) {
+				relax(state, node - 1, WEST, xs[i] - xs[i - 1], targetX, targetY);
+			}
+			if (j + 1 < rows && !blockedSouth[node] && direction != NORTH) {
+				relax(state, node + columns, SOUTH, ys[j + 1] - ys[j], targetX, targetY);
+			}
+			if (j > 0 && !blockedSouth[node - columns] && direction != SOUTH) {
+				relax(state, node - columns, NORTH, ys[j] - ys[j - 1], targetX, targetY);
+			}
+		}
+		return -1;
+	}
+
+	private void relax(int from, int node, int direction, int length, int targetX, int targetY) {
+		if (blockedNode[node]) {
+			return;
+		}
+		int state = node * 4 + direction;
+		int newCost = cost[from] + length;
+		// The first move from the source is not a bend
+		if ((from & 3) != direction && parent[from] >= 0) {
+			newCost += bendPenalty;
+		}
+		if (reached[state] != generation || newCost < cost[state]) {
+			reached[state] = generation;
+			cost[state] = newCost;
+			parent[state] = from;
+			int h = heuristic(node, direction, targetX, targetY);
+			push(state, newCost + h, h);
+		}
+	}
+
+	/**
+	 * Manhattan distance to the target, plus one bend if the target is not straight
+	 * ahead
+	 * 
+	 * @param direction
+	 *            direction of the state, or -1 for the source
+	 */
+	private int heuristic(int node, int direction, int targetX, int targetY) {
+		int dx = targetX - xs[node % columns];
+		int dy = targetY - ys[node / columns];
+		int distance = Math.abs(dx) + Math.abs(dy);
+		if (distance == 0) {
+			return 0;
+		}
+		int ahead;
+		if (dy == 0) {
+			ahead = dx > 0 ? EAST : WEST;
+		} else if (dx == 0) {
+			ahead = dy > 0 ? SOUTH : NORTH;
+		} else {
+			return distance + bendPenalty;
+		}
+		return direction < 0 || direction == ahead ? distance : distance + bendPenalty;
+	}
+
+	/**
+	 * The states are ordered by estimated cost, then by distance to the target, so
+	 * that among the many equivalent paths of a grid the deepest one is followed
+	 */
+	private static boolean isBefore(int priority, int distance, int otherPriority, int otherDistance) {
+		return priority < otherPriority || (priority == otherPriority && distance < otherDistance);
+	}
+
+	private void push(int state, int priority, int distance) {
+		if (heapSize == heap.length) {
+			heap = copy(heap, heapSize * 2);
+			heapPriority = copy(heapPriority, heapSize * 2);
+			heapDistance = copy(heapDistance, heapSize * 2);
+		}
+		int i = heapSize++;
+		while (i > 0) {
+			int up = (i - 1) / 2;
+			if (!isBefore(priority, distance, heapPriority[up], heapDistance[up])) {
+				break;
+			}
+			heap[i] = heap[up];
+			heapPriority[i] = heapPriority[up];
+			heapDistance[i] = heapDistance[up];
+			i = up;
+		}
+		heap[i] = state;
+		heapPriority[i] = priority;
+		heapDistance[i] = distance;
+	}
+
+	private int pop() {
+		int result = heap[0];
+		heapSize--;
+		int state = heap[heapSize];
+		int priority = heapPriority[heapSize];
+		int distance = heapDistance[heapSize];
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize
+					&& isBefore(heapPriority[child + 1], heapDistance[child + 1], heapPriority[child], heapDistance[child])) {
+				child++;
+			}
+			if (!isBefore(heapPriority[child], heapDistance[child], priority, distance)) {
+				break;
+			}
+			heap[i] = heap[child];
+			heapPriority[i] = heapPriority[child];
+			heapDistance[i] = heapDistance[child];
+			i = child;
+		}
+		heap[i] = state;
+		heapPriority[i] = priority;
+		heapDistance[i] = distance;
+		return result;
+	}
+
+	/**
+	 * Remove the beginning of the path inside a shape, and start the path on its border
+	 */
+	private static void clipStart(List<Point> path, int l, int t, int r, int b) {
+		if (r - l <= 1 && b - t <= 1) {
+			// A single point
+			return;
+		}
+		while (path.size() > 2 && isInside(path.get(1), l, t, r, b)) {
+			path.remove(0);
+		}
+		Point p0 = path.get(0);
+		Point p1 = path.get(1);
+		if (p0.getTop() == p1.getTop()) {
+			p0 = new Point(p1.getLeft() > p0.getLeft() ? r : l, p0.getTop());
+		} else {
+			p0 = new Point(p0.getLeft(), p1.getTop() > p0.getTop() ? b : t);
+		}
+		path.set(0, p0);
+		if (path.size() > 2 && p0.equals(p1)) {
+			path.remove(0);
+		}
+	}
+
+	private static boolean isInside(Point p, int l, int t, int r, int b) {
+		return p.getLeft() > l && p.getLeft() < r && p.getTop() > t && p.getTop() < b;
+	}
+
+	private static int firstAbove(int[] values, int count, int value) {
+		int i = Arrays.binarySearch(values, 0, count, value);
+		return i >= 0 ? i + 1 : -i - 1;
+	}
+
+	private static int[] copy(int[] array, int capacity) {
+		int[] copy = new int[capacity];
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	private static int sortUnique(int[] values, int count) {
+		Arrays.sort(values, 0, count);
+		int unique = 0;
+		for (int i = 0; i < count; i++) {
+			if (unique == 0 || values[i] != values[unique - 1]) {
+				values[unique++] = values[i];
+			}
+		}
+		return unique;
+	}
+
+}
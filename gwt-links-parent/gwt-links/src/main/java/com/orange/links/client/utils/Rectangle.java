@@ -14,10 +14,15 @@ public class Rectangle {
 
 	public Rectangle(Shape s){
 		shape = s;
-		cornerTopLeft = new Point(s.getLeft(),s.getTop());
-		cornerTopRight = new Point(s.getLeft()+s.getWidth(),s.getTop());
-		cornerBottomLeft = new Point(s.getLeft(),s.getTop()+s.getHeight());
-		cornerBottomRight = new Point(s.getLeft()+s.getWidth(),s.getTop()+s.getHeight());
+		// Read the bounds once, they may come from the DOM
+		int left = s.getLeft();
+		int top = s.getTop();
+		int right = left + s.getWidth();
+		int bottom = top + s.getHeight();
+		cornerTopLeft = new Point(left,top);
+		cornerTopRight = new Point(right,top);
+		cornerBottomLeft = new Point(left,bottom);
+		cornerBottomRight = new Point(right,bottom);
 	}
 	
 	public Rectangle(Point cornerTopLeft, Point cornerTopRight, Point cornerBottomLeft, Point cornerBottomRight){
@@ -0,0 +1,115 @@
+package com.orange.links.client.utils;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.Timer;
+
+/**
+ * Schedule the rendering of the diagram only when something has been invalidated.
+ * All the frame requests made before the frame is run are coalesced into a single frame.
+ * The frame is run on the next browser animation frame when requestAnimationFrame is
+ * available, or after a short delay with a timer otherwise.
+ *
+ * When nothing requests a frame, the scheduler stays fully idle.
+ */
+public class RenderScheduler {
+
+	private final Command frameCommand;
+	private final int fallbackDelay;
+	private final boolean animationFrameSupported;
+
+	private boolean scheduled = false;
+	private boolean paused = false;
+
+	private final Timer timer = new Timer() {
+		@Override
+		public void run() {
+			onAnimationFrame();
+		}
+	};
+
+	/**
+	 * @param frameCommand
+	 *            the command drawing one frame
+	 * @param fallbackDelay
+	 *            delay in milliseconds used when requestAnimationFrame is not available
+	 */
+	public RenderScheduler(Command frameCommand, int fallbackDelay) {
+		this.frameCommand = frameCommand;
+		this.fallbackDelay = fallbackDelay;
+		this.animationFrameSupported = GWT.isScript() && isAnimationFrameSupported();
+	}
+
+	/**
+	 * Ask for a frame to be drawn. Does nothing if a frame is already pending
+	 * or if the scheduler is paused.
+	 */
+	public void requestFrame() {
+		if (scheduled || paused) {
+			return;
+		}
+		scheduled = true;
+		if (animationFrameSupported) {
+			requestAnimationFrame();
+		} else {
+			timer.schedule(fallbackDelay);
+		}
+	}
+
+	/**
+	 * Stop drawing frames until {@link #resume()} is called
+	 */
+	public void pause() {
+		paused = true;
+		if (!animationFrameSupported) {
+			timer.cancel();
+			scheduled = false;
+		}
+	}
+
+	/**
+	 * Restart drawing frames and draw one immediately
+	 */
+	public void resume() {
+		paused = false;
+		requestFrame();
+	}
+
+	/**
+	 *
+	 * @return true if the scheduler has been paused
+	 */
+	public boolean isPaused() {
+		return paused;
+	}
+
+	/**
+	 *
+	 * @return true if a frame is waiting to be drawn
+	 */
+	public boolean isFrameScheduled() {
+		return scheduled;
+	}
+
+	protected void onAnimationFrame() {
+		scheduled = false;
+		if (!paused) {
+			frameCommand.execute();
+		}
+	}
+
+	private static native boolean isAnimationFrameSupported() /*-{
+		return !!($wnd.requestAnimationFrame || $wnd.webkitRequestAnimationFrame
+				|| $wnd.mozRequestAnimationFrame || $wnd.msRequestAnimationFrame);
+	}-*/;
+
+	private native void requestAnimationFrame() /*-{
+		var self = this;
+		var raf = $wnd.requestAnimationFrame || $wnd.webkitRequestAnimationFrame
+				|| $wnd.mozRequestAnimationFrame || $wnd.msRequestAnimationFrame;
+		raf.call($wnd, $entry(function() {
+			self.@com.orange.links.client.utils.RenderScheduler::onAnimationFrame()();
+		}));
+	}-*/;
+
+}
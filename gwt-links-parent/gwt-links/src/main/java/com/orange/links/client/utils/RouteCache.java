@@ -0,0 +1,90 @@
+package com.orange.links.client.utils;
+
+import java.util.List;
+
+import com.orange.links.client.shapes.Point;
+import com.orange.links.client.shapes.Shape;
+
+/**
+ * Inputs of the last path computed for a connection: the rectangles of its two
+ * ends and the positions of its movable points. While they are the same, the path
+ * does not have to be computed again.
+ *
+ * The hits and the misses of each cache are counted.
+ */
+public class RouteCache {
+
+	private int hitCount = 0;
+	private int missCount = 0;
+
+	private int[] key = new int[16];
+	// -1 if no path is cached
+	private int keyLength = -1;
+
+	/**
+	 * 
+	 * @return true if the cached path was computed from the same ends and movable points
+	 */
+	public boolean isValid(Shape start, Shape end, List<Point> waypoints) {
+		boolean valid = keyLength == 8 + waypoints.size() * 2
+				&& key[0] == start.getLeft() && key[1] == start.getTop()
+				&& key[2] == start.getWidth() && key[3] == start.getHeight()
+				&& key[4] == end.getLeft() && key[5] == end.getTop()
+				&& key[6] == end.getWidth() && key[7] == end.getHeight();
+		for (int i = 0; valid && i < waypoints.size(); i++) {
+			Point p = waypoints.get(i);
+			valid = key[8 + i * 2] == p.getLeft() && key[9 + i * 2] == p.getTop();
+		}
+		if (valid) {
+			hitCount++;
+		} else {
+			missCount++;
+		}
+		return valid;
+	}
+
+	/**
+	 * Remember the inputs of the path just computed
+	 */
+	public void store(Shape start, Shape end, List<Point> waypoints) {
+		keyLength = 8 + waypoints.size() * 2;
+		if (keyLength > key.length) {
+			key = new int[keyLength * 2];
+		}
+		key[0] = start.getLeft();
+		key[1] = start.getTop();
+		key[2] = start.getWidth();
+		key[3] = start.getHeight();
+		key[4] = end.getLeft();
+		key[5] = end.getTop();
+		key[6] = end.getWidth();
+		key[7] = end.getHeight();
+		for (int i = 0; i < waypoints.size(); i++) {
+			Point p = waypoints.get(i);
+			key[8 + i * 2] = p.getLeft();
+			key[9 + i * 2] = p.getTop();
+		}
+	}
+
+	/**
+	 * Forget the cached path, when it depends on something else than the inputs,
+	 * for example the obstacles around an orthogonal connection
+	 */
+	public void invalidate() {
+		keyLength = -1;
+	}
+
+	public int getHitCount() {
+		return hitCount;
+	}
+
+	public int getMissCount() {
+		return missCount;
+	}
+
+	public void resetCounters() {
+		hitCount = 0;
+		missCount = 0;
+	}
+
+}
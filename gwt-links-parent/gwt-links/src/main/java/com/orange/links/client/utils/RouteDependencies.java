@@ -0,0 +1,166 @@
+package com.orange.links.client.utils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shapes on which the path of each connection depends, besides its two ends: the
+ * obstacles which were taken into account when the path was routed. When a shape
+ * moves, only the connections depending on it have to be routed again.
+ *
+ * The tracker also counts the mutations and the connections they invalidated.
+ *
+ * @param <S>
+ *            type of the shapes
+ * @param <C>
+ *            type of the connections
+ */
+public class RouteDependencies<S, C> {
+
+	private final Map<C, Set<S>> dependencies = new HashMap<C, Set<S>>();
+	private final Map<S, Set<C>> dependents = new HashMap<S, Set<C>>();
+
+	private long mutationCount = 0;
+	private long invalidatedCount = 0;
+	private int lastInvalidatedCount = 0;
+	private int maxInvalidatedCount = 0;
+
+	/**
+	 * Replace the shapes on which the path of a connection depends
+	 */
+	public void setDependencies(C connection, Collection<? extends S> shapes) {
+		Set<S> previous = dependencies.get(connection);
+		if (previous == null) {
+			previous = new HashSet<S>();
+			dependencies.put(connection, previous);
+		}
+		for (S shape : previous) {
+			if (!shapes.contains(shape)) {
+				removeDependent(shape, connection);
+			}
+		}
+		for (S shape : shapes) {
+			if (!previous.contains(shape)) {
+				Set<C> connections = dependents.get(shape);
+				if (connections == null) {
+					connections = new HashSet<C>();
+					dependents.put(shape, connections);
+				}
+				connections.add(connection);
+			}
+		}
+		previous.clear();
+		previous.addAll(shapes);
+	}
+
+	/**
+	 *
+	 * @return true if the path of the connection depends on other shapes than its ends
+	 */
+	public boolean contains(C connection) {
+		return dependencies.containsKey(connection);
+	}
+
+	/**
+	 * Add to a collection the connections whose path depends on a shape
+	 */
+	public void collectDependents(S shape, Collection<C> result) {
+		Set<C> connections = dependents.get(shape);
+		if (connections != null) {
+			result.addAll(connections);
+		}
+	}
+
+	public int getDependentCount(S shape) {
+		Set<C> connections = dependents.get(shape);
+		return connections == null ? 0 : connections.size();
+	}
+
+	/**
+	 * Forget a removed connection
+	 */
+	public void remove(C connection) {
+		Set<S> shapes = dependencies.remove(connection);
+		if (shapes != null) {
+			for (S shape : shapes) {
+				removeDependent(shape, connection);
+			}
+		}
+	}
+
+	/**
+	 * Forget a removed shape, the paths which depended on it keep depending on their
+	 * other shapes
+	 */
+	public void removeShape(S shape) {
+		Set<C> connections = dependents.remove(shape);
+		if (connections != null) {
+			for (C connection : connections) {
+				dependencies.get(connection).remove(shape);
+			}
+		}
+	}
+
+	public void clear() {
+		dependencies.clear();
+		dependents.clear();
+	}
+
+	private void removeDependent(S shape, C connection) {
+		Set<C> connections = dependents.get(shape);
+		if (connections != null) {
+			connections.remove(connection);
+			if (connections.isEmpty()) {
+				dependents.remove(shape);
+			}
+		}
+	}
+
+	/**
+	 * Count a mutation of the diagram
+	 *
+	 * @param invalidated
+	 *            the number of connections it invalidated
+	 */
+	public void recordMutation(int invalidated) {
+		mutationCount++;
+		invalidatedCount += invalidated;
+		lastInvalidatedCount = invalidated;
+		maxInvalidatedCount = Math.max(maxInvalidatedCount, invalidated);
+	}
+
+	public long getMutationCount() {
+		return mutationCount;
+	}
+
+	/**
+	 *
+	 * @return the number of connections invalidated by all the mutations
+	 */
+	public long getInvalidatedCount() {
+		return invalidatedCount;
+	}
+
+	/**
+	 *
+	 * @return the number of connections invalidated by the last mutation
+	 */
+	public int getLastInvalidatedCount() {
+		return lastInvalidatedCount;
+	}
+
+	public int getMaxInvalidatedCount() {
+		return maxInvalidatedCount;
+	}
+
+	public void resetCounters() {
+		mutationCount = 0;
+		invalidatedCount = 0;
+		lastInvalidatedCount = 0;
+		maxInvalidatedCount = 0;
+	}
+
+}
@@ -38,7 +38,7 @@ public class Segment {
 	}
 	
 	public double length(){
-		return Math.sqrt((p2.getLeft()-p1.getLeft())^2+(p2.getTop()-p1.getTop())^2);
+		return GeometryKernel.length(p1.getLeft(), p1.getTop(), p2.getLeft(), p2.getTop());
 	}
 
 	public void translate(int left, int top){
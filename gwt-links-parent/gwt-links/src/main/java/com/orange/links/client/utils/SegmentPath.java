@@ -1,6 +1,7 @@
 package com.orange.links.client.utils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.orange.links.client.exception.DiagramViewNotDisplayedException;
@@ -12,14 +13,60 @@ public class SegmentPath {
 	private Shape startShape;
 	private Shape endShape;
 	private List<Point> pointList;
+	private List<Point> pendingWaypoints = new ArrayList<Point>();
+	// Segment computed by the geometry kernel, reused on each update
+	private final int[] segment = new int[4];
 
 	public SegmentPath(Shape startShape, Shape endShape) throws DiagramViewNotDisplayedException{
+		this(startShape, endShape, false);
+	}
+
+	/**
+	 * @param deferred
+	 *            if true, the path is only computed when it is first needed, so that
+	 *            the bounds of the shapes are not read while the diagram is being built
+	 */
+	public SegmentPath(Shape startShape, Shape endShape, boolean deferred) throws DiagramViewNotDisplayedException{
 		this.startShape = startShape;
 		this.endShape = endShape;
-		straightPath();
+		if(!deferred){
+			straightPath();
+		}
+	}
+
+	/**
+	 * Add a point just before the end of the path. If the path has not been
+	 * computed yet, the point is kept until it is.
+	 */
+	public void addWaypoint(Point insertPoint){
+		if(pointList == null){
+			pendingWaypoints.add(insertPoint);
+		}
+		else{
+			pointList.add(pointList.size()-1, insertPoint);
+		}
+	}
+
+	/**
+	 * 
+	 * @return true if the path has not been computed yet
+	 */
+	public boolean isDeferred(){
+		return pointList == null;
+	}
+
+	private void ensurePath(){
+		if(pointList == null){
+			List<Point> waypoints = pendingWaypoints;
+			straightPath();
+			for(Point p : waypoints){
+				pointList.add(pointList.size()-1, p);
+			}
+		}
 	}
 
 	public void add(Point insertPoint, Point startPoint, Point endPoint){
+		ensurePath();
 		int insertPosition;
 		for(int i=0;i<pointList.size();i++){
 			if(endPoint.equals(pointList.get(i))){
@@ -31,25 +78,43 @@ public class SegmentPath {
 	}
 
 	public void update() throws DiagramViewNotDisplayedException{
-		if(pointList.size()>2){
-			Segment startSegment 
-				= ConnectionUtils.computeSegment(this.startShape, pointList.get(1));
-			pointList.set(0, startSegment.getP1());
-			Segment endSegment 
-				= ConnectionUtils.computeSegment( pointList.get(pointList.size()-2),this.endShape);
-			pointList.set(pointList.size()-1, endSegment.getP2());
+		ensurePath();
+		int last = pointList.size()-1;
+		if(last>1){
+			if(!computeSegment(this.startShape, pointList.get(1)))
+				throw new DiagramViewNotDisplayedException();
+			setPoint(0, segment[0], segment[1]);
+			if(!computeSegment(pointList.get(last-1), this.endShape))
+				throw new DiagramViewNotDisplayedException();
+			setPoint(last, segment[2], segment[3]);
 		}
 		else{
 			// There is only one segment
-			Segment s = ConnectionUtils.computeSegment(this.startShape,this.endShape);
-			if(s == null)
+			if(!computeSegment(this.startShape,this.endShape))
 				throw new DiagramViewNotDisplayedException();
-			pointList.set(0, s.getP1());
-			pointList.set(1, s.getP2());
+			setPoint(0, segment[0], segment[1]);
+			setPoint(1, segment[2], segment[3]);
+		}
+	}
+
+	private boolean computeSegment(Shape s1, Shape s2){
+		return GeometryKernel.computeSegment(s1.getLeft(), s1.getTop(), s1.getWidth(), s1.getHeight(),
+				s2.getLeft(), s2.getTop(), s2.getWidth(), s2.getHeight(), segment);
+	}
+
+	/**
+	 * Replace an end of the path only if it has moved, so that an update of a
+	 * path whose shapes did not move allocates nothing
+	 */
+	private void setPoint(int index, int left, int top){
+		Point p = pointList.get(index);
+		if(p.getLeft() != left || p.getTop() != top){
+			pointList.set(index, new Point(left, top));
 		}
 	}
 	
 	public Segment getMiddleSegment(){
+		ensurePath();
 		int size = pointList.size();
 		Point p1 = pointList.get(Math.round(size/2-1));
 		Point p2 = pointList.get(Math.round(size/2));
@@ -58,10 +123,12 @@ public class SegmentPath {
 	}
 	
 	public Point getFirstPoint(){
+		ensurePath();
 		return pointList.get(0);
 	}
 	
 	public Point getLastPoint(){
+		ensurePath();
 		return pointList.get(pointList.size()-1);
 	}
 	
@@ -70,21 +137,25 @@ public class SegmentPath {
 	}
 	
 	public List<Point> getPath(){
+		ensurePath();
 		return pointList;
 	}
 	
 	public List<Point> getPathWithoutExtremities(){
+		if(pointList == null)
+			return new ArrayList<Point>(pendingWaypoints);
 		if(pointList.size() > 2)
 			return pointList.subList(1, pointList.size()-1);
-		return new ArrayList<Point>();
+		return Collections.emptyList();
 	}
 
 	public void straightPath() {
-		Segment s = ConnectionUtils.computeSegment(this.startShape,this.endShape);
+		boolean computed = computeSegment(this.startShape,this.endShape);
 		pointList = new ArrayList<Point>();
-		if(s == null)
+		pendingWaypoints = new ArrayList<Point>();
+		if(!computed)
 			throw new DiagramViewNotDisplayedException();
-		pointList.add(s.getP1());
-		pointList.add(s.getP2());
+		pointList.add(new Point(segment[0], segment[1]));
+		pointList.add(new Point(segment[2], segment[3]));
 	}
 }
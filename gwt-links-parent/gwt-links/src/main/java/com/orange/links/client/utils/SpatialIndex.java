@@ -0,0 +1,210 @@
+package com.orange.links.client.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid index of elements by the areas they cover.
+ *
+ * The plane is divided in square cells, and each element is registered in
+ * all the cells covered by its boxes. A query only looks at the elements
+ * registered in the cells around the queried point or area, so the result
+ * is a list of candidates which still have to be tested precisely.
+ *
+ * Areas outside of the indexed size are registered in the border cells.
+ */
+public class SpatialIndex<T> {
+
+	private final int cellSize;
+	private final int columns;
+	private final int rows;
+	private final List<T>[] cells;
+	private final Map<T, int[]> itemCells = new HashMap<T, int[]>();
+
+	private int[] cellBuffer = new int[16];
+	private int cellBufferSize;
+
+	/**
+	 * @param width
+	 *            width of the indexed area
+	 * @param height
+	 *            height of the indexed area
+	 * @param cellSize
+	 *            size of the side of a cell, in pixels
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public SpatialIndex(int width, int height, int cellSize) {
+		this.cellSize = cellSize;
+		this.columns = Math.max(1, (width + cellSize - 1) / cellSize);
+		this.rows = Math.max(1, (height + cellSize - 1) / cellSize);
+		this.cells = new List[columns * rows];
+	}
+
+	/**
+	 * Register an element, or move it if it is already registered
+	 *
+	 * @param item
+	 *            the element
+	 * @param box
+	 *            the area covered by the element
+	 */
+	public void put(T item, BoundingBox box) {
+		remove(item);
+		cellBufferSize = 0;
+		collectCells(box);
+		register(item);
+	}
+
+	/**
+	 * Register an element covering several areas, or move it if it is already registered
+	 *
+	 * @param item
+	 *            the element
+	 * @param boxes
+	 *            the areas covered by the element
+	 */
+	public void put(T item, Collection<BoundingBox> boxes) {
+		remove(item);
+		cellBufferSize = 0;
+		for (BoundingBox box : boxes) {
+			collectCells(box);
+		}
+		register(item);
+	}
+
+	/**
+	 * Unregister an element
+	 *
+	 * @return true if the element was registered
+	 */
+	public boolean remove(T item) {
+		int[] covered = itemCells.remove(item);
+		if (covered == null) {
+			return false;
+		}
+		for (int cell : covered) {
+			cells[cell].remove(item);
+		}
+		return true;
+	}
+
+	public boolean contains(T item) {
+		return itemCells.containsKey(item);
+	}
+
+	public void clear() {
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = null;
+		}
+		itemCells.clear();
+	}
+
+	/**
+	 *
+	 * @return number of registered elements
+	 */
+	public int size() {
+		return itemCells.size();
+	}
+
+	/**
+	 * Find the elements registered around a point
+	 *
+	 * @param result
+	 *            collection cleared and filled with the candidates, without duplicates
+	 */
+	public void query(int x, int y, Collection<T> result) {
+		result.clear();
+		List<T> cell = cells[cellIndex(column(x), row(y))];
+		if (cell != null) {
+			result.addAll(cell);
+		}
+	}
+
+	/**
+	 * Find the elements registered in the cells covered by an area
+	 *
+	 * @param result
+	 *            collection cleared and filled with the candidates, without duplicates
+	 */
+	public void query(BoundingBox area, Collection<T> result) {
+		result.clear();
+		if (area.isEmpty()) {
+			return;
+		}
+		int firstColumn = column(area.getLeft());
+		int lastColumn = column(area.getRight() - 1);
+		int firstRow = row(area.getTop());
+		int lastRow = row(area.getBottom() - 1);
+		for (int r = firstRow; r <= lastRow; r++) {
+			for (int c = firstColumn; c <= lastColumn; c++) {
+				List<T> cell = cells[cellIndex(c, r)];
+				if (cell == null) {
+					continue;
+				}
+				for (T item : cell) {
+					if (!result.contains(item)) {
+						result.add(item);
+					}
+				}
+			}
+		}
+	}
+
+	private void collectCells(BoundingBox box) {
+		if (box.isEmpty()) {
+			return;
+		}
+		int firstColumn = column(box.getLeft());
+		int lastColumn = column(box.getRight() - 1);
+		int firstRow = row(box.getTop());
+		int lastRow = row(box.getBottom() - 1);
+		for (int r = firstRow; r <= lastRow; r++) {
+			for (int c = firstColumn; c <= lastColumn; c++) {
+				addCell(cellIndex(c, r));
+			}
+		}
+	}
+
+	private void addCell(int cell) {
+		for (int i = 0; i < cellBufferSize; i++) {
+			if (cellBuffer[i] == cell) {
+				return;
+			}
+		}
+		if (cellBufferSize == cellBuffer.length) {
+			int[] larger = new int[cellBuffer.length * 2];
+			System.arraycopy(cellBuffer, 0, larger, 0, cellBufferSize);
+			cellBuffer = larger;
+		}
+		cellBuffer[cellBufferSize++] = cell;
+	}
+
+	private void register(T item) {
+		int[] covered = new int[cellBufferSize];
+		System.arraycopy(cellBuffer, 0, covered, 0, cellBufferSize);
+		for (int cell : covered) {
+			if (cells[cell] == null) {
+				cells[cell] = new ArrayList<T>(4);
+			}
+			cells[cell].add(item);
+		}
+		itemCells.put(item, covered);
+	}
+
+	private int column(int x) {
+		return Math.min(columns - 1, Math.max(0, x / cellSize));
+	}
+
+	private int row(int y) {
+		return Math.min(rows - 1, Math.max(0, y / cellSize));
+	}
+
+	private int cellIndex(int column, int row) {
+		return row * columns + column;
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.orange.links.layout.tests;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.layout.ForceDirectedLayout;
+import com.orange.links.client.layout.LayoutGraph;
+
+public class ForceDirectedLayoutTest extends TestCase{
+
+	private double distance(LayoutGraph graph, int a, int b){
+		double dx = graph.getLeft(a) - graph.getLeft(b);
+		double dy = graph.getTop(a) - graph.getTop(b);
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+
+	private void run(ForceDirectedLayout layout, LayoutGraph graph){
+		layout.start(graph);
+		int steps = 0;
+		while(layout.step()){
+			steps++;
+		}
+		assertEquals(1.0, layout.getProgress());
+	}
+
+	/**
+	 * A grid of widgets, all imported at the same place, each one tied to its right
+	 * and bottom neighbours
+	 */
+	private LayoutGraph grid(int columns, int rows){
+		LayoutGraph graph = new LayoutGraph();
+		for(int i = 0; i < columns * rows; i++){
+			graph.addNode(0, 0, 40, 20);
+		}
+		for(int i = 0; i < columns * rows; i++){
+			if(i % columns < columns - 1){
+				graph.addEdge(i, i + 1);
+			}
+			if(i + columns < columns * rows){
+				graph.addEdge(i, i + columns);
+			}
+		}
+		return graph;
+	}
+
+	public void testSpread(){
+		LayoutGraph graph = grid(10, 10);
+		ForceDirectedLayout layout = new ForceDirectedLayout();
+		layout.setIdealLength(100);
+		run(layout, graph);
+		double minDistance = Double.MAX_VALUE;
+		int minLeft = Integer.MAX_VALUE;
+		int minTop = Integer.MAX_VALUE;
+		for(int i = 0; i < graph.getNodeCount(); i++){
+			minLeft = Math.min(minLeft, graph.getLeft(i));
+			minTop = Math.min(minTop, graph.getTop(i));
+			for(int j = i + 1; j < graph.getNodeCount(); j++){
+				minDistance = Math.min(minDistance, distance(graph, i, j));
+			}
+		}
+		assertTrue("" + minDistance, minDistance > 30);
+		assertEquals(20, minLeft);
+		assertEquals(20, minTop);
+	}
+
+	public void testConnectedCloser(){
+		LayoutGraph graph = grid(10, 10);
+		ForceDirectedLayout layout = new ForceDirectedLayout();
+		layout.setIdealLength(100);
+		run(layout, graph);
+		// The tied widgets are closer than the opposite corners of the grid
+		double edges = 0;
+		for(int e = 0; e < graph.getEdgeCount(); e++){
+			edges += distance(graph, graph.getSource(e), graph.getTarget(e));
+		}
+		edges /= graph.getEdgeCount();
+		assertTrue("" + edges, edges < 200);
+		assertTrue(distance(graph, 0, 99) > 4 * edges);
+		assertTrue(distance(graph, 9, 90) > 4 * edges);
+	}
+
+	public void testApproximation(){
+		// Same kind of layout with the exact and the approximated repulsion
+		LayoutGraph exact = grid(8, 8);
+		LayoutGraph approximated = grid(8, 8);
+		ForceDirectedLayout layout = new ForceDirectedLayout();
+		layout.setIdealLength(100);
+		layout.setTheta(0);
+		run(layout, exact);
+		layout.setTheta(0.7);
+		run(layout, approximated);
+		double ratio = distance(exact, 0, 63) / distance(approximated, 0, 63);
+		assertTrue("" + ratio, ratio > 0.8 && ratio < 1.25);
+	}
+
+}
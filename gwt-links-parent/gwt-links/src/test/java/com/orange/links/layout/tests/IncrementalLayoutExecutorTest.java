@@ -0,0 +1,138 @@
+package com.orange.links.layout.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.orange.links.client.layout.DiagramLayout;
+import com.orange.links.client.layout.DiagramLayoutCallback;
+import com.orange.links.client.layout.IncrementalLayoutExecutor;
+import com.orange.links.client.layout.LayeredLayout;
+import com.orange.links.client.layout.LayoutGraph;
+
+public class IncrementalLayoutExecutorTest extends TestCase{
+
+	/**
+	 * Executor keeping the scheduled slices, run by the test
+	 */
+	private static class TestExecutor extends IncrementalLayoutExecutor{
+
+		List<RepeatingCommand> commands = new ArrayList<RepeatingCommand>();
+
+		@Override
+		protected void schedule(RepeatingCommand command){
+			commands.add(command);
+		}
+
+		void runAll(){
+			for(RepeatingCommand command : commands){
+				while(command.execute()){
+				}
+			}
+			commands.clear();
+		}
+	}
+
+	private static class Callback implements DiagramLayoutCallback{
+
+		int laidOut = 0;
+		int cancelled = 0;
+
+		public void onProgress(double progress){
+		}
+
+		public void onLaidOut(){
+			laidOut++;
+		}
+
+		public void onCancelled(){
+			cancelled++;
+		}
+	}
+
+	/**
+	 * Layout never done, or failing on its first step
+	 */
+	private static class EndlessLayout implements DiagramLayout{
+
+		private final boolean fail;
+
+		EndlessLayout(boolean fail){
+			this.fail = fail;
+		}
+
+		public void start(LayoutGraph graph){
+		}
+
+		public boolean step(){
+			if(fail){
+				throw new IllegalStateException("Layout failed");
+			}
+			return true;
+		}
+
+		public double getProgress(){
+			return 0;
+		}
+	}
+
+	private LayoutGraph graph(){
+		LayoutGraph graph = new LayoutGraph();
+		graph.addNode(0, 0, 80, 40);
+		graph.addNode(0, 0, 80, 40);
+		graph.addEdge(0, 1);
+		return graph;
+	}
+
+	public void testLayout(){
+		TestExecutor executor = new TestExecutor();
+		Callback callback = new Callback();
+		executor.execute(new LayeredLayout(), graph(), callback);
+		executor.runAll();
+		assertEquals(1, callback.laidOut);
+		executor.cancel();
+		assertEquals(0, callback.cancelled);
+	}
+
+	public void testCancel(){
+		TestExecutor executor = new TestExecutor();
+		Callback first = new Callback();
+		executor.execute(new EndlessLayout(false), graph(), first);
+		RepeatingCommand command = executor.commands.remove(0);
+		assertTrue(command.execute());
+
+		Callback second = new Callback();
+		executor.execute(new LayeredLayout(), graph(), second);
+		assertEquals(1, first.cancelled);
+		assertFalse(command.execute());
+		executor.runAll();
+		assertEquals(0, first.laidOut);
+		assertEquals(1, second.laidOut);
+	}
+
+	public void testFailure(){
+		TestExecutor executor = new TestExecutor();
+		Callback failed = new Callback();
+		executor.execute(new EndlessLayout(true), graph(), failed);
+		try{
+			executor.runAll();
+			fail();
+		}catch(IllegalStateException e){
+			// Expected
+		}
+		executor.commands.clear();
+
+		// The failed layout is not running anymore
+		executor.cancel();
+		assertEquals(0, failed.cancelled);
+
+		Callback next = new Callback();
+		executor.execute(new LayeredLayout(), graph(), next);
+		executor.runAll();
+		assertEquals(0, failed.cancelled);
+		assertEquals(1, next.laidOut);
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.orange.links.layout.tests;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.layout.LayeredLayout;
+import com.orange.links.client.layout.LayoutGraph;
+
+public class LayeredLayoutTest extends TestCase{
+
+	private LayoutGraph graph(int nodes, int... edges){
+		LayoutGraph graph = new LayoutGraph();
+		for(int i = 0; i < nodes; i++){
+			graph.addNode(0, 0, 80, 40);
+		}
+		for(int i = 0; i < edges.length; i += 2){
+			graph.addEdge(edges[i], edges[i + 1]);
+		}
+		return graph;
+	}
+
+	private void run(LayeredLayout layout, LayoutGraph graph){
+		layout.start(graph);
+		while(layout.step()){
+		}
+		assertEquals(1.0, layout.getProgress());
+	}
+
+	private int centerX(LayoutGraph graph, int node){
+		return graph.getLeft(node) + graph.getWidth(node) / 2;
+	}
+
+	public void testLayers(){
+		LayoutGraph graph = graph(3, 0, 1, 1, 2, 0, 2);
+		run(new LayeredLayout(), graph);
+		assertEquals(20, graph.getTop(0));
+		assertEquals(120, graph.getTop(1));
+		assertEquals(220, graph.getTop(2));
+	}
+
+	public void testCycle(){
+		LayoutGraph graph = graph(3, 0, 1, 1, 2, 2, 0);
+		run(new LayeredLayout(), graph);
+		assertTrue(graph.getTop(0) < graph.getTop(1));
+		assertTrue(graph.getTop(1) < graph.getTop(2));
+	}
+
+	public void testNoCrossing(){
+		// Each node of the first layer tied to the mirrored node of the second one
+		LayoutGraph graph = graph(8, 0, 7, 1, 6, 2, 5, 3, 4);
+		run(new LayeredLayout(), graph);
+		for(int a = 0; a < 4; a++){
+			for(int b = a + 1; b < 4; b++){
+				boolean sourcesOrdered = graph.getLeft(a) < graph.getLeft(b);
+				boolean targetsOrdered = graph.getLeft(7 - a) < graph.getLeft(7 - b);
+				assertEquals(sourcesOrdered, targetsOrdered);
+			}
+		}
+	}
+
+	public void testSpacing(){
+		LayoutGraph graph = graph(4, 0, 1, 0, 2, 0, 3);
+		LayeredLayout layout = new LayeredLayout();
+		layout.setNodeSpacing(20);
+		run(layout, graph);
+		// The parent is centered over its children, which do not overlap
+		assertEquals(centerX(graph, 2), centerX(graph, 0));
+		assertEquals(100, Math.abs(graph.getLeft(1) - graph.getLeft(2)));
+		assertEquals(100, Math.abs(graph.getLeft(3) - graph.getLeft(2)));
+	}
+
+	public void testLeftToRight(){
+		LayoutGraph graph = graph(2, 0, 1);
+		LayeredLayout layout = new LayeredLayout();
+		layout.setLeftToRight(true);
+		run(layout, graph);
+		assertEquals(graph.getTop(0), graph.getTop(1));
+		assertEquals(140, graph.getLeft(1) - graph.getLeft(0));
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.orange.links.layout.tests;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.layout.DiagramLayoutCallback;
+import com.orange.links.client.layout.LayeredLayout;
+import com.orange.links.client.layout.LayoutGraph;
+import com.orange.links.client.layout.SynchronousLayoutExecutor;
+
+public class LayoutGraphTest extends TestCase{
+
+	private LayoutGraph graph(){
+		LayoutGraph graph = new LayoutGraph();
+		graph.addNode(0, 0, 80, 40);
+		graph.addNode(10, 20, 60, 30);
+		graph.addNode(30, 40, 50, 50);
+		graph.addEdge(0, 1);
+		graph.addEdge(0, 2);
+		return graph;
+	}
+
+	public void testSynchronousLayout(){
+		LayoutGraph graph = graph();
+		final boolean[] laidOut = new boolean[1];
+		new SynchronousLayoutExecutor().execute(new LayeredLayout(), graph, new DiagramLayoutCallback() {
+			public void onProgress(double progress){
+			}
+
+			public void onLaidOut(){
+				laidOut[0] = true;
+			}
+
+			public void onCancelled(){
+				fail();
+			}
+		});
+		assertTrue(laidOut[0]);
+		assertTrue(graph.getTop(0) < graph.getTop(1));
+	}
+
+}
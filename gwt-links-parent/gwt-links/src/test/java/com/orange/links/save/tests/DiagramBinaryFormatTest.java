@@ -0,0 +1,95 @@
+package com.orange.links.save.tests;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.save.Base64Codec;
+import com.orange.links.client.save.DecorationModel;
+import com.orange.links.client.save.DiagramModel;
+import com.orange.links.client.save.DiagramSerializationService;
+import com.orange.links.client.save.FunctionModel;
+import com.orange.links.client.save.LinkModel;
+
+public class DiagramBinaryFormatTest extends TestCase{
+
+	private DiagramModel createModel(){
+		DiagramModel model = new DiagramModel();
+		model.setDiagramProperties(800, 600, true);
+		for(int i = 1; i <= 3; i++){
+			FunctionModel function = new FunctionModel();
+			function.id = i + "";
+			function.identifier = "function";
+			function.left = -10 * i;
+			function.top = 20 * i;
+			function.content = i == 2 ? null : "caf\u00e9 " + i;
+			model.addFunction(function);
+		}
+		LinkModel link = new LinkModel();
+		link.startId = "1";
+		link.endId = "2";
+		link.type = "straight";
+		link.decoration = new DecorationModel();
+		link.decoration.identifier = "label";
+		link.decoration.content = "";
+		link.pointList = new int[][]{{100, 40}, {-150, 60}, {70000, 0}};
+		model.addLink(link);
+		return model;
+	}
+
+	public void testRoundTrip(){
+		DiagramModel model = DiagramSerializationService.importDiagramBinary(
+				DiagramSerializationService.exportDiagramBinary(createModel()));
+		assertEquals(800, model.getWidth());
+		assertEquals(600, model.getHeight());
+		assertTrue(model.isHasGrid());
+		assertEquals(3, model.getFunctionRepresentationSet().size());
+		for(FunctionModel function : model.getFunctionRepresentationSet()){
+			int i = Integer.parseInt(function.id);
+			assertEquals("function", function.identifier);
+			assertEquals(-10 * i, function.left);
+			assertEquals(20 * i, function.top);
+			assertEquals(i == 2 ? null : "caf\u00e9 " + i, function.content);
+		}
+		LinkModel link = model.getLinkRepresentationSet().iterator().next();
+		assertEquals("1", link.startId);
+		assertEquals("2", link.endId);
+		assertEquals("straight", link.type);
+		assertEquals("label", link.decoration.identifier);
+		assertEquals("", link.decoration.content);
+		assertEquals(3, link.pointList.length);
+		assertEquals(-150, link.pointList[1][0]);
+		assertEquals(70000, link.pointList[2][0]);
+		assertEquals(0, link.pointList[2][1]);
+	}
+
+	public void testSmallerThanXml(){
+		DiagramModel model = createModel();
+		assertTrue(DiagramSerializationService.exportDiagramBinary(model).length()
+				< DiagramSerializationService.exportDiagram(model, false).length() / 2);
+	}
+
+	public void testBase64(){
+		for(int length = 0; length < 8; length++){
+			byte[] bytes = new byte[length];
+			for(int i = 0; i < length; i++){
+				bytes[i] = (byte) (i * 97 - 128);
+			}
+			byte[] decoded = Base64Codec.decode(Base64Codec.encode(bytes, length));
+			assertEquals(length, decoded.length);
+			for(int i = 0; i < length; i++){
+				assertEquals(bytes[i], decoded[i]);
+			}
+		}
+		assertEquals("TWFu", Base64Codec.encode("Man".getBytes(), 3));
+		assertEquals("TWE=", Base64Codec.encode("Ma".getBytes(), 2));
+	}
+
+	public void testUnknownVersion(){
+		try{
+			DiagramSerializationService.importDiagramBinary(Base64Codec.encode(new byte[]{'G', 'L', 99}, 3));
+			fail();
+		}
+		catch(IllegalArgumentException e){
+		}
+	}
+
+}
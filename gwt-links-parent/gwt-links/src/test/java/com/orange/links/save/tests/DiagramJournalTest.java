@@ -0,0 +1,123 @@
+package com.orange.links.save.tests;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.save.DiagramChange;
+import com.orange.links.client.save.DiagramChange.Type;
+import com.orange.links.client.save.DiagramJournal;
+import com.orange.links.client.save.DiagramPatch;
+import com.orange.links.client.save.DiagramSerializationService;
+
+public class DiagramJournalTest extends TestCase{
+
+	private DiagramChange move(String id, int left, int top){
+		DiagramChange change = new DiagramChange(Type.MOVE_FUNCTION, id);
+		change.left = left;
+		change.top = top;
+		return change;
+	}
+
+	public void testSuccessiveChangesAreMerged(){
+		DiagramJournal journal = new DiagramJournal();
+		journal.record(new DiagramChange(Type.ADD_FUNCTION, "1"));
+		journal.record(move("1", 10, 10));
+		journal.record(move("1", 20, -5));
+		journal.record(move("2", 0, 0));
+		assertEquals(4, journal.getRevision());
+		DiagramPatch patch = journal.getPatch(0);
+		assertEquals(3, patch.getChanges().size());
+		assertEquals(20, patch.getChanges().get(1).left);
+		assertEquals(3, patch.getChanges().get(1).revision);
+	}
+
+	public void testPatchSinceRevision(){
+		DiagramJournal journal = new DiagramJournal();
+		journal.record(new DiagramChange(Type.ADD_FUNCTION, "1"));
+		journal.record(new DiagramChange(Type.ADD_FUNCTION, "2"));
+		journal.record(new DiagramChange(Type.TIE_LINK, "1", "2"));
+		DiagramPatch patch = journal.getPatch(2);
+		assertEquals(2, patch.getBaseRevision());
+		assertEquals(3, patch.getRevision());
+		assertEquals(1, patch.getChanges().size());
+		assertEquals(Type.TIE_LINK, patch.getChanges().get(0).type);
+		assertTrue(journal.getPatch(3).isEmpty());
+
+		journal.discardUntil(2);
+		assertEquals(2, journal.getBaseRevision());
+		assertEquals(1, journal.getPatch(2).getChanges().size());
+		try{
+			journal.getPatch(1);
+			fail();
+		}
+		catch(IllegalArgumentException e){
+		}
+	}
+
+	public void testPausedRecording(){
+		DiagramJournal journal = new DiagramJournal();
+		journal.setRecording(false);
+		journal.record(new DiagramChange(Type.CLEAR, null));
+		assertEquals(0, journal.getRevision());
+		journal.setRecording(true);
+		journal.record(new DiagramChange(Type.CLEAR, null));
+		journal.reset(journal.getRevision());
+		assertEquals(1, journal.getRevision());
+		assertTrue(journal.getPatch(1).isEmpty());
+	}
+
+	public void testPatchRoundTrip(){
+		DiagramJournal journal = new DiagramJournal();
+		DiagramChange add = new DiagramChange(Type.ADD_FUNCTION, "7");
+		add.identifier = "function";
+		add.content = "content";
+		add.left = -3;
+		add.top = 400;
+		journal.record(add);
+		DiagramChange points = new DiagramChange(Type.SET_POINTS, "7", "8");
+		points.pointList = new int[][]{{10, 20}, {5, 300}};
+		journal.record(points);
+		DiagramChange decoration = new DiagramChange(Type.SET_DECORATION, "7", "8");
+		journal.record(decoration);
+
+		DiagramPatch patch = DiagramSerializationService.importPatch(
+				DiagramSerializationService.exportPatch(journal.getPatch(0)));
+		assertEquals(0, patch.getBaseRevision());
+		assertEquals(3, patch.getRevision());
+		assertEquals(3, patch.getChanges().size());
+		DiagramChange change = patch.getChanges().get(0);
+		assertEquals(Type.ADD_FUNCTION, change.type);
+		assertEquals("7", change.id);
+		assertEquals("function", change.identifier);
+		assertEquals("content", change.content);
+		assertEquals(-3, change.left);
+		assertEquals(400, change.top);
+		change = patch.getChanges().get(1);
+		assertEquals("8", change.endId);
+		assertEquals(300, change.pointList[1][1]);
+		change = patch.getChanges().get(2);
+		assertEquals(Type.SET_DECORATION, change.type);
+		assertNull(change.identifier);
+		assertEquals(3, change.revision);
+	}
+
+	public void testLastChangeRoundTrip(){
+		// Each type of change as the last one of a patch, with all its strings set
+		for(Type type : Type.values()){
+			DiagramChange change = new DiagramChange(type, "1", "2");
+			change.identifier = "identifier";
+			change.content = "content";
+			change.pointList = new int[][]{{10, 20}};
+			DiagramJournal journal = new DiagramJournal();
+			journal.record(change);
+			DiagramPatch patch = DiagramSerializationService.importPatch(
+					DiagramSerializationService.exportPatch(journal.getPatch(0)));
+			assertEquals(1, patch.getChanges().size());
+			DiagramChange imported = patch.getChanges().get(0);
+			assertEquals(type, imported.type);
+			if(type != Type.CLEAR){
+				assertEquals("1", imported.id);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.orange.links.save.tests;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.save.DiagramModel;
+import com.orange.links.client.save.FunctionModel;
+import com.orange.links.client.save.LinkModel;
+
+public class DiagramModelTest extends TestCase{
+
+	private FunctionModel function(String id){
+		FunctionModel function = new FunctionModel();
+		function.id = id;
+		return function;
+	}
+
+	private LinkModel link(String startId, String endId){
+		LinkModel link = new LinkModel();
+		link.startId = startId;
+		link.endId = endId;
+		link.pointList = new int[0][];
+		return link;
+	}
+
+	public void testLookups(){
+		DiagramModel model = new DiagramModel();
+		FunctionModel f1 = function("1");
+		model.addFunction(f1);
+		model.addFunction(function("2"));
+		model.addFunction(function("3"));
+		model.addLink(link("1", "2"));
+		model.addLink(link("1", "3"));
+		model.addLink(link("2", "3"));
+
+		assertSame(f1, model.getFunction("1"));
+		assertNull(model.getFunction("4"));
+		assertEquals(2, model.getStartingLinks("1").size());
+		assertEquals(0, model.getIncomingLinks("1").size());
+		assertEquals(2, model.getIncomingLinks("3").size());
+		assertEquals("1", model.getIncomingLinks("2").get(0).startId);
+		assertEquals(0, model.getStartingLinks(null).size());
+	}
+
+	public void testSetsModifiedDirectly(){
+		DiagramModel model = new DiagramModel();
+		model.addFunction(function("1"));
+		assertNull(model.getFunction("2"));
+		model.getFunctionRepresentationSet().add(function("2"));
+		model.getLinkRepresentationSet().add(link("2", "1"));
+		assertEquals("2", model.getFunction("2").id);
+		assertEquals(1, model.getIncomingLinks("1").size());
+	}
+
+	public void testSetsReplacedDirectly(){
+		DiagramModel model = new DiagramModel();
+		FunctionModel f1 = function("1");
+		LinkModel l1 = link("1", "1");
+		model.addFunction(f1);
+		model.addLink(l1);
+		assertSame(f1, model.getFunction("1"));
+		assertEquals(1, model.getStartingLinks("1").size());
+		model.getFunctionRepresentationSet().remove(f1);
+		model.getFunctionRepresentationSet().add(function("2"));
+		model.getLinkRepresentationSet().remove(l1);
+		model.getLinkRepresentationSet().add(link("2", "1"));
+		assertNull(model.getFunction("1"));
+		assertEquals("2", model.getFunction("2").id);
+		assertEquals(0, model.getStartingLinks("1").size());
+		assertEquals(1, model.getStartingLinks("2").size());
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.orange.links.save.tests;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.save.DiagramModel;
+import com.orange.links.client.save.DiagramXmlReader;
+import com.orange.links.client.save.FunctionModel;
+import com.orange.links.client.save.LinkModel;
+
+public class DiagramXmlReaderTest extends TestCase{
+
+	private static final String EXPORT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n\n"
+			+ "<diagram width=\"800\" heigth=\"600\" grid=\"true\">\n"
+			+ "<function left=\"10\" top=\"20\" id=\"1\" identifier=\"a&amp;b\">\n"
+			+ "x &lt; y</function>\n"
+			+ "<function left=\"200\" top=\"20\" id=\"2\" identifier=\"b\"/>\n"
+			+ "<link startid=\"1\" endid=\"2\">\n"
+			+ "<decoration identifier=\"label\">\n"
+			+ " hello </decoration>\n"
+			+ "<point x=\"100\" y=\"40\"/>\n"
+			+ "<point x=\"150\" y=\"60\"/>\n"
+			+ "</link>\n"
+			+ "</diagram>\n";
+
+	public void testReadAll(){
+		DiagramModel model = new DiagramXmlReader(EXPORT).readAll();
+		assertEquals(800, model.getWidth());
+		assertEquals(600, model.getHeight());
+		assertTrue(model.isHasGrid());
+		assertEquals(2, model.getFunctionRepresentationSet().size());
+		for(FunctionModel function : model.getFunctionRepresentationSet()){
+			if(function.id.equals("1")){
+				assertEquals("a&b", function.identifier);
+				assertEquals("\nx &lt; y", function.content);
+				assertEquals(10, function.left);
+				assertEquals(20, function.top);
+			} else {
+				assertNull(function.content);
+			}
+		}
+		
+		assertEquals(1, model.getLinkRepresentationSet().size());
+		LinkModel link = model.getLinkRepresentationSet().iterator().next();
+		assertEquals("1", link.startId);
+		assertEquals("2", link.endId);
+		assertNull(link.type);
+		assertEquals("hello", link.decoration.content);
+		assertEquals(2, link.pointList.length);
+		assertEquals(150, link.pointList[1][0]);
+		assertEquals(60, link.pointList[1][1]);
+	}
+	
+	public void testReadInSlices(){
+		DiagramXmlReader reader = new DiagramXmlReader(EXPORT);
+		int slices = 0;
+		while(reader.read(2)){
+			slices++;
+			assertTrue(reader.getProgress() < 1);
+		}
+		assertTrue(slices > 3);
+		assertEquals(1.0, reader.getProgress());
+		assertEquals(2, reader.getModel().getFunctionRepresentationSet().size());
+		assertEquals(1, reader.getModel().getLinkRepresentationSet().size());
+	}
+	
+}
@@ -0,0 +1,66 @@
+package com.orange.links.save.tests;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.save.DecorationModel;
+import com.orange.links.client.save.DiagramModel;
+import com.orange.links.client.save.DiagramXmlReader;
+import com.orange.links.client.save.DiagramXmlWriter;
+import com.orange.links.client.save.FunctionModel;
+import com.orange.links.client.save.LinkModel;
+
+public class DiagramXmlWriterTest extends TestCase{
+
+	private DiagramModel createModel(){
+		DiagramModel model = new DiagramModel();
+		model.setDiagramProperties(800, 600, false);
+		FunctionModel function = new FunctionModel();
+		function.id = "1";
+		function.identifier = "a\"b";
+		function.left = 10;
+		function.top = 20;
+		function.content = "x < y & z";
+		model.addFunction(function);
+		LinkModel link = new LinkModel();
+		link.startId = "1";
+		link.endId = "1";
+		link.decoration = new DecorationModel();
+		link.decoration.identifier = "label";
+		link.decoration.content = "hello";
+		link.pointList = new int[][]{{100, 40}, {150, 60}};
+		model.addLink(link);
+		return model;
+	}
+	
+	public void testPrettyExport(){
+		String expected = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n\n"
+				+ "<diagram width=\"800\" heigth=\"600\" grid=\"false\">\n"
+				+ "<function left=\"10\" top=\"20\" id=\"1\" identifier=\"a&quot;b\">\n"
+				+ "x &lt; y &amp; z</function>\n"
+				+ "<link startid=\"1\" endid=\"1\">\n"
+				+ "<decoration identifier=\"label\">\n"
+				+ "hello</decoration>\n"
+				+ "<point x=\"100\" y=\"40\"/>\n"
+				+ "<point x=\"150\" y=\"60\"/>\n"
+				+ "</link>\n"
+				+ "</diagram>\n";
+		assertEquals(expected, new DiagramXmlWriter(true).write(createModel()).toString());
+	}
+	
+	public void testEmptyDiagram(){
+		DiagramModel model = new DiagramModel();
+		model.setDiagramProperties(10, 20, true);
+		assertEquals(DiagramXmlWriter.XML_HEADER + "<diagram width=\"10\" heigth=\"20\" grid=\"true\"/>\n",
+				new DiagramXmlWriter(true).write(model).toString());
+	}
+	
+	public void testCompactExportIsReadBack(){
+		String xml = new DiagramXmlWriter(false).write(createModel()).toString();
+		DiagramModel model = new DiagramXmlReader(xml).readAll();
+		LinkModel link = model.getLinkRepresentationSet().iterator().next();
+		assertEquals("hello", link.decoration.content);
+		assertEquals(60, link.pointList[1][1]);
+		assertEquals("a\"b", model.getFunctionRepresentationSet().iterator().next().identifier);
+	}
+	
+}
@@ -3,6 +3,8 @@ package com.orange.links.segment.tests;
 import junit.framework.TestCase;
 
 import com.orange.links.client.exception.DiagramViewNotDisplayedException;
+import com.orange.links.client.shapes.Point;
+import com.orange.links.client.utils.SegmentPath;
 
 public class SegmentPathTest extends TestCase{
 
@@ -38,5 +40,39 @@ public class SegmentPathTest extends TestCase{
 		*/
 	}
 	
+	public void testUpdateKeepsTheEndsWhichDidNotMove(){
+		Point start = new Point(0, 0);
+		Point end = new Point(50, 0);
+		SegmentPath path = new SegmentPath(start, end);
+		Point first = path.getFirstPoint();
+		Point last = path.getLastPoint();
+		path.update();
+		assertSame(first, path.getFirstPoint());
+		assertSame(last, path.getLastPoint());
+		
+		end.setLeft(80);
+		path.update();
+		assertSame(first, path.getFirstPoint());
+		assertNotSame(last, path.getLastPoint());
+		assertEquals(80, path.getLastPoint().getLeft());
+		assertEquals(0, path.getLastPoint().getTop());
+	}
+	
+	public void testUpdateWithWaypoint(){
+		Point start = new Point(0, 0);
+		Point end = new Point(50, 50);
+		SegmentPath path = new SegmentPath(start, end);
+		path.addWaypoint(new Point(50, 0));
+		path.update();
+		Point first = path.getFirstPoint();
+		Point last = path.getLastPoint();
+		assertEquals(3, path.getPath().size());
+		path.update();
+		assertSame(first, path.getFirstPoint());
+		assertSame(last, path.getLastPoint());
+		assertEquals(1, first.getLeft());
+		assertEquals(49, last.getTop());
+	}
+	
 	
 }
@@ -0,0 +1,105 @@
+package com.orange.links.shapes.tests;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.shapes.AbstractShape;
+import com.orange.links.client.shapes.GeometrySnapshot;
+
+public class ShapeGeometryTest extends TestCase{
+
+	/**
+	 * Shape counting its reads of the DOM
+	 */
+	private static class CountingShape extends AbstractShape{
+
+		int left = 10;
+		int top = 20;
+		int reads = 0;
+
+		CountingShape(){
+			super(null, null);
+		}
+
+		@Override
+		protected int readLeft(){
+			reads++;
+			return left;
+		}
+
+		@Override
+		protected int readTop(){
+			return top;
+		}
+
+		@Override
+		protected int readWidth(){
+			return 100;
+		}
+
+		@Override
+		protected int readHeight(){
+			return 50;
+		}
+
+		public void draw(){
+			setSynchronized(true);
+		}
+
+		public void drawHighlight(){
+			setSynchronized(true);
+		}
+	}
+
+	private CountingShape createShape(){
+		CountingShape shape = new CountingShape();
+		shape.attachGeometry(new GeometrySnapshot());
+		shape.draw();
+		return shape;
+	}
+
+	public void testReadOnce(){
+		CountingShape shape = createShape();
+		assertTrue(shape.refreshGeometry());
+		for(int frame = 0; frame < 10; frame++){
+			assertFalse(shape.refreshGeometry());
+			assertEquals(10, shape.getLeft());
+		}
+		assertEquals(1, shape.reads);
+	}
+
+	public void testReadOnceAfterMove(){
+		CountingShape shape = createShape();
+		shape.refreshGeometry();
+		shape.reads = 0;
+
+		// Programmatic move, as done by DiagramController.moveWidget()
+		shape.left = 60;
+		shape.invalidateGeometry();
+		assertTrue(shape.refreshGeometry());
+		for(int frame = 0; frame < 10; frame++){
+			assertFalse(shape.refreshGeometry());
+			assertEquals(60, shape.getLeft());
+		}
+		assertEquals(1, shape.reads);
+		assertTrue(shape.isSynchronized());
+	}
+
+	public void testReadOnEachFrameWhileNotSynchronized(){
+		CountingShape shape = createShape();
+		shape.refreshGeometry();
+		shape.reads = 0;
+
+		// Dragged shape
+		shape.setSynchronized(false);
+		for(int frame = 0; frame < 10; frame++){
+			shape.left++;
+			assertTrue(shape.refreshGeometry());
+		}
+		assertEquals(10, shape.reads);
+
+		shape.setSynchronized(true);
+		assertFalse(shape.refreshGeometry());
+		assertEquals(10, shape.reads);
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.orange.links.utils.tests;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.utils.DiagramGraph;
+
+public class DiagramGraphTest extends TestCase{
+
+	private Set<String> outEdges(DiagramGraph<String,String> graph, String node){
+		Set<String> result = new HashSet<String>();
+		for(int e = graph.getFirstOutEdge(graph.getNodeId(node)); e != DiagramGraph.NONE; e = graph.getNextOutEdge(e)){
+			result.add(graph.getEdge(e));
+		}
+		return result;
+	}
+
+	private Set<String> inEdges(DiagramGraph<String,String> graph, String node){
+		Set<String> result = new HashSet<String>();
+		for(int e = graph.getFirstInEdge(graph.getNodeId(node)); e != DiagramGraph.NONE; e = graph.getNextInEdge(e)){
+			result.add(graph.getEdge(e));
+		}
+		return result;
+	}
+
+	public void testAdjacency(){
+		DiagramGraph<String,String> graph = new DiagramGraph<String,String>();
+		int a = graph.addNode("a");
+		int b = graph.addNode("b");
+		int c = graph.addNode("c");
+		assertEquals(a, graph.addNode("a"));
+		graph.addEdge(a, b, "ab");
+		graph.addEdge(a, c, "ac");
+		int bc = graph.addEdge(b, c, "bc");
+
+		assertEquals(2, graph.getOutDegree(a));
+		assertEquals(2, graph.getInDegree(c));
+		assertEquals(bc, graph.findEdge(b, c));
+		assertEquals(DiagramGraph.NONE, graph.findEdge(c, b));
+		assertEquals(b, graph.getSource(bc));
+		assertEquals(c, graph.getTarget(bc));
+		assertEquals(2, outEdges(graph, "a").size());
+		assertTrue(inEdges(graph, "c").contains("ac"));
+
+		graph.removeEdge(graph.getEdgeId("ac"));
+		assertEquals(1, graph.getOutDegree(a));
+		assertEquals(1, graph.getInDegree(c));
+		assertFalse(graph.containsEdge("ac"));
+		assertTrue(outEdges(graph, "a").contains("ab"));
+		assertTrue(inEdges(graph, "c").contains("bc"));
+	}
+
+	public void testRemoveNode(){
+		DiagramGraph<String,String> graph = new DiagramGraph<String,String>();
+		int a = graph.addNode("a");
+		int b = graph.addNode("b");
+		int c = graph.addNode("c");
+		graph.addEdge(a, b, "ab");
+		graph.addEdge(b, c, "bc");
+		graph.addEdge(c, b, "cb");
+		graph.removeNode(b);
+		assertEquals(0, graph.getEdgeCount());
+		assertEquals(2, graph.getNodeCount());
+		assertEquals(0, graph.getOutDegree(a));
+		assertEquals(0, graph.getInDegree(c));
+		assertEquals(DiagramGraph.NONE, graph.getNodeId("b"));
+
+		// The ids are reused
+		int d = graph.addNode("d");
+		assertEquals(b, d);
+		graph.addEdge(a, d, "ad");
+		assertEquals("ad", graph.getEdge(graph.findEdge(a, d)));
+	}
+
+	public void testGrowth(){
+		DiagramGraph<Integer,Integer> graph = new DiagramGraph<Integer,Integer>();
+		for(int i = 0; i < 1000; i++){
+			graph.addNode(i);
+		}
+		for(int i = 0; i < 999; i++){
+			graph.addEdge(i, i + 1, i);
+		}
+		assertEquals(999, graph.getEdgeCount());
+		assertEquals(1, graph.getInDegree(500));
+		assertEquals(499, graph.getSource(graph.getFirstInEdge(500)));
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.orange.links.utils.tests;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.shapes.Point;
+import com.orange.links.client.utils.ConnectionUtils;
+import com.orange.links.client.utils.GeometryKernel;
+import com.orange.links.client.utils.Rectangle;
+import com.orange.links.client.utils.Segment;
+
+/**
+ * The expected values are the results of the Point based implementation
+ * that GeometryKernel replaced
+ */
+public class GeometryKernelTest extends TestCase{
+
+	private Rectangle rectangle(int left, int top, int width, int height){
+		return new Rectangle(new Point(left, top), new Point(left + width, top),
+				new Point(left, top + height), new Point(left + width, top + height));
+	}
+
+	private Segment segment(int x1, int y1, int x2, int y2){
+		return new Segment(new Point(x1, y1), new Point(x2, y2));
+	}
+
+	private void assertSegment(int x1, int y1, int x2, int y2, Segment s){
+		assertNotNull(s);
+		assertEquals(x1, s.getP1().getLeft());
+		assertEquals(y1, s.getP1().getTop());
+		assertEquals(x2, s.getP2().getLeft());
+		assertEquals(y2, s.getP2().getTop());
+	}
+
+	private void assertPoint(int x, int y, Point p){
+		assertEquals(x, p.getLeft());
+		assertEquals(y, p.getTop());
+	}
+
+	public void testComputeSegment(){
+		// Diagonal
+		assertSegment(10, 10, 20, 20, ConnectionUtils.computeSegment(rectangle(0, 0, 10, 10), rectangle(20, 20, 10, 10)));
+		assertSegment(20, 20, 10, 10, ConnectionUtils.computeSegment(rectangle(20, 20, 10, 10), rectangle(0, 0, 10, 10)));
+		// Down
+		assertSegment(7, 9, 7, 30, ConnectionUtils.computeSegment(rectangle(0, 0, 10, 10), rectangle(5, 30, 20, 10)));
+		assertSegment(10, 10, 10, 29, ConnectionUtils.computeSegment(rectangle(0, 0, 30, 10), rectangle(5, 30, 10, 10)));
+		// Up
+		assertSegment(5, 50, 5, 10, ConnectionUtils.computeSegment(rectangle(0, 50, 10, 10), rectangle(0, 0, 30, 10)));
+		// Left
+		assertSegment(50, 7, 10, 7, ConnectionUtils.computeSegment(rectangle(50, 0, 10, 10), rectangle(0, 5, 10, 20)));
+		assertSegment(0, 4, 6, 4, ConnectionUtils.computeSegment(rectangle(0, 0, 10, 10), rectangle(2, 2, 4, 4)));
+		// Right
+		assertSegment(10, 10, 30, 10, ConnectionUtils.computeSegment(rectangle(0, 0, 10, 20), rectangle(30, 5, 10, 10)));
+	}
+
+	public void testComputeSegmentWithoutProjection(){
+		// Two flat rectangles on the same column, the borders can't be projected
+		assertNull(ConnectionUtils.computeSegment(rectangle(47, 39, 0, 29), rectangle(47, 15, 0, 17)));
+		assertFalse(GeometryKernel.computeSegment(47, 39, 0, 29, 47, 15, 0, 17, new int[4]));
+	}
+
+	public void testProject(){
+		assertSegment(5, 10, 10, 10, ConnectionUtils.project(segment(0, 0, 10, 0), segment(5, 10, 20, 10)));
+		assertSegment(8, 10, 20, 10, ConnectionUtils.project(segment(8, 0, 30, 0), segment(5, 10, 20, 10)));
+		assertSegment(8, 10, 12, 10, ConnectionUtils.project(segment(8, 0, 12, 0), segment(5, 10, 20, 10)));
+		assertSegment(5, 5, 5, 10, ConnectionUtils.project(segment(0, 0, 0, 10), segment(5, 5, 5, 20)));
+		assertNull(ConnectionUtils.project(segment(0, 0, 4, 0), segment(5, 10, 20, 10)));
+
+		int[] out = new int[4];
+		assertTrue(GeometryKernel.project(0, 0, 10, 0, 5, 10, 20, 10, out));
+		assertEquals(5, out[0]);
+		assertEquals(10, out[2]);
+		try{
+			GeometryKernel.project(0, 0, 10, 0, 5, 5, 5, 20, out);
+			fail();
+		}
+		catch(IllegalArgumentException e){
+			// Expected
+		}
+	}
+
+	public void testDistanceToSegment(){
+		Point p1 = new Point(0, 0);
+		Point p2 = new Point(10, 0);
+		assertEquals(5.0, ConnectionUtils.distanceToSegment(p1, p2, new Point(5, 5)));
+		assertEquals(5.0, ConnectionUtils.distanceToSegment(p1, p2, new Point(-3, 4)));
+		assertEquals(5.0, ConnectionUtils.distanceToSegment(p1, p2, new Point(13, 4)));
+		assertEquals(Math.sqrt(5), ConnectionUtils.distanceToSegment(p1, new Point(10, 10), new Point(0, 3)));
+	}
+
+	public void testProjectionOnSegment(){
+		Point p1 = new Point(0, 0);
+		Point p2 = new Point(10, 0);
+		assertPoint(5, 0, ConnectionUtils.projectionOnSegment(p1, p2, new Point(5, 5)));
+		assertSame(p1, ConnectionUtils.projectionOnSegment(p1, p2, new Point(-3, 4)));
+		assertSame(p2, ConnectionUtils.projectionOnSegment(p1, p2, new Point(13, 4)));
+		assertPoint(1, 1, ConnectionUtils.projectionOnSegment(p1, new Point(10, 10), new Point(0, 3)));
+
+		int[] out = new int[2];
+		assertEquals(0.15, GeometryKernel.projectionOnSegment(0, 0, 10, 10, 0, 3, out), 1e-9);
+		assertEquals(1, out[0]);
+		assertEquals(1, out[1]);
+	}
+
+}
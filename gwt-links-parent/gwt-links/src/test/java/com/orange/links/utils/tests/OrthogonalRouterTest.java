@@ -0,0 +1,83 @@
+package com.orange.links.utils.tests;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.shapes.Point;
+import com.orange.links.client.utils.OrthogonalRouter;
+
+public class OrthogonalRouterTest extends TestCase{
+
+	private void assertOrthogonal(List<Point> path){
+		for(int i = 1; i < path.size(); i++){
+			Point p0 = path.get(i - 1);
+			Point p1 = path.get(i);
+			assertTrue(p0 + " " + p1, p0.getLeft() == p1.getLeft() || p0.getTop() == p1.getTop());
+		}
+	}
+
+	/**
+	 * @return true if a horizontal or vertical segment crosses the inside of a rectangle
+	 */
+	private boolean crosses(Point p0, Point p1, int left, int top, int right, int bottom){
+		int minX = Math.min(p0.getLeft(), p1.getLeft());
+		int maxX = Math.max(p0.getLeft(), p1.getLeft());
+		int minY = Math.min(p0.getTop(), p1.getTop());
+		int maxY = Math.max(p0.getTop(), p1.getTop());
+		return maxX > left && minX < right && maxY > top && minY < bottom;
+	}
+
+	public void testStraightRoute(){
+		OrthogonalRouter router = new OrthogonalRouter();
+		List<Point> path = router.route(0, 0, 100, 50, 300, 0, 100, 50);
+		assertEquals(2, path.size());
+		assertEquals(100, path.get(0).getLeft());
+		assertEquals(25, path.get(0).getTop());
+		assertEquals(300, path.get(1).getLeft());
+		assertEquals(25, path.get(1).getTop());
+	}
+
+	public void testAvoidObstacle(){
+		OrthogonalRouter router = new OrthogonalRouter();
+		router.addObstacle(150, -50, 100, 150);
+		List<Point> path = router.route(0, 0, 100, 50, 300, 0, 100, 50);
+		assertNotNull(path);
+		assertOrthogonal(path);
+		for(int i = 1; i < path.size(); i++){
+			assertFalse(crosses(path.get(i - 1), path.get(i), 150, -50, 250, 100));
+		}
+		// Over or under the obstacle, from the middle of a side of each shape
+		assertEquals(4, path.size());
+		assertEquals(50, path.get(0).getLeft());
+		assertEquals(350, path.get(3).getLeft());
+	}
+
+	public void testBendPenalty(){
+		OrthogonalRouter router = new OrthogonalRouter();
+		router.setBendPenalty(1000);
+		List<Point> path = router.route(0, 0, 50, 50, 200, 200, 50, 50);
+		assertOrthogonal(path);
+		assertEquals(3, path.size());
+	}
+
+	public void testWaypoint(){
+		OrthogonalRouter router = new OrthogonalRouter();
+		List<Point> path = router.route(0, 0, 100, 50, 300, 300, 1, 1);
+		assertOrthogonal(path);
+		Point last = path.get(path.size() - 1);
+		assertEquals(300, last.getLeft());
+		assertEquals(300, last.getTop());
+	}
+
+	public void testNoRoute(){
+		OrthogonalRouter router = new OrthogonalRouter();
+		// The end is closed in by obstacles
+		router.addObstacle(180, 0, 10, 200);
+		router.addObstacle(390, 0, 10, 200);
+		router.addObstacle(180, 0, 220, 10);
+		router.addObstacle(180, 190, 220, 10);
+		assertNull(router.route(0, 50, 100, 50, 250, 50, 100, 50));
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.orange.links.utils.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.shapes.Point;
+import com.orange.links.client.utils.RouteCache;
+
+public class RouteCacheTest extends TestCase{
+
+	public void testInputs(){
+		RouteCache cache = new RouteCache();
+		Point start = new Point(0, 0);
+		Point end = new Point(100, 50);
+		List<Point> waypoints = new ArrayList<Point>();
+		waypoints.add(new Point(50, 0));
+		assertFalse(cache.isValid(start, end, waypoints));
+		cache.store(start, end, waypoints);
+		assertTrue(cache.isValid(start, end, waypoints));
+
+		// A movable point dragged
+		waypoints.get(0).setTop(10);
+		assertFalse(cache.isValid(start, end, waypoints));
+		cache.store(start, end, waypoints);
+
+		// A movable point added
+		waypoints.add(new Point(50, 50));
+		assertFalse(cache.isValid(start, end, waypoints));
+		cache.store(start, end, waypoints);
+
+		// An end moved
+		end.setLeft(120);
+		assertFalse(cache.isValid(start, end, waypoints));
+		cache.store(start, end, waypoints);
+		assertTrue(cache.isValid(start, end, waypoints));
+
+		cache.invalidate();
+		assertFalse(cache.isValid(start, end, waypoints));
+		assertEquals(2, cache.getHitCount());
+		assertEquals(5, cache.getMissCount());
+		cache.resetCounters();
+		assertEquals(0, cache.getHitCount());
+	}
+
+}
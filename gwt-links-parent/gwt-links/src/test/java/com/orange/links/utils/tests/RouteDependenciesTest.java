@@ -0,0 +1,53 @@
+package com.orange.links.utils.tests;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.utils.RouteDependencies;
+
+public class RouteDependenciesTest extends TestCase{
+
+	private Set<String> dependents(RouteDependencies<String,String> tracker, String shape){
+		Set<String> result = new HashSet<String>();
+		tracker.collectDependents(shape, result);
+		return result;
+	}
+
+	public void testDependents(){
+		RouteDependencies<String,String> tracker = new RouteDependencies<String,String>();
+		tracker.setDependencies("ab", Arrays.asList("a", "b", "x"));
+		tracker.setDependencies("cd", Arrays.asList("c", "d", "x"));
+		assertEquals(new HashSet<String>(Arrays.asList("ab", "cd")), dependents(tracker, "x"));
+		assertEquals(1, tracker.getDependentCount("a"));
+		assertTrue(dependents(tracker, "y").isEmpty());
+
+		// Routed again without the obstacle x
+		tracker.setDependencies("ab", Arrays.asList("a", "b", "y"));
+		assertEquals(1, tracker.getDependentCount("x"));
+		assertTrue(dependents(tracker, "y").contains("ab"));
+
+		tracker.remove("cd");
+		assertFalse(tracker.contains("cd"));
+		assertEquals(0, tracker.getDependentCount("x"));
+
+		tracker.removeShape("y");
+		assertTrue(tracker.contains("ab"));
+		assertEquals(0, tracker.getDependentCount("y"));
+	}
+
+	public void testCounters(){
+		RouteDependencies<String,String> tracker = new RouteDependencies<String,String>();
+		tracker.recordMutation(3);
+		tracker.recordMutation(1);
+		assertEquals(2, tracker.getMutationCount());
+		assertEquals(4, tracker.getInvalidatedCount());
+		assertEquals(1, tracker.getLastInvalidatedCount());
+		assertEquals(3, tracker.getMaxInvalidatedCount());
+		tracker.resetCounters();
+		assertEquals(0, tracker.getInvalidatedCount());
+	}
+
+}
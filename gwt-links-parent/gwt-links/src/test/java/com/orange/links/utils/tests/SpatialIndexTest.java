@@ -0,0 +1,57 @@
+package com.orange.links.utils.tests;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import com.orange.links.client.utils.BoundingBox;
+import com.orange.links.client.utils.SpatialIndex;
+
+public class SpatialIndexTest extends TestCase{
+
+	public void testQuery(){
+		SpatialIndex<String> index = new SpatialIndex<String>(1000, 1000, 100);
+		index.put("a", new BoundingBox(10, 10, 50, 50));
+		index.put("b", new BoundingBox(150, 150, 200, 20));
+		index.put("c", new BoundingBox(900, 900, 50, 50));
+		
+		Set<String> result = new HashSet<String>();
+		index.query(20, 20, result);
+		assertTrue(result.contains("a"));
+		assertFalse(result.contains("b"));
+		
+		index.query(320, 160, result);
+		assertEquals(1, result.size());
+		assertTrue(result.contains("b"));
+		
+		index.query(new BoundingBox(0, 0, 1000, 1000), result);
+		assertEquals(3, result.size());
+	}
+	
+	public void testMoveAndRemove(){
+		SpatialIndex<String> index = new SpatialIndex<String>(1000, 1000, 100);
+		index.put("a", new BoundingBox(10, 10, 50, 50));
+		index.put("a", new BoundingBox(510, 510, 50, 50));
+		
+		Set<String> result = new HashSet<String>();
+		index.query(20, 20, result);
+		assertTrue(result.isEmpty());
+		index.query(520, 520, result);
+		assertTrue(result.contains("a"));
+		
+		assertTrue(index.remove("a"));
+		index.query(520, 520, result);
+		assertTrue(result.isEmpty());
+		assertEquals(0, index.size());
+	}
+	
+	public void testOutside(){
+		SpatialIndex<String> index = new SpatialIndex<String>(1000, 1000, 100);
+		index.put("a", new BoundingBox(-50, 980, 20, 100));
+		Set<String> result = new HashSet<String>();
+		index.query(-10, 2000, result);
+		assertTrue(result.contains("a"));
+	}
+	
+}